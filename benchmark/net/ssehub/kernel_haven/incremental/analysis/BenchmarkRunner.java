@@ -0,0 +1,85 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.util.Arrays;
+
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * A minimal benchmark harness: runs a benchmark for a number of warmup iterations, then measures a number of
+ * iterations and reports the median throughput. Results are printed as tab-separated lines, so that they can be
+ * collected by the release process.
+ *
+ * @author Moritz
+ */
+public class BenchmarkRunner {
+
+    /**
+     * A single benchmark.
+     */
+    public interface Benchmark {
+
+        /**
+         * Runs one iteration of the benchmark.
+         *
+         * @return The number of operations performed in this iteration.
+         *
+         * @throws Exception If the benchmark fails.
+         */
+        long run() throws Exception;
+
+    }
+
+    /** The number of iterations that are run before measuring. */
+    private int warmupIterations;
+
+    /** The number of iterations that are measured. */
+    private int measuredIterations;
+
+    /**
+     * Creates a runner.
+     *
+     * @param warmupIterations   The number of iterations that are run before measuring.
+     * @param measuredIterations The number of iterations that are measured; must be &gt;= 1.
+     */
+    public BenchmarkRunner(int warmupIterations, int measuredIterations) {
+        this.warmupIterations = warmupIterations;
+        this.measuredIterations = measuredIterations;
+    }
+
+    /**
+     * Prints the header of the result lines.
+     */
+    public static void printHeader() {
+        System.out.println("benchmark\tparameter\tops\tmedian_ms\tops_per_s");
+    }
+
+    /**
+     * Runs the given benchmark and prints its result line.
+     *
+     * @param name      The name of the benchmark.
+     * @param parameter The parameter of this run, e.g. the number of threads.
+     * @param benchmark The benchmark.
+     *
+     * @throws Exception If the benchmark fails.
+     */
+    public void run(@NonNull String name, @NonNull String parameter, @NonNull Benchmark benchmark)
+            throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            benchmark.run();
+        }
+
+        long[] durations = new long[measuredIterations];
+        long ops = 0;
+        for (int i = 0; i < measuredIterations; i++) {
+            long start = System.nanoTime();
+            ops = benchmark.run();
+            durations[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(durations);
+        long median = durations[measuredIterations / 2];
+
+        System.out.printf("%s\t%s\t%d\t%.3f\t%.1f%n", name, parameter, ops, median / 1e6,
+                ops / (median / 1e9));
+    }
+
+}
@@ -0,0 +1,257 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.ssehub.kernel_haven.build_model.BuildModel;
+import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.VmToCnfConverter;
+import net.ssehub.kernel_haven.code_model.CodeBlock;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.incremental.analysis.IncrementalDeadCodeAnalysisSettings.SchedulingStrategy;
+import net.ssehub.kernel_haven.incremental.analysis.IncrementalDeadCodeFinder.DeadCodeBlock;
+import net.ssehub.kernel_haven.incremental.util.SourceFileDifferenceDetector;
+import net.ssehub.kernel_haven.incremental.util.SourceFileDifferenceDetector.Consideration;
+import net.ssehub.kernel_haven.test_utils.TestConfiguration;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.variability_model.VariabilityModel;
+
+/**
+ * Benchmarks for the hot paths of the dead code finder on synthetic models. The size of the models can be configured
+ * with the following system properties:
+ * <ul>
+ * <li><code>bench.vars</code>: number of variability variables (default 2000)</li>
+ * <li><code>bench.clauses</code>: number of constraints of the variability model (default 4000)</li>
+ * <li><code>bench.files</code>: number of source files (default 200)</li>
+ * <li><code>bench.depth</code>: nesting depth of the code blocks (default 3)</li>
+ * <li><code>bench.fanout</code>: number of nested blocks per block (default 4)</li>
+ * <li><code>bench.threads</code>: comma-separated thread counts for the {@link IncrementalThreadedDeadCodeFinder},
+ * which is run with each of them and each {@link SchedulingStrategy} (default 1,2,4,8); it is also run with the
+ * automatically tuned number of threads and with virtual threads</li>
+ * <li><code>bench.warmup</code> and <code>bench.iterations</code>: iterations of each benchmark (default 3 and 5)</li>
+ * </ul>
+ *
+ * @author Moritz
+ */
+public class DeadCodeFinderBenchmark {
+
+    /** The variability model. */
+    private @NonNull VariabilityModel vm;
+
+    /** The CNF of the variability model. */
+    private @NonNull Cnf vmCnf;
+
+    /** The build model. */
+    private @NonNull BuildModel bm;
+
+    /** The code model. */
+    private @NonNull List<@NonNull SourceFile<CodeBlock>> cm;
+
+    /** A modified version of the code model, for the difference detector. */
+    private @NonNull List<@NonNull SourceFile<CodeBlock>> modifiedCm;
+
+    /**
+     * Generates the models for the benchmarks.
+     *
+     * @param directory The directory to write the constraint file to.
+     *
+     * @throws Exception If generating the models fails.
+     */
+    public DeadCodeFinderBenchmark(@NonNull File directory) throws Exception {
+        int files = Integer.getInteger("bench.files", 200);
+        int depth = Integer.getInteger("bench.depth", 3);
+        int fanOut = Integer.getInteger("bench.fanout", 4);
+        SyntheticModelGenerator generator = new SyntheticModelGenerator(42, Integer.getInteger("bench.vars", 2000));
+
+        vm = generator.generateVm(new File(directory, "vm.dimacs"), Integer.getInteger("bench.clauses", 4000));
+        vmCnf = new VmToCnfConverter().convertVmToCnf(vm);
+        bm = generator.generateBm(files);
+        cm = generator.generateCm(files, depth, fanOut);
+        modifiedCm = new SyntheticModelGenerator(43, Integer.getInteger("bench.vars", 2000))
+                .generateCm(files, depth, fanOut);
+    }
+
+    /**
+     * Converts the variability model to CNF.
+     *
+     * @return The number of conversions.
+     *
+     * @throws Exception If the conversion fails.
+     */
+    private long vmToCnf() throws Exception {
+        new VmToCnfConverter().convertVmToCnf(vm);
+        return 1;
+    }
+
+    /**
+     * Checks each block of the code model with {@link IncrementalDeadCodeFinder#isSat(Formula, Formula)}, starting
+     * with empty SAT caches, so that changes to the caching layers and the solver calls of the finder show up here.
+     *
+     * @param finder The finder with all models set.
+     * @return The number of checked blocks.
+     *
+     * @throws Exception If solving fails.
+     */
+    private long isSat(@NonNull IncrementalDeadCodeFinder finder) throws Exception {
+        finder.initializeSatCaches();
+        long blocks = 0;
+        for (SourceFile<CodeBlock> sourceFile : cm) {
+            Formula filePc = notNull(bm.getPc(sourceFile.getPath()));
+            for (CodeBlock block : sourceFile) {
+                blocks += checkBlock(finder, block, filePc);
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * Checks a block and its nested blocks with the given finder.
+     *
+     * @param finder The finder to check with.
+     * @param block  The block to check.
+     * @param filePc The presence condition of the file.
+     * @return The number of checked blocks.
+     *
+     * @throws Exception If solving fails.
+     */
+    private long checkBlock(@NonNull IncrementalDeadCodeFinder finder, @NonNull CodeBlock block,
+            @NonNull Formula filePc) throws Exception {
+        finder.isSat(block.getPresenceCondition(), filePc);
+        long result = 1;
+        for (int i = 0; i < block.getNestedElementCount(); i++) {
+            result += checkBlock(finder, block.getNestedElement(i), filePc);
+        }
+        return result;
+    }
+
+    /**
+     * Compares each source file with itself and with a modified version.
+     *
+     * @return The number of comparisons.
+     */
+    private long differenceDetector() {
+        SourceFileDifferenceDetector detector =
+                new SourceFileDifferenceDetector(Consideration.ONLY_VARIABILITY_CHANGE, vm, vm);
+        for (int i = 0; i < cm.size(); i++) {
+            detector.isDifferent(cm.get(i), cm.get(i));
+            detector.isDifferent(cm.get(i), modifiedCm.get(i));
+        }
+        return 2L * cm.size();
+    }
+
+    /**
+     * Runs the threaded finder on the complete code model, starting with empty caches and statistics.
+     *
+     * @param finder The finder created by {@link #createThreadedFinder(Properties, AtomicLong)}.
+     * @return The number of analyzed source files.
+     */
+    private long threadedFinder(@NonNull IncrementalThreadedDeadCodeFinder finder) {
+        finder.statistics = new DeadCodeAnalysisStatistics();
+        finder.seenPaths.clear();
+        finder.initializeSatCaches();
+        return finder.analyzeSourceFiles(null);
+    }
+
+    /**
+     * Creates a finder that works on the generated models.
+     *
+     * @return The finder.
+     *
+     * @throws Exception If creating the finder fails.
+     */
+    private @NonNull IncrementalDeadCodeFinder createFinder() throws Exception {
+        // the post extraction is not used, as all models are set directly
+        IncrementalDeadCodeFinder finder = new IncrementalDeadCodeFinder(new TestConfiguration(new Properties()),
+                null);
+        setModels(finder);
+        return finder;
+    }
+
+    /**
+     * Creates a threaded finder that works on the generated models and counts the dead code blocks it passes on,
+     * instead of passing them on as results.
+     *
+     * @param properties The configuration of the finder, e.g. its scheduling and number of threads.
+     * @param deadBlocks The counter of the dead code blocks.
+     * @return The finder.
+     *
+     * @throws Exception If creating the finder fails.
+     */
+    private @NonNull IncrementalThreadedDeadCodeFinder createThreadedFinder(@NonNull Properties properties,
+            @NonNull AtomicLong deadBlocks) throws Exception {
+        IncrementalThreadedDeadCodeFinder finder = new IncrementalThreadedDeadCodeFinder(
+                new TestConfiguration(properties), null) {
+
+            @Override
+            protected void emitResults(@NonNull List<@NonNull DeadCodeBlock> blocks) {
+                deadBlocks.addAndGet(blocks.size());
+            }
+
+        };
+        setModels(finder);
+        return finder;
+    }
+
+    /**
+     * Sets the generated models of the given finder.
+     *
+     * @param finder The finder.
+     */
+    private void setModels(@NonNull IncrementalDeadCodeFinder finder) {
+        finder.vm = vm;
+        finder.bm = bm;
+        finder.cm = new ArrayList<>(cm);
+        finder.vmCnf = vmCnf;
+        finder.quietMode = true;
+    }
+
+    /**
+     * Runs all benchmarks.
+     *
+     * @param args Ignored; see the class comment for the configuration.
+     *
+     * @throws Exception If a benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+        File directory = Files.createTempDirectory("dead_code_benchmark").toFile();
+        DeadCodeFinderBenchmark benchmark = new DeadCodeFinderBenchmark(directory);
+        BenchmarkRunner runner = new BenchmarkRunner(Integer.getInteger("bench.warmup", 3),
+                Integer.getInteger("bench.iterations", 5));
+
+        BenchmarkRunner.printHeader();
+        runner.run("vm_to_cnf", "-", benchmark::vmToCnf);
+        IncrementalDeadCodeFinder finder = benchmark.createFinder();
+        runner.run("is_sat", "-", () -> benchmark.isSat(finder));
+        runner.run("difference_detector", "-", benchmark::differenceDetector);
+
+        AtomicLong deadBlocks = new AtomicLong();
+        for (SchedulingStrategy scheduling : SchedulingStrategy.values()) {
+            for (String threads : System.getProperty("bench.threads", "1,2,4,8").split(",")) {
+                Properties properties = new Properties();
+                properties.setProperty(IncrementalDeadCodeAnalysisSettings.SCHEDULING.getKey(), scheduling.name());
+                properties.setProperty(IncrementalDeadCodeAnalysisSettings.NUMBER_OF_THREADS.getKey(), threads.trim());
+                IncrementalThreadedDeadCodeFinder threaded = benchmark.createThreadedFinder(properties, deadBlocks);
+                runner.run("threaded_finder", scheduling + " " + threads.trim() + " threads",
+                        () -> benchmark.threadedFinder(threaded));
+            }
+        }
+        Properties auto = new Properties();
+        auto.setProperty(IncrementalDeadCodeAnalysisSettings.NUMBER_OF_THREADS.getKey(),
+                IncrementalDeadCodeAnalysisSettings.AUTO_THREADS);
+        IncrementalThreadedDeadCodeFinder tuned = benchmark.createThreadedFinder(auto, deadBlocks);
+        runner.run("threaded_finder", "auto threads", () -> benchmark.threadedFinder(tuned));
+
+        Properties virtual = new Properties();
+        virtual.setProperty(IncrementalDeadCodeAnalysisSettings.VIRTUAL_THREADS.getKey(), "true");
+        IncrementalThreadedDeadCodeFinder virtualThreads = benchmark.createThreadedFinder(virtual, deadBlocks);
+        runner.run("threaded_finder", "virtual threads", () -> benchmark.threadedFinder(virtualThreads));
+    }
+
+}
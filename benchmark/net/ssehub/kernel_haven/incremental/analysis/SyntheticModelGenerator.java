@@ -0,0 +1,192 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import net.ssehub.kernel_haven.build_model.BuildModel;
+import net.ssehub.kernel_haven.code_model.CodeBlock;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.variability_model.VariabilityModel;
+import net.ssehub.kernel_haven.variability_model.VariabilityVariable;
+
+/**
+ * Generates synthetic variability, build and code models of configurable size for the benchmarks. The generator is
+ * seeded, so that repeated runs measure the same models.
+ *
+ * @author Moritz
+ */
+public class SyntheticModelGenerator {
+
+    /** Source of randomness; seeded for reproducible models. */
+    private @NonNull Random random;
+
+    /** The number of variables of the variability model. */
+    private int variableCount;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed          The seed for the generated models.
+     * @param variableCount The number of variables of the variability model; must be &gt;= 2.
+     */
+    public SyntheticModelGenerator(long seed, int variableCount) {
+        this.random = new Random(seed);
+        this.variableCount = variableCount;
+    }
+
+    /**
+     * Returns the name of the variable with the given DIMACS number.
+     *
+     * @param number The DIMACS number, starting at 1.
+     * @return The name of the variable.
+     */
+    private static @NonNull String variableName(int number) {
+        return "CONFIG_VAR" + number;
+    }
+
+    /**
+     * Returns a random variable of the variability model, negated with a probability of 25%.
+     *
+     * @return The literal.
+     */
+    private @NonNull Formula randomLiteral() {
+        Formula variable = new Variable(variableName(random.nextInt(variableCount) + 1));
+        return random.nextInt(4) == 0 ? new Negation(variable) : variable;
+    }
+
+    /**
+     * Generates a variability model. The constraints are random implications between variables; a few variables are
+     * forced off, so that the code model contains dead blocks.
+     *
+     * @param constraintFile The DIMACS file to write the constraints to.
+     * @param clauseCount    The number of implications.
+     * @return The variability model.
+     *
+     * @throws IOException If writing the constraint file fails.
+     */
+    public @NonNull VariabilityModel generateVm(@NonNull File constraintFile, int clauseCount) throws IOException {
+        int forcedOff = Math.max(1, variableCount / 100);
+        Set<VariabilityVariable> variables = new HashSet<>();
+        try (PrintWriter out = new PrintWriter(new FileWriter(constraintFile))) {
+            for (int i = 1; i <= variableCount; i++) {
+                out.println("c " + i + " " + variableName(i));
+                variables.add(new VariabilityVariable(variableName(i), "bool", i));
+            }
+            out.println("p cnf " + variableCount + " " + (clauseCount + forcedOff));
+            for (int i = 0; i < clauseCount; i++) {
+                int from = random.nextInt(variableCount) + 1;
+                int to = random.nextInt(variableCount) + 1;
+                out.println(-from + " " + to + " 0");
+            }
+            for (int i = 1; i <= forcedOff; i++) {
+                out.println(-i + " 0");
+            }
+        }
+        return new VariabilityModel(constraintFile, variables);
+    }
+
+    /**
+     * Returns the path of the synthetic source file with the given number.
+     *
+     * @param number The number of the source file.
+     * @return The path.
+     */
+    public static @NonNull File sourceFilePath(int number) {
+        return new File("drivers/synthetic/file" + number + ".c");
+    }
+
+    /**
+     * Generates a build model with a random presence condition of up to three literals for each source file.
+     *
+     * @param fileCount The number of source files.
+     * @return The build model.
+     */
+    public @NonNull BuildModel generateBm(int fileCount) {
+        BuildModel result = new BuildModel();
+        for (int i = 0; i < fileCount; i++) {
+            Formula pc = randomLiteral();
+            int literals = random.nextInt(3);
+            for (int j = 0; j < literals; j++) {
+                pc = new Conjunction(pc, randomLiteral());
+            }
+            result.add(sourceFilePath(i), pc);
+        }
+        return result;
+    }
+
+    /**
+     * Generates a code model with a complete tree of nested blocks for each source file. The presence condition of
+     * each block is the presence condition of its parent and one random literal.
+     *
+     * @param fileCount The number of source files.
+     * @param depth     The nesting depth of the blocks.
+     * @param fanOut    The number of nested blocks of each block.
+     * @return The code model.
+     */
+    public @NonNull List<@NonNull SourceFile<CodeBlock>> generateCm(int fileCount, int depth, int fanOut) {
+        List<@NonNull SourceFile<CodeBlock>> result = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            result.add(generateSourceFile(sourceFilePath(i), depth, fanOut));
+        }
+        return result;
+    }
+
+    /**
+     * Generates a single source file with a complete tree of nested blocks.
+     *
+     * @param path   The path of the source file.
+     * @param depth  The nesting depth of the blocks.
+     * @param fanOut The number of nested blocks of each block.
+     * @return The source file.
+     */
+    public @NonNull SourceFile<CodeBlock> generateSourceFile(@NonNull File path, int depth, int fanOut) {
+        SourceFile<CodeBlock> result = new SourceFile<>(path);
+        int[] line = {1};
+        for (int i = 0; i < fanOut; i++) {
+            result.addElement(generateBlock(path, True.INSTANCE, depth, fanOut, line));
+        }
+        return result;
+    }
+
+    /**
+     * Generates a block and its nested blocks.
+     *
+     * @param path     The path of the source file.
+     * @param parentPc The presence condition of the parent block.
+     * @param depth    The remaining nesting depth; must be &gt;= 1.
+     * @param fanOut   The number of nested blocks of each block.
+     * @param line     The next free line; updated by this method.
+     * @return The block.
+     */
+    private @NonNull CodeBlock generateBlock(@NonNull File path, @NonNull Formula parentPc, int depth, int fanOut,
+            int[] line) {
+        Formula condition = randomLiteral();
+        Formula pc = parentPc instanceof True ? condition : new Conjunction(parentPc, condition);
+        int start = line[0]++;
+        List<CodeBlock> nested = new ArrayList<>();
+        if (depth > 1) {
+            for (int i = 0; i < fanOut; i++) {
+                nested.add(generateBlock(path, pc, depth - 1, fanOut, line));
+            }
+        }
+        CodeBlock result = new CodeBlock(start, line[0]++, path, condition, pc);
+        for (CodeBlock child : nested) {
+            result.addNestedElement(child);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,150 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * A bounded cache that is shared by all worker threads of an analysis. The cache is split into several segments that
+ * are locked independently, so that workers rarely contend. Each segment evicts its least recently used entry once it
+ * exceeds its share of the maximum size.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ *
+ * @author Moritz
+ */
+public class BoundedCache<K, V> {
+
+    /** The number of segments; must be a power of two. */
+    private static final int SEGMENT_COUNT = 16;
+
+    /** The segments of this cache. */
+    private @NonNull Segment<K, V>[] segments;
+
+    /** The number of lookups that found a value. */
+    private @NonNull LongAdder hits = new LongAdder();
+
+    /** The number of lookups that found no value. */
+    private @NonNull LongAdder misses = new LongAdder();
+
+    /**
+     * A single, independently locked segment of the cache.
+     *
+     * @param <K> The type of the keys.
+     * @param <V> The type of the values.
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The maximum number of entries in this segment. */
+        private int capacity;
+
+        /**
+         * Creates a segment.
+         *
+         * @param capacity The maximum number of entries in this segment.
+         */
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        /**
+         * Evicts the least recently used entry once the capacity is exceeded.
+         *
+         * @param eldest The least recently used entry.
+         * @return Whether to remove the entry.
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param maxSize The maximum number of values held by this cache. Must be &gt;= 1.
+     */
+    @SuppressWarnings("unchecked")
+    public BoundedCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be >= 1, got " + maxSize);
+        }
+        int segmentCapacity = Math.max(1, maxSize / SEGMENT_COUNT);
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+    }
+
+    /**
+     * Returns the segment responsible for the given key.
+     *
+     * @param key The key.
+     * @return The segment.
+     */
+    private @NonNull Segment<K, V> segmentFor(@NonNull K key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (SEGMENT_COUNT - 1)];
+    }
+
+    /**
+     * Returns the cached value for the given key.
+     *
+     * @param key The key to look up.
+     * @return The value or <code>null</code> if it is not cached.
+     */
+    public @Nullable V get(@NonNull K key) {
+        Segment<K, V> segment = segmentFor(key);
+        V result;
+        synchronized (segment) {
+            result = segment.get(key);
+        }
+        if (result == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Caches a value.
+     *
+     * @param key   The key.
+     * @param value The value.
+     */
+    public void put(@NonNull K key, @NonNull V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    /**
+     * Returns the number of lookups that found a value.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that found no value.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+}
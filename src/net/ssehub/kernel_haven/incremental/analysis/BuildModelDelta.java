@@ -0,0 +1,137 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.ssehub.kernel_haven.build_model.BuildModel;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * Computes the source files whose presence condition differs between two versions of the build model.
+ *
+ * <p>
+ * Instead of comparing the presence conditions of each file with a deep {@link Formula#equals(Object)}, each presence
+ * condition is reduced to a structural (Merkle) hash of 128 bits: the hash of an operator is computed from its kind
+ * and the hashes of its operands, the hash of a variable from its name. The hashes of both versions are computed in
+ * parallel. Two presence conditions are considered equal if their hashes are equal; with two independent 64 bit
+ * lanes, a collision of two different presence conditions is negligible.
+ * </p>
+ *
+ * @author Moritz
+ */
+public class BuildModelDelta {
+
+    /** The seed of the first hash lane. */
+    private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+
+    /** The seed of the second hash lane. */
+    private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+
+    /**
+     * Utility class; don't allow any instances.
+     */
+    private BuildModelDelta() {
+    }
+
+    /**
+     * Computes the source files whose presence condition was added or changed in the current build model.
+     *
+     * @param previous The previous build model.
+     * @param current  The current build model.
+     * @return The paths of all files of the current build model whose presence condition differs from the previous
+     *      build model, including files that had no presence condition before.
+     */
+    public static @NonNull Set<String> computeChangedFiles(@NonNull BuildModel previous, @NonNull BuildModel current) {
+        Map<String, long[]> previousHashes = hashAll(previous);
+        Map<String, long[]> currentHashes = hashAll(current);
+
+        Set<String> result = ConcurrentHashMap.newKeySet();
+        currentHashes.entrySet().parallelStream().forEach((entry) -> {
+            if (!Arrays.equals(entry.getValue(), previousHashes.get(entry.getKey()))) {
+                result.add(entry.getKey());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Computes the hashes of the presence conditions of all files of the given build model in parallel.
+     *
+     * @param bm The build model.
+     * @return The hash of the presence condition of each path.
+     */
+    private static @NonNull Map<String, long[]> hashAll(@NonNull BuildModel bm) {
+        List<File> paths = new ArrayList<>(bm.getSize());
+        for (File path : bm) {
+            paths.add(path);
+        }
+        Map<String, long[]> result = new ConcurrentHashMap<>(paths.size() * 2);
+        paths.parallelStream().forEach((path) -> {
+            Formula pc = bm.getPc(path);
+            if (pc != null) {
+                result.put(path.getPath(), new long[] {hash(pc, SEED_1), hash(pc, SEED_2)});
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Computes one lane of the structural hash of a formula.
+     *
+     * @param formula The formula.
+     * @param seed    The seed of the lane.
+     * @return The hash.
+     */
+    private static long hash(@NonNull Formula formula, long seed) {
+        long result;
+        if (formula instanceof Variable) {
+            result = seed ^ 1;
+            for (byte b : ((Variable) formula).getName().getBytes(StandardCharsets.UTF_8)) {
+                result = mix(result + b);
+            }
+        } else if (formula instanceof Negation) {
+            result = mix((seed ^ 2) + hash(((Negation) formula).getFormula(), seed));
+        } else if (formula instanceof Conjunction) {
+            Conjunction conjunction = (Conjunction) formula;
+            result = mix(mix((seed ^ 3) + hash(conjunction.getLeft(), seed)) + hash(conjunction.getRight(), seed));
+        } else if (formula instanceof Disjunction) {
+            Disjunction disjunction = (Disjunction) formula;
+            result = mix(mix((seed ^ 4) + hash(disjunction.getLeft(), seed)) + hash(disjunction.getRight(), seed));
+        } else if (formula instanceof True) {
+            result = mix(seed ^ 5);
+        } else if (formula instanceof False) {
+            result = mix(seed ^ 6);
+        } else {
+            // unknown formula type; fall back to its string representation
+            result = mix((seed ^ 7) + formula.toString().hashCode());
+        }
+        return result;
+    }
+
+    /**
+     * Scrambles the bits of the given value (the finalizer of SplitMix64).
+     *
+     * @param value The value.
+     * @return The scrambled value.
+     */
+    private static long mix(long value) {
+        long result = value;
+        result = (result ^ (result >>> 30)) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ (result >>> 27)) * 0x94D049BB133111EBL;
+        return result ^ (result >>> 31);
+    }
+
+}
@@ -0,0 +1,208 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.CnfVariable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+import net.ssehub.kernel_haven.variability_model.VariabilityModel;
+import net.ssehub.kernel_haven.variability_model.VariabilityVariable;
+
+/**
+ * Stores the CNF of the variability model in a compact binary form, so that it does not need to be converted again
+ * in runs where the variability model did not change. Variable names are stored once in a table; each clause is
+ * stored as a list of signed variable indices. The file is memory-mapped when reading.
+ *
+ * <p>
+ * The CNF is stored with a fingerprint of the variability model it was converted from (see
+ * {@link #fingerprint(VariabilityModel)}) and is only read for a model with the same fingerprint. Thus, a CNF that
+ * was left behind by an earlier run is never used for a different variability model, even if the model changed in a
+ * run that did not update the cache.
+ * </p>
+ *
+ * @author Moritz
+ */
+public class CnfCache {
+
+    /** Marks files written by this class. */
+    private static final int MAGIC = 0x4B48434E;
+
+    /** The version of the file format. */
+    private static final int VERSION = 2;
+
+    /** The name of the file the CNF is stored in. */
+    private static final @NonNull String FILE_NAME = "vm_cnf.bin";
+
+    /** The file the CNF is stored in. */
+    private @NonNull File file;
+
+    /**
+     * Creates a CNF cache.
+     *
+     * @param directory The directory to store the CNF in.
+     */
+    public CnfCache(@NonNull File directory) {
+        this.file = new File(directory, FILE_NAME);
+    }
+
+    /**
+     * Deletes the stored CNF, if any.
+     *
+     * @throws IOException If the file exists but can not be deleted.
+     */
+    public void delete() throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Could not delete " + file);
+        }
+    }
+
+    /**
+     * Computes a fingerprint of the source of a variability model: the constraint model file and the name, type and
+     * DIMACS number of each variable.
+     *
+     * @param vm The variability model.
+     * @return The hexadecimal SHA-256 fingerprint.
+     *
+     * @throws IOException If reading the constraint model fails.
+     */
+    public static @NonNull String fingerprint(@NonNull VariabilityModel vm) throws IOException {
+        MessageDigest digest = PersistentSatCache.createDigest();
+        File constraintModel = vm.getConstraintModel();
+        if (constraintModel != null && constraintModel.isFile()) {
+            byte[] buffer = new byte[1 << 16];
+            try (InputStream in = new FileInputStream(constraintModel)) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        List<VariabilityVariable> variables = new ArrayList<>(vm.getVariables());
+        variables.sort(Comparator.comparing(VariabilityVariable::getName));
+        for (VariabilityVariable variable : variables) {
+            String entry = "\n" + variable.getName() + " " + variable.getType() + " " + variable.getDimacsNumber();
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+        }
+        return PersistentSatCache.toHex(digest.digest());
+    }
+
+    /**
+     * Writes the given CNF to disk, replacing a previously stored CNF.
+     *
+     * @param cnf           The CNF of the variability model.
+     * @param vmFingerprint The fingerprint of the variability model (see {@link #fingerprint(VariabilityModel)}).
+     *
+     * @throws IOException If writing fails.
+     */
+    public void write(@NonNull Cnf cnf, @NonNull String vmFingerprint) throws IOException {
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < cnf.getRowCount(); i++) {
+            for (CnfVariable variable : cnf.getRow(i)) {
+                indices.putIfAbsent(variable.getName(), indices.size());
+            }
+        }
+        String[] names = new String[indices.size()];
+        for (Map.Entry<String, Integer> entry : indices.entrySet()) {
+            names[entry.getValue()] = entry.getKey();
+        }
+
+        File tmpFile = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(vmFingerprint);
+            out.writeInt(names.length);
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            out.writeInt(cnf.getRowCount());
+            for (int i = 0; i < cnf.getRowCount(); i++) {
+                List<CnfVariable> row = cnf.getRow(i);
+                out.writeInt(row.size());
+                for (CnfVariable variable : row) {
+                    // indices are shifted by one, so that the sign can store the negation
+                    int index = indices.get(variable.getName()) + 1;
+                    out.writeInt(variable.isNegation() ? -index : index);
+                }
+            }
+        }
+        if (file.exists() && !file.delete() || !tmpFile.renameTo(file)) {
+            throw new IOException("Could not replace CNF cache " + file);
+        }
+    }
+
+    /**
+     * Reads the stored CNF.
+     *
+     * @param vmFingerprint The fingerprint of the current variability model (see
+     *                      {@link #fingerprint(VariabilityModel)}).
+     * @return The stored CNF or <code>null</code> if no CNF is stored or it was stored for a different variability
+     *      model.
+     *
+     * @throws IOException If reading fails or the file is corrupt.
+     */
+    public @Nullable Cnf read(@NonNull String vmFingerprint) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            byte[] storedFingerprint = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(storedFingerprint);
+            if (!vmFingerprint.equals(new String(storedFingerprint, StandardCharsets.UTF_8))) {
+                return null;
+            }
+
+            int varCount = buffer.getInt();
+            CnfVariable[] positive = new CnfVariable[varCount];
+            CnfVariable[] negative = new CnfVariable[varCount];
+            for (int i = 0; i < varCount; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                String name = new String(bytes, StandardCharsets.UTF_8);
+                positive[i] = new CnfVariable(false, name);
+                negative[i] = new CnfVariable(true, name);
+            }
+
+            Cnf result = new Cnf();
+            int rowCount = buffer.getInt();
+            for (int i = 0; i < rowCount; i++) {
+                CnfVariable[] row = new CnfVariable[buffer.getInt()];
+                for (int j = 0; j < row.length; j++) {
+                    int literal = buffer.getInt();
+                    row[j] = literal < 0 ? negative[-literal - 1] : positive[literal - 1];
+                }
+                result.addRow(row);
+            }
+            return result;
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt CNF cache " + file, e);
+        }
+    }
+
+}
@@ -0,0 +1,297 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * Counters and timings that summarize a run of the dead code analysis. Counting is cheap and thread-safe, so that the
+ * counters can replace per-file log lines. Besides the counters, the duration of each {@link Phase}, a histogram of
+ * the solver times and the busy time of each thread are recorded; all of them can be exported as a CSV table with
+ * {@link #writeCsv(File)}.
+ *
+ * @author Moritz
+ */
+public class DeadCodeAnalysisStatistics {
+
+    /**
+     * The events that are counted.
+     */
+    public enum Counter {
+
+        /** Source files that were analyzed. */
+        FILES_ANALYZED,
+
+        /** Source files that were skipped because they have no build presence condition. */
+        FILES_SKIPPED_NO_PC,
+
+        /** Source files that were skipped because their build presence condition did not change. */
+        FILES_SKIPPED_BUILD_PC_UNCHANGED,
+
+        /** Source files that were skipped because their variability related code blocks did not change. */
+        FILES_SKIPPED_CODE_UNCHANGED,
+
+        /** Code blocks that were checked. */
+        BLOCKS_CHECKED,
+
+        /** Dead code blocks that were found. */
+        DEAD_BLOCKS,
+
+        /** Verdicts that were taken from the persistent SAT cache. */
+        PERSISTENT_SAT_CACHE_HITS,
+
+        /** Satisfiable verdicts that were decided without the SAT solver. */
+        TRIVIAL_SAT,
+
+        /** Unsatisfiable verdicts that were decided without the SAT solver. */
+        TRIVIAL_UNSAT,
+
+        /** Satisfiable verdicts of presence conditions implied by the satisfiable presence condition of their file. */
+        FILE_PC_SAT,
+
+        /** Unsatisfiable verdicts of presence conditions in a file whose presence condition is unsatisfiable. */
+        FILE_PC_UNSAT,
+
+        /** Calls to the SAT solver. */
+        SAT_CALLS,
+    }
+
+    /**
+     * The phases of a run whose duration is measured.
+     */
+    public enum Phase {
+
+        /** Loading the models from the hybrid cache. */
+        LOAD_MODELS,
+
+        /** Converting the variability model to CNF. */
+        VM_TO_CNF,
+
+        /** Detecting changes and checking the code blocks. */
+        ANALYSIS,
+
+        /** Storing caches and results for later runs. */
+        FINISH,
+    }
+
+    /** The number of buckets of the solver time histogram. */
+    private static final int HISTOGRAM_BUCKETS = 24;
+
+    /** The value of each counter. */
+    private @NonNull Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+
+    /** The duration of each phase in nanoseconds. */
+    private @NonNull Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+
+    /**
+     * The solver time histogram. Bucket <code>i</code> counts solver calls that took less than <code>2^(i+1)</code>
+     * microseconds (and at least <code>2^i</code>, except for the first bucket); the last bucket counts all longer
+     * calls.
+     */
+    private @NonNull LongAdder[] solverTimeHistogram = new LongAdder[HISTOGRAM_BUCKETS];
+
+    /** The total solver time in nanoseconds. */
+    private @NonNull LongAdder solverNanos = new LongAdder();
+
+    /** The busy time of each thread in nanoseconds, by thread name. */
+    private @NonNull Map<String, LongAdder> threadBusyNanos = new ConcurrentHashMap<>();
+
+    /** Additional metrics that are set once per run, by name. */
+    private @NonNull Map<String, Number> metrics = new ConcurrentHashMap<>();
+
+    /** The hits of the in-memory SAT cache; set at the end of the run. */
+    private long satCacheHits;
+
+    /** The misses of the in-memory SAT cache; set at the end of the run. */
+    private long satCacheMisses;
+
+    /**
+     * Creates statistics with all counters set to zero.
+     */
+    public DeadCodeAnalysisStatistics() {
+        for (Counter counter : Counter.values()) {
+            counters.put(counter, new LongAdder());
+        }
+        for (Phase phase : Phase.values()) {
+            phaseNanos.put(phase, new LongAdder());
+        }
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            solverTimeHistogram[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Increments the given counter by one.
+     *
+     * @param counter The counter to increment.
+     */
+    public void increment(@NonNull Counter counter) {
+        counters.get(counter).increment();
+    }
+
+    /**
+     * Increments the given counter by the given amount.
+     *
+     * @param counter The counter to increment.
+     * @param amount  The amount to add.
+     */
+    public void add(@NonNull Counter counter, long amount) {
+        counters.get(counter).add(amount);
+    }
+
+    /**
+     * Returns the current value of the given counter.
+     *
+     * @param counter The counter.
+     * @return The value.
+     */
+    public long get(@NonNull Counter counter) {
+        return counters.get(counter).sum();
+    }
+
+    /**
+     * Adds to the duration of a phase.
+     *
+     * @param phase The phase.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void recordPhase(@NonNull Phase phase, long nanos) {
+        phaseNanos.get(phase).add(nanos);
+    }
+
+    /**
+     * Returns the duration of a phase.
+     *
+     * @param phase The phase.
+     * @return The duration in nanoseconds.
+     */
+    public long getPhaseNanos(@NonNull Phase phase) {
+        return phaseNanos.get(phase).sum();
+    }
+
+    /**
+     * Records the duration of a single call to the SAT solver and counts the call as {@link Counter#SAT_CALLS}.
+     *
+     * @param nanos The duration in nanoseconds.
+     */
+    public void recordSolverTime(long nanos) {
+        increment(Counter.SAT_CALLS);
+        solverNanos.add(nanos);
+        long micros = nanos / 1000;
+        int bucket = micros < 2 ? 0 : 63 - Long.numberOfLeadingZeros(micros);
+        solverTimeHistogram[Math.min(bucket, HISTOGRAM_BUCKETS - 1)].increment();
+    }
+
+    /**
+     * Adds to the busy time of the calling thread.
+     *
+     * @param nanos The busy time in nanoseconds.
+     */
+    public void recordBusyTime(long nanos) {
+        threadBusyNanos.computeIfAbsent(Thread.currentThread().getName(), (name) -> new LongAdder()).add(nanos);
+    }
+
+    /**
+     * Sets the counts of the in-memory SAT cache, which counts them itself.
+     *
+     * @param hits   The number of hits.
+     * @param misses The number of misses.
+     */
+    public void setSatCacheCounts(long hits, long misses) {
+        this.satCacheHits = hits;
+        this.satCacheMisses = misses;
+    }
+
+    /**
+     * Sets an additional metric that is written with the other metrics, e.g. the number of threads chosen for the
+     * run.
+     *
+     * @param name  The name of the metric; must not contain commas or quotes.
+     * @param value The value.
+     */
+    public void setMetric(@NonNull String name, @NonNull Number value) {
+        metrics.put(name, value);
+    }
+
+    /**
+     * Writes all metrics as a CSV table with the columns <code>metric</code> and <code>value</code>. Durations are
+     * given in milliseconds, the utilization of a thread is its busy time divided by the duration of the
+     * {@link Phase#ANALYSIS}.
+     *
+     * @param file The file to write to.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void writeCsv(@NonNull File file) throws IOException {
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+            out.println("metric,value");
+            for (Phase phase : Phase.values()) {
+                writeRow(out, "phase." + phase.name().toLowerCase() + ".ms", getPhaseNanos(phase) / 1e6);
+            }
+            for (Counter counter : Counter.values()) {
+                writeRow(out, counter.name().toLowerCase(), get(counter));
+            }
+            writeRow(out, "sat_cache.hits", satCacheHits);
+            writeRow(out, "sat_cache.misses", satCacheMisses);
+            long lookups = satCacheHits + satCacheMisses;
+            writeRow(out, "sat_cache.hit_rate", lookups > 0 ? (double) satCacheHits / lookups : 0);
+            writeRow(out, "solver.total.ms", solverNanos.sum() / 1e6);
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                String lower = i == 0 ? "0" : Long.toString(1L << i);
+                String upper = i == HISTOGRAM_BUCKETS - 1 ? "inf" : Long.toString(1L << (i + 1));
+                writeRow(out, "solver.time_us." + lower + "-" + upper, solverTimeHistogram[i].sum());
+            }
+            double analysisNanos = getPhaseNanos(Phase.ANALYSIS);
+            for (Map.Entry<String, LongAdder> entry : new TreeMap<>(threadBusyNanos).entrySet()) {
+                long busy = entry.getValue().sum();
+                writeRow(out, "thread." + entry.getKey() + ".busy.ms", busy / 1e6);
+                writeRow(out, "thread." + entry.getKey() + ".utilization",
+                        analysisNanos > 0 ? busy / analysisNanos : 0);
+            }
+            for (Map.Entry<String, Number> entry : new TreeMap<>(metrics).entrySet()) {
+                writeRow(out, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes a single row of the CSV table.
+     *
+     * @param out    The writer.
+     * @param metric The name of the metric; must not contain commas or quotes.
+     * @param value  The value.
+     */
+    private static void writeRow(@NonNull PrintWriter out, @NonNull String metric, @NonNull Number value) {
+        String formatted = value instanceof Double
+                ? String.format(Locale.ROOT, "%.3f", value.doubleValue()) : value.toString();
+        out.println(metric.replace(',', '_') + "," + formatted);
+    }
+
+    /**
+     * Returns a single line summarizing all counters.
+     *
+     * @return The summary.
+     */
+    public @NonNull String getSummary() {
+        StringBuilder result = new StringBuilder();
+        for (Counter counter : Counter.values()) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(counter.name().toLowerCase()).append('=').append(get(counter));
+        }
+        return notNull(result.toString());
+    }
+
+}
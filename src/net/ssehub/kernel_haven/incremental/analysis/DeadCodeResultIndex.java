@@ -0,0 +1,175 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.ssehub.kernel_haven.incremental.analysis.IncrementalDeadCodeFinder.DeadCodeBlock;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Persistent index of the {@link DeadCodeBlock}s found for each source file. Files that are skipped in an incremental
+ * run can take their results from this index, so that every run produces the complete result. An empty list marks a
+ * file that was analyzed and contains no dead blocks. This class is thread-safe.
+ *
+ * @author Moritz
+ */
+public class DeadCodeResultIndex {
+
+    /** The name of the file the index is stored in. */
+    private static final @NonNull String FILE_NAME = "dead_code_results.bin.gz";
+
+    /** The file the index is stored in. */
+    private @NonNull File file;
+
+    /** The dead code blocks for each source file path. */
+    private @NonNull Map<String, List<@NonNull DeadCodeBlock>> results = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a result index. Call {@link #load()} to read previously stored results.
+     *
+     * @param directory The directory to store the index in.
+     */
+    public DeadCodeResultIndex(@NonNull File directory) {
+        this.file = new File(directory, FILE_NAME);
+    }
+
+    /**
+     * Loads previously stored results. The results are only replaced if the whole index could be read; if reading
+     * fails, the index is left empty.
+     *
+     * @throws IOException If reading the index fails.
+     */
+    public void load() throws IOException {
+        results.clear();
+        if (!file.isFile()) {
+            return;
+        }
+        Map<String, List<@NonNull DeadCodeBlock>> loaded = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            int fileCount = in.readInt();
+            if (fileCount < 0) {
+                throw new IOException("Corrupt result index " + file);
+            }
+            for (int i = 0; i < fileCount; i++) {
+                String path = in.readUTF();
+                Formula filePc = in.readBoolean() ? FormulaSerializer.read(in) : null;
+                int blockCount = in.readInt();
+                if (blockCount < 0) {
+                    throw new IOException("Corrupt result index " + file);
+                }
+                List<@NonNull DeadCodeBlock> blocks = new ArrayList<>();
+                for (int j = 0; j < blockCount; j++) {
+                    File sourceFile = new File(in.readUTF());
+                    int startLine = in.readInt();
+                    int endLine = in.readInt();
+                    Formula pc = in.readBoolean() ? FormulaSerializer.read(in) : null;
+                    blocks.add(new DeadCodeBlock(sourceFile, startLine, endLine, filePc, pc));
+                }
+                loaded.put(path, blocks);
+            }
+        }
+        results.putAll(loaded);
+    }
+
+    /**
+     * Writes the index to disk.
+     *
+     * @throws IOException If writing the index fails.
+     */
+    public void save() throws IOException {
+        File tmpFile = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmpFile))))) {
+            Map<String, List<@NonNull DeadCodeBlock>> snapshot = new HashMap<>(results);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, List<@NonNull DeadCodeBlock>> entry : snapshot.entrySet()) {
+                out.writeUTF(entry.getKey());
+                List<@NonNull DeadCodeBlock> blocks = entry.getValue();
+                // all blocks of a file share the PC of the file
+                Formula filePc = blocks.isEmpty() ? null : blocks.get(0).getFilePc();
+                writeNullable(out, filePc);
+                out.writeInt(blocks.size());
+                for (DeadCodeBlock block : blocks) {
+                    out.writeUTF(block.getSourceFile().getPath());
+                    out.writeInt(block.getStartLine());
+                    out.writeInt(block.getEndLine());
+                    writeNullable(out, block.getPresenceCondition());
+                }
+            }
+        }
+        if (file.exists() && !file.delete() || !tmpFile.renameTo(file)) {
+            throw new IOException("Could not replace result index " + file);
+        }
+    }
+
+    /**
+     * Writes a formula that may be <code>null</code>.
+     *
+     * @param out     The output to write to.
+     * @param formula The formula to write.
+     *
+     * @throws IOException If writing fails.
+     */
+    private static void writeNullable(@NonNull DataOutputStream out, @Nullable Formula formula) throws IOException {
+        out.writeBoolean(formula != null);
+        if (formula != null) {
+            FormulaSerializer.write(out, formula);
+        }
+    }
+
+    /**
+     * Returns the stored results for the given source file.
+     *
+     * @param path The path of the source file.
+     * @return The dead code blocks of the file or <code>null</code> if the file is not in this index.
+     */
+    public @Nullable List<@NonNull DeadCodeBlock> get(@NonNull File path) {
+        return results.get(path.getPath());
+    }
+
+    /**
+     * Stores the results of the given source file, replacing previous results.
+     *
+     * @param path   The path of the source file.
+     * @param blocks The dead code blocks of the file.
+     */
+    public void put(@NonNull File path, @NonNull List<@NonNull DeadCodeBlock> blocks) {
+        results.put(path.getPath(), new ArrayList<>(blocks));
+    }
+
+    /**
+     * Removes the results of the given source file.
+     *
+     * @param path The path of the source file.
+     */
+    public void remove(@NonNull File path) {
+        results.remove(path.getPath());
+    }
+
+    /**
+     * Returns the paths of all source files in this index.
+     *
+     * @return A view of the paths.
+     */
+    public @NonNull Set<String> getPaths() {
+        return results.keySet();
+    }
+
+}
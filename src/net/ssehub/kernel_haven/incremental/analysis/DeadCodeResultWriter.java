@@ -0,0 +1,187 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.ssehub.kernel_haven.incremental.analysis.IncrementalDeadCodeFinder.DeadCodeBlock;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Writes {@link DeadCodeBlock}s to a compressed file as soon as they are found, so that results do not accumulate in
+ * memory. This class is thread-safe.
+ *
+ * <p>
+ * The file is a sequence of records: a file record holds the path and the presence condition of a source file, and
+ * is followed by one block record per dead block of that file with its lines and presence condition. Thus, the
+ * presence condition of a file is stored once instead of once per block. Use {@link #read(File, Consumer)} to read
+ * the blocks back.
+ * </p>
+ *
+ * @author Moritz
+ */
+public class DeadCodeResultWriter implements AutoCloseable {
+
+    /** Marks files written by this class. */
+    private static final int MAGIC = 0x4B484443;
+
+    /** The version of the file format. */
+    private static final int VERSION = 1;
+
+    /** Marks the end of the file. */
+    private static final byte END = 0;
+
+    /** Marks a file record. */
+    private static final byte FILE = 1;
+
+    /** Marks a block record. */
+    private static final byte BLOCK = 2;
+
+    /** The output stream. */
+    private @NonNull DataOutputStream out;
+
+    /** The source file of the last file record; <code>null</code> if no record was written yet. */
+    private @Nullable File currentFile;
+
+    /** The presence condition of the last file record. */
+    private @Nullable Formula currentFilePc;
+
+    /** The number of written blocks. */
+    private long blockCount;
+
+    /** The number of written file records. */
+    private long fileCount;
+
+    /**
+     * Creates a result writer.
+     *
+     * @param file The file to write the results to.
+     *
+     * @throws IOException If the file can not be created.
+     */
+    public DeadCodeResultWriter(@NonNull File file) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * Writes the given dead code blocks. Consecutive blocks of the same source file share one file record. The
+     * presence conditions of the files are compared by identity, as the blocks of one file share the same formula; a
+     * file PC that is equal but not the same only costs an additional file record.
+     *
+     * @param blocks The dead code blocks.
+     *
+     * @throws IOException If writing fails.
+     */
+    public synchronized void write(@NonNull List<@NonNull DeadCodeBlock> blocks) throws IOException {
+        for (DeadCodeBlock block : blocks) {
+            Formula filePc = block.getFilePc();
+            if (fileCount == 0 || filePc != currentFilePc || !block.getSourceFile().equals(currentFile)) {
+                out.writeByte(FILE);
+                out.writeUTF(block.getSourceFile().getPath());
+                writeNullable(filePc);
+                currentFile = block.getSourceFile();
+                currentFilePc = filePc;
+                fileCount++;
+            }
+            out.writeByte(BLOCK);
+            out.writeInt(block.getStartLine());
+            out.writeInt(block.getEndLine());
+            writeNullable(block.getPresenceCondition());
+            blockCount++;
+        }
+    }
+
+    /**
+     * Writes a formula that may be <code>null</code>.
+     *
+     * @param formula The formula to write.
+     *
+     * @throws IOException If writing fails.
+     */
+    private void writeNullable(@Nullable Formula formula) throws IOException {
+        out.writeBoolean(formula != null);
+        if (formula != null) {
+            FormulaSerializer.write(out, formula);
+        }
+    }
+
+    /**
+     * Returns the number of blocks written so far.
+     *
+     * @return The number of blocks.
+     */
+    public synchronized long getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Returns the number of file records written so far.
+     *
+     * @return The number of file records.
+     */
+    public synchronized long getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * Marks the end of the results and closes the file.
+     *
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            out.writeByte(END);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads the blocks of a file written by this class one by one.
+     *
+     * @param file     The file to read.
+     * @param consumer Receives each dead code block.
+     *
+     * @throws IOException If reading fails or the file is corrupt or incomplete.
+     */
+    public static void read(@NonNull File file, @NonNull Consumer<@NonNull DeadCodeBlock> consumer)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a dead code result file: " + file);
+            }
+            File sourceFile = null;
+            Formula filePc = null;
+            byte tag;
+            while ((tag = in.readByte()) != END) {
+                if (tag == FILE) {
+                    sourceFile = new File(in.readUTF());
+                    filePc = in.readBoolean() ? FormulaSerializer.read(in) : null;
+                } else if (tag == BLOCK && sourceFile != null) {
+                    int startLine = in.readInt();
+                    int endLine = in.readInt();
+                    Formula pc = in.readBoolean() ? FormulaSerializer.read(in) : null;
+                    consumer.accept(new DeadCodeBlock(sourceFile, startLine, endLine, filePc, pc));
+                } else {
+                    throw new IOException("Corrupt dead code result file " + file);
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,584 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.CnfVariable;
+import net.ssehub.kernel_haven.cnf.ConverterException;
+import net.ssehub.kernel_haven.cnf.FormulaToCnfConverterFactory;
+import net.ssehub.kernel_haven.cnf.FormulaToCnfConverterFactory.Strategy;
+import net.ssehub.kernel_haven.cnf.IFormulaToCnfConverter;
+import net.ssehub.kernel_haven.cnf.ISatSolver;
+import net.ssehub.kernel_haven.cnf.SatSolverFactory;
+import net.ssehub.kernel_haven.cnf.SolverException;
+import net.ssehub.kernel_haven.code_model.CodeElement;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.incremental.analysis.FormulaInterner.Node;
+import net.ssehub.kernel_haven.incremental.analysis.IncrementalDeadCodeFinder.DeadCodeBlock;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Checks the source files of one shard of a sharded analysis (see {@link ShardedDeadCodeRunner}), usually in a
+ * separate JVM started by the coordinator.
+ *
+ * <p>
+ * A shard is a compressed file that holds the source files assigned to it: the path and presence condition of each
+ * file, followed by the tree of its code elements with their lines and presence conditions. The coordinator already
+ * decides for each element whether it is relevant and passes on verdicts that it already knows, e.g. from its SAT
+ * caches or the {@link TrivialSatChecker}, so the worker neither needs the variability model nor the caches of the
+ * coordinator; it only needs the CNF of the variability model in the format of the {@link CnfCache}. The dead code
+ * blocks are written in the format of the {@link DeadCodeResultWriter}.
+ * </p>
+ *
+ * <p>
+ * Within a shard, the worker keeps its own {@link SatCache} and {@link FilePcCnfCache}, keyed by canonical nodes of a
+ * {@link FormulaInterner} like the caches of the coordinator. The verdicts of all solver calls are written to a
+ * verdict file, together with the duration of each call and the counters of the worker, so that the coordinator can
+ * add them to its caches and statistics (see {@link ShardVerdicts}).
+ * </p>
+ *
+ * @author Moritz
+ */
+public class DeadCodeShardWorker {
+
+    /** The exit status of a worker that stopped itself because its timeout passed. */
+    static final int TIMEOUT_EXIT_STATUS = 2;
+
+    /** Marks shard files. */
+    private static final int MAGIC = 0x4B485348;
+
+    /** The version of the shard file format. */
+    private static final int VERSION = 2;
+
+    /** Marks verdict files. */
+    private static final int VERDICTS_MAGIC = 0x4B485652;
+
+    /** The version of the verdict file format. */
+    private static final int VERDICTS_VERSION = 1;
+
+    /** Marks a verdict in a verdict file. */
+    private static final byte VERDICT = 1;
+
+    /** Marks the end of a shard file. */
+    private static final byte END = 0;
+
+    /** Marks a source file in a shard file. */
+    private static final byte FILE = 1;
+
+    /** The state of an element that is not relevant and therefore not checked. */
+    private static final byte IRRELEVANT = 0;
+
+    /** The state of an element whose verdict is not known yet. */
+    private static final byte UNKNOWN = 1;
+
+    /** The state of an element that is known to be alive. */
+    private static final byte KNOWN_ALIVE = 2;
+
+    /** The state of an element that is known to be dead. */
+    private static final byte KNOWN_DEAD = 3;
+
+    /** The solver, loaded with the variability model. */
+    private @NonNull ISatSolver solver;
+
+    /** The converter for presence conditions. */
+    private @NonNull IFormulaToCnfConverter converter;
+
+    /** Whether children of dead elements are considered dead without checking them. */
+    private boolean hierarchicalPruning;
+
+    /** Creates the canonical keys of the {@link #satCache} and the {@link #filePcCnfCache}. */
+    private @NonNull FormulaInterner interner = new FormulaInterner();
+
+    /** The verdicts of this shard, by canonical node of the conjunction of element and file presence condition. */
+    private @NonNull SatCache<Node> satCache;
+
+    /** The clauses of the file presence conditions of this shard. */
+    private @NonNull FilePcCnfCache filePcCnfCache = new FilePcCnfCache();
+
+    /** The stream that the verdicts of the solver calls are written to. */
+    private @NonNull DataOutputStream verdictOut;
+
+    /** The number of elements that were checked, i.e. that are relevant. */
+    private long blocksChecked;
+
+    /** The source file that is currently checked. */
+    private @NonNull File sourceFile = new File("");
+
+    /** The presence condition of {@link #sourceFile}. */
+    private @NonNull Formula filePc = True.INSTANCE;
+
+    /** The canonical node of {@link #filePc}. */
+    private @Nullable Node filePcNode;
+
+    /** The clauses of {@link #filePc}; <code>null</code> until the first solver call for the file. */
+    private @Nullable CnfVariable[][] filePcClauses;
+
+    /** The dead code blocks of {@link #sourceFile}. */
+    private @NonNull List<@NonNull DeadCodeBlock> result = new ArrayList<>();
+
+    /**
+     * Creates a worker.
+     *
+     * @param vmCnf               The CNF of the variability model.
+     * @param hierarchicalPruning Whether children of dead elements are considered dead without checking them.
+     * @param satCacheSize        The maximum number of verdicts held by the SAT cache of the worker.
+     * @param verdictOut          The stream that the verdicts of the solver calls are written to.
+     */
+    private DeadCodeShardWorker(@NonNull Cnf vmCnf, boolean hierarchicalPruning, int satCacheSize,
+            @NonNull DataOutputStream verdictOut) {
+        this.solver = SatSolverFactory.createSolver(vmCnf, false);
+        this.converter = FormulaToCnfConverterFactory.create(Strategy.RECURISVE_REPLACING);
+        this.hierarchicalPruning = hierarchicalPruning;
+        this.satCache = new SatCache<>(satCacheSize);
+        this.verdictOut = verdictOut;
+    }
+
+    /**
+     * Writes shard files. This class is not thread-safe.
+     */
+    public static class ShardWriter implements AutoCloseable {
+
+        /** The output stream. */
+        private @NonNull DataOutputStream out;
+
+        /**
+         * Creates a shard file.
+         *
+         * @param file                The shard file.
+         * @param hierarchicalPruning Whether the worker may consider children of dead elements dead without
+         *                            checking them.
+         * @param satCacheSize        The maximum number of verdicts held by the SAT cache of the worker.
+         *
+         * @throws IOException If the file can not be created.
+         */
+        public ShardWriter(@NonNull File file, boolean hierarchicalPruning, int satCacheSize) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file))));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeBoolean(hierarchicalPruning);
+            out.writeInt(satCacheSize);
+        }
+
+        /**
+         * Adds a source file to the shard.
+         *
+         * @param sourceFile The source file.
+         * @param filePc     The presence condition of the file.
+         * @param relevant   Decides whether the presence condition of an element is relevant; <code>null</code> if
+         *                   all elements are relevant.
+         * @param verdicts   Returns the known verdict for the presence condition of a relevant element of this file,
+         *                   or <code>null</code> if it is not known; <code>null</code> if no verdicts are known.
+         *
+         * @throws IOException If writing fails.
+         */
+        public void write(@NonNull SourceFile<?> sourceFile, @NonNull Formula filePc,
+                @Nullable Predicate<Formula> relevant, @Nullable Function<Formula, @Nullable Boolean> verdicts)
+                throws IOException {
+            out.writeByte(FILE);
+            out.writeUTF(sourceFile.getPath().getPath());
+            FormulaSerializer.write(out, filePc);
+            List<CodeElement<?>> elements = new ArrayList<>();
+            for (CodeElement<?> element : sourceFile) {
+                elements.add(element);
+            }
+            out.writeInt(elements.size());
+            for (CodeElement<?> element : elements) {
+                writeElement(element, relevant, verdicts);
+            }
+        }
+
+        /**
+         * Writes an element and its children.
+         *
+         * @param element  The element.
+         * @param relevant Decides whether the presence condition of an element is relevant; <code>null</code> if all
+         *                 elements are relevant.
+         * @param verdicts Returns the known verdict for a presence condition of the file; <code>null</code> if no
+         *                 verdicts are known.
+         *
+         * @throws IOException If writing fails.
+         */
+        private void writeElement(@NonNull CodeElement<?> element, @Nullable Predicate<Formula> relevant,
+                @Nullable Function<Formula, @Nullable Boolean> verdicts) throws IOException {
+            Formula pc = element.getPresenceCondition();
+            byte state = UNKNOWN;
+            if (relevant != null && !relevant.test(pc)) {
+                state = IRRELEVANT;
+            } else if (verdicts != null) {
+                Boolean sat = verdicts.apply(pc);
+                if (sat != null) {
+                    state = sat ? KNOWN_ALIVE : KNOWN_DEAD;
+                }
+            }
+            out.writeInt(element.getLineStart());
+            out.writeInt(element.getLineEnd());
+            FormulaSerializer.write(out, pc);
+            out.writeByte(state);
+            int nestedCount = element.getNestedElementCount();
+            out.writeInt(nestedCount);
+            for (int i = 0; i < nestedCount; i++) {
+                writeElement(element.getNestedElement(i), relevant, verdicts);
+            }
+        }
+
+        /**
+         * Marks the end of the shard and closes the file.
+         *
+         * @throws IOException If writing fails.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                out.writeByte(END);
+            } finally {
+                out.close();
+            }
+        }
+
+    }
+
+    /**
+     * Checks all source files of a shard and writes the dead code blocks to a result file and the verdicts of the
+     * solver calls to a verdict file. The result file is only created once all source files are checked and the
+     * verdict file is written, so an existing result file is always complete.
+     *
+     * @param cnfDirectory  The directory of the {@link CnfCache} that holds the CNF of the variability model.
+     * @param vmFingerprint The fingerprint that the CNF was stored with.
+     * @param shardFile     The shard file.
+     * @param resultFile    The result file.
+     * @param verdictFile   The verdict file (see {@link ShardVerdicts#read(File)}).
+     *
+     * @throws IOException If reading or writing fails, or the solver fails.
+     */
+    public static void analyze(@NonNull File cnfDirectory, @NonNull String vmFingerprint, @NonNull File shardFile,
+            @NonNull File resultFile, @NonNull File verdictFile) throws IOException {
+        Cnf vmCnf = new CnfCache(cnfDirectory).read(vmFingerprint);
+        if (vmCnf == null) {
+            throw new IOException("No CNF of the variability model in " + cnfDirectory);
+        }
+
+        File tmpFile = new File(resultFile.getPath() + ".tmp");
+        File tmpVerdictFile = new File(verdictFile.getPath() + ".tmp");
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(shardFile))));
+                DeadCodeResultWriter writer = new DeadCodeResultWriter(tmpFile);
+                DataOutputStream verdictOut = new DataOutputStream(new BufferedOutputStream(
+                        new GZIPOutputStream(new FileOutputStream(tmpVerdictFile))))) {
+
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a shard file: " + shardFile);
+            }
+            verdictOut.writeInt(VERDICTS_MAGIC);
+            verdictOut.writeInt(VERDICTS_VERSION);
+            DeadCodeShardWorker worker = new DeadCodeShardWorker(vmCnf, in.readBoolean(), in.readInt(), verdictOut);
+            byte tag;
+            while ((tag = in.readByte()) != END) {
+                if (tag != FILE) {
+                    throw new IOException("Corrupt shard file " + shardFile);
+                }
+                writer.write(worker.checkFile(in));
+            }
+            verdictOut.writeByte(END);
+            verdictOut.writeLong(worker.blocksChecked);
+            verdictOut.writeLong(worker.satCache.getHits());
+            verdictOut.writeLong(worker.satCache.getMisses());
+        } catch (SolverException | ConverterException e) {
+            throw new IOException("Could not check shard " + shardFile, e);
+        }
+        Files.move(tmpVerdictFile.toPath(), verdictFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tmpFile.toPath(), resultFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads and checks the next source file of a shard.
+     *
+     * @param in The input stream of the shard, positioned after the tag of the file.
+     * @return The dead code blocks of the file.
+     *
+     * @throws IOException        If reading fails.
+     * @throws ConverterException If converting a presence condition fails.
+     * @throws SolverException    If the solver fails.
+     */
+    private @NonNull List<@NonNull DeadCodeBlock> checkFile(@NonNull DataInputStream in)
+            throws IOException, ConverterException, SolverException {
+        sourceFile = new File(in.readUTF());
+        filePc = FormulaSerializer.read(in);
+        filePcNode = interner.canonical(filePc);
+        filePcClauses = null;
+        result = new ArrayList<>();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            checkElement(in, null);
+        }
+        return result;
+    }
+
+    /**
+     * Reads and checks the next element of the current source file and its children.
+     *
+     * @param in        The input stream of the shard, positioned at the element.
+     * @param parentSat The verdict of the parent; <code>null</code> if unknown or pruning is disabled.
+     *
+     * @throws IOException        If reading fails.
+     * @throws ConverterException If converting a presence condition fails.
+     * @throws SolverException    If the solver fails.
+     */
+    private void checkElement(@NonNull DataInputStream in, @Nullable Boolean parentSat)
+            throws IOException, ConverterException, SolverException {
+        int lineStart = in.readInt();
+        int lineEnd = in.readInt();
+        Formula pc = FormulaSerializer.read(in);
+        byte state = in.readByte();
+
+        Boolean sat = null;
+        if (state != IRRELEVANT) {
+            blocksChecked++;
+            if (state == KNOWN_ALIVE || state == KNOWN_DEAD) {
+                sat = state == KNOWN_ALIVE;
+            } else if (parentSat != null && !parentSat) {
+                sat = false;
+            } else {
+                sat = isSat(pc);
+            }
+            if (!sat) {
+                result.add(new DeadCodeBlock(sourceFile, lineStart, lineEnd, filePc, pc));
+            }
+        }
+
+        Boolean childParentSat = hierarchicalPruning ? sat : null;
+        int nestedCount = in.readInt();
+        for (int i = 0; i < nestedCount; i++) {
+            checkElement(in, childParentSat);
+        }
+    }
+
+    /**
+     * Checks whether the given presence condition is satisfiable together with the presence condition of the current
+     * source file, using the SAT cache of this worker. The verdicts of solver calls are written to the verdict file.
+     *
+     * @param pc The presence condition of the element.
+     * @return Whether the presence condition is satisfiable.
+     *
+     * @throws IOException        If writing the verdict fails.
+     * @throws ConverterException If converting a presence condition fails.
+     * @throws SolverException    If the solver fails.
+     */
+    private boolean isSat(@NonNull Formula pc) throws IOException, ConverterException, SolverException {
+        Node fileNode = notNull(filePcNode);
+        Node key = interner.and(interner.canonical(pc), fileNode);
+        Boolean sat = satCache.get(key);
+        if (sat == null) {
+            CnfVariable[][] clauses = filePcClauses;
+            if (clauses == null) {
+                clauses = filePcCnfCache.get(fileNode, filePc, converter);
+                filePcClauses = clauses;
+            }
+            Cnf pcCnf = converter.convert(pc);
+            for (CnfVariable[] clause : clauses) {
+                pcCnf.addRow(clause);
+            }
+            long start = System.nanoTime();
+            sat = solver.isSatisfiable(pcCnf);
+            long nanos = System.nanoTime() - start;
+            satCache.put(key, sat);
+
+            byte[] keyBytes = key.toString().getBytes(StandardCharsets.UTF_8);
+            verdictOut.writeByte(VERDICT);
+            verdictOut.writeBoolean(sat);
+            verdictOut.writeLong(nanos);
+            verdictOut.writeInt(keyBytes.length);
+            verdictOut.write(keyBytes);
+        }
+        return sat;
+    }
+
+    /**
+     * The verdicts of the solver calls of a worker, together with its counters. The verdicts are keyed by the
+     * canonical string of the conjunction of element and file presence condition, i.e. of the key of the SAT cache.
+     */
+    public static class ShardVerdicts {
+
+        /** The verdicts, by canonical string. */
+        private @NonNull Map<String, Boolean> verdicts = new HashMap<>();
+
+        /** The duration of each solver call in nanoseconds. */
+        private @NonNull long[] solverNanos;
+
+        /** The number of checked elements. */
+        private long blocksChecked;
+
+        /** The number of hits of the SAT cache of the worker. */
+        private long satCacheHits;
+
+        /** The number of misses of the SAT cache of the worker. */
+        private long satCacheMisses;
+
+        /**
+         * Creates empty verdicts.
+         *
+         * @param solverCalls The number of solver calls.
+         */
+        private ShardVerdicts(int solverCalls) {
+            this.solverNanos = new long[solverCalls];
+        }
+
+        /**
+         * Reads a verdict file written by a worker.
+         *
+         * @param file The verdict file.
+         * @return The verdicts and counters of the worker.
+         *
+         * @throws IOException If reading fails or the file is incomplete.
+         */
+        public static @NonNull ShardVerdicts read(@NonNull File file) throws IOException {
+            Map<String, Boolean> verdicts = new HashMap<>();
+            List<Long> nanos = new ArrayList<>();
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+                if (in.readInt() != VERDICTS_MAGIC || in.readInt() != VERDICTS_VERSION) {
+                    throw new IOException("Not a verdict file: " + file);
+                }
+                byte tag;
+                while ((tag = in.readByte()) != END) {
+                    if (tag != VERDICT) {
+                        throw new IOException("Corrupt verdict file " + file);
+                    }
+                    boolean sat = in.readBoolean();
+                    nanos.add(in.readLong());
+                    byte[] key = new byte[in.readInt()];
+                    in.readFully(key);
+                    verdicts.put(new String(key, StandardCharsets.UTF_8), sat);
+                }
+                ShardVerdicts result = new ShardVerdicts(nanos.size());
+                result.verdicts = verdicts;
+                for (int i = 0; i < nanos.size(); i++) {
+                    result.solverNanos[i] = nanos.get(i);
+                }
+                result.blocksChecked = in.readLong();
+                result.satCacheHits = in.readLong();
+                result.satCacheMisses = in.readLong();
+                return result;
+            } catch (NegativeArraySizeException e) {
+                throw new IOException("Corrupt verdict file " + file, e);
+            }
+        }
+
+        /**
+         * Returns the verdicts of the solver calls.
+         *
+         * @return The verdicts, by canonical string (see {@link FormulaInterner.Node#toString()}).
+         */
+        public @NonNull Map<String, Boolean> getVerdicts() {
+            return verdicts;
+        }
+
+        /**
+         * Returns the duration of each solver call.
+         *
+         * @return The durations in nanoseconds.
+         */
+        public @NonNull long[] getSolverNanos() {
+            return solverNanos;
+        }
+
+        /**
+         * Returns the number of elements that the worker checked.
+         *
+         * @return The number of checked elements.
+         */
+        public long getBlocksChecked() {
+            return blocksChecked;
+        }
+
+        /**
+         * Returns the number of hits of the SAT cache of the worker.
+         *
+         * @return The number of hits.
+         */
+        public long getSatCacheHits() {
+            return satCacheHits;
+        }
+
+        /**
+         * Returns the number of misses of the SAT cache of the worker.
+         *
+         * @return The number of misses.
+         */
+        public long getSatCacheMisses() {
+            return satCacheMisses;
+        }
+
+    }
+
+    /**
+     * Stops this JVM once the given number of seconds passed, so that a worker started on another host stops even if
+     * the coordinator can only stop the local launcher process.
+     *
+     * @param timeout The timeout in seconds; 0 or less for no limit.
+     */
+    private static void enforceTimeout(int timeout) {
+        if (timeout <= 0) {
+            return;
+        }
+        Thread watchdog = new Thread(() -> {
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(timeout));
+            } catch (InterruptedException e) {
+                return;
+            }
+            System.err.println("Stopping the worker, since it did not finish within " + timeout + " seconds");
+            // the result file is only moved in place once it is complete
+            Runtime.getRuntime().halt(TIMEOUT_EXIT_STATUS);
+        }, "DeadCodeShardWorker-Timeout");
+        watchdog.setDaemon(true);
+        watchdog.start();
+    }
+
+    /**
+     * Runs a worker for one shard. Exits with status 0 if the result file was written, with status 2 if the timeout
+     * passed, and with status 1 otherwise.
+     *
+     * @param args The directory of the CNF, the fingerprint the CNF was stored with, the shard file, the result file,
+     *             the verdict file and the timeout in seconds (0 for no limit).
+     */
+    public static void main(String[] args) {
+        if (args.length != 6) {
+            System.err.println("Usage: " + DeadCodeShardWorker.class.getName()
+                    + " <cnf directory> <cnf fingerprint> <shard file> <result file> <verdict file> <timeout>");
+            System.exit(1);
+        }
+        try {
+            enforceTimeout(Integer.parseInt(args[5]));
+            analyze(new File(args[0]), notNull(args[1]), new File(args[2]), new File(args[3]), new File(args[4]));
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+}
@@ -0,0 +1,97 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.CnfVariable;
+import net.ssehub.kernel_haven.cnf.ConverterException;
+import net.ssehub.kernel_haven.cnf.IFormulaToCnfConverter;
+import net.ssehub.kernel_haven.incremental.analysis.FormulaInterner.Node;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * Cache for the CNF of the presence conditions of files. Each distinct file presence condition is converted only
+ * once per run; the clauses of a block presence condition are then added to the cached clauses of its file.
+ *
+ * <p>
+ * The converter introduces auxiliary variables whose names are only unique within a single conversion. Therefore,
+ * all auxiliary variables of the cached clauses are renamed with a prefix, so that they cannot clash with the
+ * auxiliary variables of the block presence condition they are combined with.
+ * </p>
+ *
+ * This class is thread-safe.
+ *
+ * @author Moritz
+ */
+public class FilePcCnfCache {
+
+    /** The prefix for the auxiliary variables of cached clauses. */
+    private static final @NonNull String AUX_PREFIX = "__file_pc_";
+
+    /** The clauses of each distinct file presence condition. */
+    private @NonNull Map<Node, CnfVariable[][]> clauses = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the clauses of the given file presence condition, converting it if this is the first request for it.
+     *
+     * @param key       The canonical node of the file presence condition.
+     * @param filePc    The file presence condition.
+     * @param converter The converter to use for the conversion; must only be used by the calling thread.
+     * @return The clauses; must not be modified.
+     *
+     * @throws ConverterException If the conversion fails.
+     */
+    public @NonNull CnfVariable[][] get(@NonNull Node key, @NonNull Formula filePc,
+            @NonNull IFormulaToCnfConverter converter) throws ConverterException {
+        CnfVariable[][] result = clauses.get(key);
+        if (result == null) {
+            // two threads may convert the same presence condition, but both results are equivalent
+            result = convert(filePc, converter);
+            clauses.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Converts a file presence condition and renames its auxiliary variables.
+     *
+     * @param filePc    The file presence condition.
+     * @param converter The converter to use.
+     * @return The clauses.
+     *
+     * @throws ConverterException If the conversion fails.
+     */
+    private static @NonNull CnfVariable[][] convert(@NonNull Formula filePc,
+            @NonNull IFormulaToCnfConverter converter) throws ConverterException {
+        Set<String> variables = new HashSet<>();
+        VariableIndex.collectVariables(filePc, variables);
+
+        Cnf cnf = converter.convert(filePc);
+        CnfVariable[][] result = new CnfVariable[cnf.getRowCount()][];
+        for (int i = 0; i < result.length; i++) {
+            List<CnfVariable> row = cnf.getRow(i);
+            result[i] = new CnfVariable[row.size()];
+            for (int j = 0; j < result[i].length; j++) {
+                CnfVariable variable = row.get(j);
+                result[i][j] = variables.contains(variable.getName())
+                        ? variable : new CnfVariable(variable.isNegation(), AUX_PREFIX + variable.getName());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of cached file presence conditions.
+     *
+     * @return The number of file presence conditions.
+     */
+    public int size() {
+        return clauses.size();
+    }
+
+}
@@ -0,0 +1,134 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * Persistent record of how long the analysis of each source file took, together with its number of code elements.
+ * Used to estimate the cost of source files in later runs. This class is thread-safe.
+ *
+ * @author Moritz
+ */
+public class FileTimings {
+
+    /** The name of the file the timings are stored in. */
+    private static final @NonNull String FILE_NAME = "file_timings.bin.gz";
+
+    /** The file the timings are stored in. */
+    private @NonNull File file;
+
+    /** The duration in nanoseconds and the number of elements, for each source file path. */
+    private @NonNull Map<String, long[]> timings = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the timings. Call {@link #load()} to read the timings of the previous run.
+     *
+     * @param directory The directory to store the timings in.
+     */
+    public FileTimings(@NonNull File directory) {
+        this.file = new File(directory, FILE_NAME);
+    }
+
+    /**
+     * Loads the stored timings.
+     *
+     * @throws IOException If reading fails.
+     */
+    public void load() throws IOException {
+        timings.clear();
+        if (!file.isFile()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                timings.put(path, new long[] {in.readLong(), in.readLong()});
+            }
+        }
+    }
+
+    /**
+     * Writes the timings to disk.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void save() throws IOException {
+        File tmpFile = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmpFile))))) {
+            Map<String, long[]> snapshot = new HashMap<>(timings);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, long[]> entry : snapshot.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue()[0]);
+                out.writeLong(entry.getValue()[1]);
+            }
+        }
+        if (file.exists() && !file.delete() || !tmpFile.renameTo(file)) {
+            throw new IOException("Could not replace file timings " + file);
+        }
+    }
+
+    /**
+     * Records the duration of the analysis of a source file.
+     *
+     * @param path         The path of the source file.
+     * @param nanos        The duration in nanoseconds.
+     * @param elementCount The number of code elements in the source file.
+     */
+    public void record(@NonNull File path, long nanos, long elementCount) {
+        timings.put(path.getPath(), new long[] {nanos, elementCount});
+    }
+
+    /**
+     * Removes the timings of all source files that the given filter rejects, e.g. files that were deleted.
+     *
+     * @param keep Returns whether the timing of the given source file path is kept.
+     */
+    public void retain(@NonNull Predicate<File> keep) {
+        timings.keySet().removeIf(path -> !keep.test(new File(path)));
+    }
+
+    /**
+     * Returns the recorded duration of the analysis of a source file.
+     *
+     * @param path The path of the source file.
+     * @return The duration in nanoseconds, or -1 if no duration was recorded.
+     */
+    public long getNanos(@NonNull File path) {
+        long[] timing = timings.get(path.getPath());
+        return timing != null ? timing[0] : -1;
+    }
+
+    /**
+     * Returns the average duration per code element over all recorded source files.
+     *
+     * @return The average duration in nanoseconds, or -1 if nothing was recorded.
+     */
+    public double getAverageNanosPerElement() {
+        long nanos = 0;
+        long elements = 0;
+        for (long[] timing : timings.values()) {
+            nanos += timing[0];
+            elements += timing[1];
+        }
+        return elements > 0 ? (double) nanos / elements : -1;
+    }
+
+}
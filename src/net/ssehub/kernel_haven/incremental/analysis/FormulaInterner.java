@@ -0,0 +1,625 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Hash-consing store for {@link Formula}s. It provides two views on a formula:
+ * <ul>
+ * <li>{@link #canonical(Formula)} returns a canonical {@link Node}: nested conjunctions and disjunctions are
+ * flattened, their operands are sorted and deduplicated, double negations and constants are removed, and
+ * complementary operands are folded. Formulas that only differ in these respects get the same node, so nodes are
+ * used as keys for SAT verdicts. Nodes are interned; equal nodes are the same object and share their operands.</li>
+ * <li>{@link #share(Formula)} returns an equal formula whose subformulas are shared with all other formulas passed
+ * to this method. The structure of the formula is kept, so it can be used wherever the original formula was
+ * used.</li>
+ * </ul>
+ * This class is thread-safe. Interned nodes and formulas are only held weakly, so they are dropped once nothing else
+ * refers to them. The canonical nodes of recently converted formulas are remembered per thread by the identity of
+ * the formula, so formulas that are converted repeatedly, or that share subformulas with formulas converted before,
+ * are not rebuilt. These formulas are only held weakly as well, so the presence conditions of files that were
+ * already checked are not kept in memory.
+ *
+ * @author Moritz
+ */
+public class FormulaInterner {
+
+    /** Kind of {@link Node} for {@link False}. */
+    private static final byte FALSE = 0;
+
+    /** Kind of {@link Node} for {@link True}. */
+    private static final byte TRUE = 1;
+
+    /** Kind of {@link Node} for {@link Variable}. */
+    private static final byte VARIABLE = 2;
+
+    /** Kind of {@link Node} for {@link Negation}. */
+    private static final byte NEGATION = 3;
+
+    /** Kind of {@link Node} for {@link Conjunction}. */
+    private static final byte CONJUNCTION = 4;
+
+    /** Kind of {@link Node} for {@link Disjunction}. */
+    private static final byte DISJUNCTION = 5;
+
+    /**
+     * The maximum number of formulas per thread whose canonical nodes are remembered; the memo is cleared when full.
+     */
+    private static final int MEMO_SIZE = 1 << 16;
+
+    /** An empty operand array. */
+    private static final @NonNull Node[] NO_OPERANDS = new Node[0];
+
+    /**
+     * Orders nodes by their hash and, if the hashes collide, by their canonical string. The order does not depend on
+     * the order in which nodes were interned, so the canonical strings are the same in every run.
+     */
+    private static final @NonNull Comparator<Node> CANONICAL_ORDER = (first, second) -> {
+        int result = Integer.compare(first.hash, second.hash);
+        if (result == 0 && first != second) {
+            result = first.toString().compareTo(second.toString());
+        }
+        return result;
+    };
+
+    /**
+     * A node of a canonical formula. Nodes are immutable and compare their operands by identity, which is sufficient
+     * because operands are always interned.
+     */
+    public static final class Node {
+
+        /** The kind of this node. */
+        private final byte kind;
+
+        /** The name of the variable; <code>null</code> if this node is not a variable. */
+        private final @Nullable String name;
+
+        /** The operands, in canonical order. */
+        private final @NonNull Node[] operands;
+
+        /** The precomputed hash. */
+        private final int hash;
+
+        /** The canonical string; computed lazily. */
+        private volatile @Nullable String string;
+
+        /**
+         * Creates a node.
+         *
+         * @param kind     The kind of the node.
+         * @param name     The name of the variable; <code>null</code> if the node is not a variable.
+         * @param operands The interned operands, in canonical order.
+         */
+        private Node(byte kind, @Nullable String name, @NonNull Node[] operands) {
+            this.kind = kind;
+            this.name = name;
+            this.operands = operands;
+            int h = kind;
+            if (name != null) {
+                h = 31 * h + name.hashCode();
+            }
+            for (Node operand : operands) {
+                h = 31 * h + operand.hash;
+            }
+            // spread the bits, as the hashes are also used to order operands
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Node)) {
+                return false;
+            }
+            Node other = (Node) obj;
+            if (hash != other.hash || kind != other.kind || operands.length != other.operands.length) {
+                return false;
+            }
+            if (name != null ? !name.equals(other.name) : other.name != null) {
+                return false;
+            }
+            for (int i = 0; i < operands.length; i++) {
+                if (operands[i] != other.operands[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the canonical string of this node. Equal nodes have equal strings in every run, so the string can
+         * be used as a persistent key.
+         *
+         * @return The canonical string.
+         */
+        @Override
+        public @NonNull String toString() {
+            String result = string;
+            if (result == null) {
+                StringBuilder builder = new StringBuilder();
+                appendTo(builder);
+                result = builder.toString();
+                string = result;
+            }
+            return result;
+        }
+
+        /**
+         * Appends the canonical string of this node to the given builder.
+         *
+         * @param builder The builder.
+         */
+        private void appendTo(@NonNull StringBuilder builder) {
+            switch (kind) {
+            case FALSE:
+                builder.append('0');
+                break;
+            case TRUE:
+                builder.append('1');
+                break;
+            case VARIABLE:
+                builder.append(name);
+                break;
+            case NEGATION:
+                builder.append('!');
+                operands[0].appendTo(builder);
+                break;
+            default:
+                String operator = kind == CONJUNCTION ? " && " : " || ";
+                builder.append('(');
+                for (int i = 0; i < operands.length; i++) {
+                    if (i > 0) {
+                        builder.append(operator);
+                    }
+                    operands[i].appendTo(builder);
+                }
+                builder.append(')');
+                break;
+            }
+        }
+
+    }
+
+    /**
+     * A set of weakly held canonical instances. The instances are distributed over several synchronized stripes by
+     * their hash, so that threads rarely wait for each other.
+     *
+     * @param <T> The type of the instances.
+     */
+    private static final class WeakInterner<T> {
+
+        /** The number of stripes; a power of two. */
+        private static final int STRIPES = 16;
+
+        /** The stripes; each maps an instance to a weak reference to itself. */
+        private final @NonNull List<Map<T, WeakReference<T>>> stripes = new ArrayList<>(STRIPES);
+
+        /**
+         * Creates an empty interner.
+         */
+        WeakInterner() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes.add(new WeakHashMap<>());
+            }
+        }
+
+        /**
+         * Returns the canonical instance that is equal to the given one. If there is none, the given instance
+         * becomes the canonical one.
+         *
+         * @param value The instance.
+         * @return The canonical instance.
+         */
+        @NonNull T intern(@NonNull T value) {
+            Map<T, WeakReference<T>> stripe = getStripe(value);
+            synchronized (stripe) {
+                WeakReference<T> reference = stripe.get(value);
+                T existing = reference != null ? reference.get() : null;
+                if (existing == null) {
+                    stripe.put(value, new WeakReference<>(value));
+                    existing = value;
+                }
+                return existing;
+            }
+        }
+
+        /**
+         * Returns the canonical instance that is equal to the given one.
+         *
+         * @param value The instance.
+         * @return The canonical instance, or <code>null</code> if there is none.
+         */
+        @Nullable T get(@NonNull T value) {
+            Map<T, WeakReference<T>> stripe = getStripe(value);
+            synchronized (stripe) {
+                WeakReference<T> reference = stripe.get(value);
+                return reference != null ? reference.get() : null;
+            }
+        }
+
+        /**
+         * Returns the stripe that holds the given instance.
+         *
+         * @param value The instance.
+         * @return The stripe.
+         */
+        private @NonNull Map<T, WeakReference<T>> getStripe(@NonNull T value) {
+            int hash = value.hashCode();
+            return notNull(stripes.get((hash ^ (hash >>> 16)) & (STRIPES - 1)));
+        }
+
+        /**
+         * Returns the number of canonical instances that were not dropped yet.
+         *
+         * @return The number of instances.
+         */
+        int size() {
+            int size = 0;
+            for (Map<T, WeakReference<T>> stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+            return size;
+        }
+
+    }
+
+    /**
+     * Remembers the canonical nodes of formulas by the identity of the formulas. The formulas are only held weakly;
+     * entries of formulas that were garbage collected are removed. Not thread-safe; each thread has its own memo.
+     */
+    private static final class IdentityMemo {
+
+        /** The canonical nodes by {@link Key}s of their formulas. */
+        private final @NonNull Map<Object, Node> entries = new HashMap<>();
+
+        /** Receives the keys of formulas that were garbage collected. */
+        private final @NonNull ReferenceQueue<Formula> queue = new ReferenceQueue<>();
+
+        /** The key used to look up formulas, so that no weak reference is created for lookups. */
+        private final @NonNull Lookup lookup = new Lookup();
+
+        /**
+         * Returns the remembered canonical node of the given formula.
+         *
+         * @param formula The formula.
+         * @return The canonical node, or <code>null</code> if it is not remembered.
+         */
+        @Nullable Node get(@NonNull Formula formula) {
+            lookup.formula = formula;
+            Node result = entries.get(lookup);
+            lookup.formula = null;
+            return result;
+        }
+
+        /**
+         * Remembers the canonical node of the given formula. If the memo is full, it is cleared first.
+         *
+         * @param formula The formula.
+         * @param node    The canonical node of the formula.
+         */
+        void put(@NonNull Formula formula, @NonNull Node node) {
+            Reference<? extends Formula> collected;
+            while ((collected = queue.poll()) != null) {
+                entries.remove(collected);
+            }
+            if (entries.size() >= MEMO_SIZE) {
+                entries.clear();
+            }
+            entries.put(new Key(formula, queue), node);
+        }
+
+    }
+
+    /**
+     * A weak reference to a formula that is compared by the identity of the formula.
+     */
+    private static final class Key extends WeakReference<Formula> {
+
+        /** The identity hash of the formula. */
+        private final int hash;
+
+        /**
+         * Creates a key.
+         *
+         * @param formula The formula.
+         * @param queue   The queue to register the key with.
+         */
+        Key(@NonNull Formula formula, @NonNull ReferenceQueue<Formula> queue) {
+            super(formula, queue);
+            this.hash = System.identityHashCode(formula);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            Formula formula = get();
+            return formula != null && obj instanceof Key && ((Key) obj).get() == formula;
+        }
+
+    }
+
+    /**
+     * A reusable key to look up a formula in an {@link IdentityMemo}. It is only passed to the map as argument, whose
+     * <code>equals()</code> is called with the stored {@link Key}s.
+     */
+    private static final class Lookup {
+
+        /** The formula to look up. */
+        private @Nullable Formula formula;
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(formula);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && formula != null && ((Key) obj).get() == formula;
+        }
+
+    }
+
+    /** The interned nodes. */
+    private @NonNull WeakInterner<Node> nodes = new WeakInterner<>();
+
+    /** The shared formulas. */
+    private @NonNull WeakInterner<Formula> formulas = new WeakInterner<>();
+
+    /** The canonical nodes of recently converted formulas of each thread, by identity of the formula. */
+    private @NonNull ThreadLocal<IdentityMemo> memo = ThreadLocal.withInitial(IdentityMemo::new);
+
+    /** The node for {@link False}. */
+    private @NonNull Node falseNode = intern(new Node(FALSE, null, NO_OPERANDS));
+
+    /** The node for {@link True}. */
+    private @NonNull Node trueNode = intern(new Node(TRUE, null, NO_OPERANDS));
+
+    /**
+     * Returns the interned instance of the given node.
+     *
+     * @param node The node.
+     * @return The interned node that is equal to the given one.
+     */
+    private @NonNull Node intern(@NonNull Node node) {
+        return nodes.intern(node);
+    }
+
+    /**
+     * Returns the canonical node of the given formula.
+     *
+     * @param formula The formula.
+     * @return The interned canonical node.
+     *
+     * @throws IllegalArgumentException If the formula contains unknown operators.
+     */
+    public @NonNull Node canonical(@NonNull Formula formula) {
+        IdentityMemo memo = notNull(this.memo.get());
+        Node result = memo.get(formula);
+        if (result == null) {
+            result = convert(formula);
+            memo.put(formula, result);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the canonical node of the given formula; the operands are converted with {@link #canonical(Formula)}.
+     *
+     * @param formula The formula.
+     * @return The interned canonical node.
+     *
+     * @throws IllegalArgumentException If the formula contains unknown operators.
+     */
+    private @NonNull Node convert(@NonNull Formula formula) {
+        Node result;
+        if (formula instanceof Variable) {
+            result = intern(new Node(VARIABLE, ((Variable) formula).getName(), NO_OPERANDS));
+        } else if (formula instanceof Negation) {
+            result = negate(canonical(((Negation) formula).getFormula()));
+        } else if (formula instanceof Conjunction || formula instanceof Disjunction) {
+            List<@NonNull Node> operands = new ArrayList<>();
+            byte kind = formula instanceof Conjunction ? CONJUNCTION : DISJUNCTION;
+            flatten(formula, kind, operands);
+            result = combine(kind, operands);
+        } else if (formula instanceof True) {
+            result = trueNode;
+        } else if (formula instanceof False) {
+            result = falseNode;
+        } else {
+            throw new IllegalArgumentException("Can't intern formula of type " + formula.getClass().getName());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the canonical node of the conjunction of the given nodes. This is the same node as
+     * {@link #canonical(Formula)} returns for a {@link Conjunction} of the formulas of the nodes, without building
+     * that conjunction.
+     *
+     * @param left  The canonical node of the left operand.
+     * @param right The canonical node of the right operand.
+     * @return The interned canonical node.
+     */
+    public @NonNull Node and(@NonNull Node left, @NonNull Node right) {
+        List<@NonNull Node> operands = new ArrayList<>();
+        addFlattened(left, CONJUNCTION, operands);
+        addFlattened(right, CONJUNCTION, operands);
+        return combine(CONJUNCTION, operands);
+    }
+
+    /**
+     * Returns the canonical node of the negation of the given node.
+     *
+     * @param node The canonical node to negate.
+     * @return The interned canonical node.
+     */
+    private @NonNull Node negate(@NonNull Node node) {
+        Node result;
+        if (node.kind == NEGATION) {
+            result = node.operands[0];
+        } else if (node.kind == TRUE) {
+            result = falseNode;
+        } else if (node.kind == FALSE) {
+            result = trueNode;
+        } else {
+            result = intern(new Node(NEGATION, null, new Node[] {node}));
+        }
+        return result;
+    }
+
+    /**
+     * Collects the canonical operands of nested operators of the given kind.
+     *
+     * @param formula  The formula to flatten.
+     * @param kind     The kind of the operator, either {@link #CONJUNCTION} or {@link #DISJUNCTION}.
+     * @param operands The list to add the operands to.
+     */
+    private void flatten(@NonNull Formula formula, byte kind, @NonNull List<@NonNull Node> operands) {
+        if (kind == CONJUNCTION && formula instanceof Conjunction) {
+            flatten(((Conjunction) formula).getLeft(), kind, operands);
+            flatten(((Conjunction) formula).getRight(), kind, operands);
+        } else if (kind == DISJUNCTION && formula instanceof Disjunction) {
+            flatten(((Disjunction) formula).getLeft(), kind, operands);
+            flatten(((Disjunction) formula).getRight(), kind, operands);
+        } else {
+            addFlattened(canonical(formula), kind, operands);
+        }
+    }
+
+    /**
+     * Adds a canonical node as operand of an operator of the given kind. If the node is itself an operator of this
+     * kind, e.g. because a double negation was removed, its operands are added instead.
+     *
+     * @param node     The canonical node.
+     * @param kind     The kind of the operator.
+     * @param operands The list to add the operands to.
+     */
+    private static void addFlattened(@NonNull Node node, byte kind, @NonNull List<@NonNull Node> operands) {
+        if (node.kind == kind) {
+            Collections.addAll(operands, node.operands);
+        } else {
+            operands.add(node);
+        }
+    }
+
+    /**
+     * Builds the canonical node of a flattened conjunction or disjunction.
+     *
+     * @param kind     The kind of the operator, either {@link #CONJUNCTION} or {@link #DISJUNCTION}.
+     * @param operands The canonical operands; modified by this method.
+     * @return The interned canonical node.
+     */
+    private @NonNull Node combine(byte kind, @NonNull List<@NonNull Node> operands) {
+        // the neutral element is dropped, the absorbing element absorbs everything
+        Node neutral = kind == CONJUNCTION ? trueNode : falseNode;
+        Node absorbing = kind == CONJUNCTION ? falseNode : trueNode;
+
+        Set<Node> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Node operand : operands) {
+            if (operand == absorbing) {
+                return absorbing;
+            }
+            if (operand != neutral) {
+                distinct.add(operand);
+            }
+        }
+        for (Node operand : distinct) {
+            // a && !a is false, a || !a is true
+            if (operand.kind == NEGATION && distinct.contains(operand.operands[0])) {
+                return absorbing;
+            }
+        }
+
+        Node result;
+        if (distinct.isEmpty()) {
+            result = neutral;
+        } else if (distinct.size() == 1) {
+            result = distinct.iterator().next();
+        } else {
+            Node[] sorted = distinct.toArray(new Node[distinct.size()]);
+            Arrays.sort(sorted, CANONICAL_ORDER);
+            result = intern(new Node(kind, null, sorted));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a formula equal to the given one whose subformulas are shared with all formulas previously passed to
+     * this method. Used to reduce the memory of formulas that are kept, e.g. in results.
+     *
+     * @param formula The formula.
+     * @return The shared formula; equal to the given one.
+     */
+    public @NonNull Formula share(@NonNull Formula formula) {
+        Formula existing = formulas.get(formula);
+        if (existing != null) {
+            return existing;
+        }
+
+        Formula rebuilt;
+        if (formula instanceof Conjunction) {
+            rebuilt = new Conjunction(share(((Conjunction) formula).getLeft()),
+                    share(((Conjunction) formula).getRight()));
+        } else if (formula instanceof Disjunction) {
+            rebuilt = new Disjunction(share(((Disjunction) formula).getLeft()),
+                    share(((Disjunction) formula).getRight()));
+        } else if (formula instanceof Negation) {
+            rebuilt = new Negation(share(((Negation) formula).getFormula()));
+        } else {
+            rebuilt = formula;
+        }
+        return formulas.intern(rebuilt);
+    }
+
+    /**
+     * Returns the number of interned canonical nodes that were not dropped yet.
+     *
+     * @return The number of nodes.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+}
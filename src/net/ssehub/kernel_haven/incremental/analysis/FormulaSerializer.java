@@ -0,0 +1,116 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * Writes {@link Formula}s to and reads them from a compact binary representation. Each node is stored as a tag byte
+ * followed by its operands in prefix order.
+ *
+ * @author Moritz
+ */
+public class FormulaSerializer {
+
+    /** Tag for {@link False}. */
+    private static final byte FALSE = 0;
+
+    /** Tag for {@link True}. */
+    private static final byte TRUE = 1;
+
+    /** Tag for {@link Variable}. */
+    private static final byte VARIABLE = 2;
+
+    /** Tag for {@link Negation}. */
+    private static final byte NEGATION = 3;
+
+    /** Tag for {@link Conjunction}. */
+    private static final byte CONJUNCTION = 4;
+
+    /** Tag for {@link Disjunction}. */
+    private static final byte DISJUNCTION = 5;
+
+    /**
+     * Utility class; don't allow any instances.
+     */
+    private FormulaSerializer() {
+    }
+
+    /**
+     * Writes the given formula.
+     *
+     * @param out     The output to write to.
+     * @param formula The formula to write.
+     *
+     * @throws IOException If writing fails or the formula contains unknown operators.
+     */
+    public static void write(@NonNull DataOutput out, @NonNull Formula formula) throws IOException {
+        if (formula instanceof Variable) {
+            out.writeByte(VARIABLE);
+            out.writeUTF(((Variable) formula).getName());
+        } else if (formula instanceof Conjunction) {
+            out.writeByte(CONJUNCTION);
+            write(out, ((Conjunction) formula).getLeft());
+            write(out, ((Conjunction) formula).getRight());
+        } else if (formula instanceof Disjunction) {
+            out.writeByte(DISJUNCTION);
+            write(out, ((Disjunction) formula).getLeft());
+            write(out, ((Disjunction) formula).getRight());
+        } else if (formula instanceof Negation) {
+            out.writeByte(NEGATION);
+            write(out, ((Negation) formula).getFormula());
+        } else if (formula instanceof True) {
+            out.writeByte(TRUE);
+        } else if (formula instanceof False) {
+            out.writeByte(FALSE);
+        } else {
+            throw new IOException("Can't serialize formula of type " + formula.getClass().getName());
+        }
+    }
+
+    /**
+     * Reads a formula that was written by {@link #write(DataOutput, Formula)}.
+     *
+     * @param in The input to read from.
+     * @return The formula.
+     *
+     * @throws IOException If reading fails or the input is corrupt.
+     */
+    public static @NonNull Formula read(@NonNull DataInput in) throws IOException {
+        byte tag = in.readByte();
+        Formula result;
+        switch (tag) {
+        case VARIABLE:
+            result = new Variable(in.readUTF());
+            break;
+        case CONJUNCTION:
+            result = new Conjunction(read(in), read(in));
+            break;
+        case DISJUNCTION:
+            result = new Disjunction(read(in), read(in));
+            break;
+        case NEGATION:
+            result = new Negation(read(in));
+            break;
+        case TRUE:
+            result = True.INSTANCE;
+            break;
+        case FALSE:
+            result = False.INSTANCE;
+            break;
+        default:
+            throw new IOException("Invalid formula tag " + tag);
+        }
+        return result;
+    }
+
+}
@@ -1,8 +1,10 @@
 package net.ssehub.kernel_haven.incremental.analysis;
 
 import static net.ssehub.kernel_haven.config.Setting.Type.BOOLEAN;
+import static net.ssehub.kernel_haven.config.Setting.Type.DIRECTORY;
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
+import java.io.File;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.HashSet;
@@ -10,6 +12,7 @@ import java.util.Set;
 
 import net.ssehub.kernel_haven.SetUpException;
 import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.config.EnumSetting;
 import net.ssehub.kernel_haven.config.Setting;
 import net.ssehub.kernel_haven.undead_analyzer.ThreadedDeadCodeFinder;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
@@ -21,6 +24,22 @@ import net.ssehub.kernel_haven.util.null_checks.NonNull;
  */
 public class IncrementalDeadCodeAnalysisSettings {
 
+    /**
+     * The strategies for distributing the source files over the threads of the
+     * {@link IncrementalThreadedDeadCodeFinder}.
+     */
+    public enum SchedulingStrategy {
+
+        /** Source files are analyzed in code model order by an order preserving parallelizer. */
+        ORDERED,
+
+        /**
+         * Source files are analyzed largest first on a work-stealing pool, and large files are split into subtree
+         * tasks.
+         */
+        WORK_STEALING,
+    }
+
     /** The Constant BUILD_MODEL_OPTIMIZATION. */
     public static final Setting<Boolean> BUILD_MODEL_OPTIMIZATION = new Setting<>(
             "incremental.analysis.build_model.optimization", BOOLEAN, true, "FALSE",
@@ -32,10 +51,187 @@ public class IncrementalDeadCodeAnalysisSettings {
             "This setting determines whether information about the differences in the code model"
                     + " compared with the previous build model should be used to reduce the computational effort.");
 
+    /** The Constant ANALYSIS_CACHE_DIR. */
+    public static final Setting<File> ANALYSIS_CACHE_DIR = new Setting<>(
+            "incremental.analysis.cache_dir", DIRECTORY, false, null,
+            "Directory in which the analysis persists data between incremental runs. This should be placed alongside"
+                    + " the storage of the hybrid cache. If not set, nothing is persisted.");
+
+    /** The Constant PERSISTENT_SAT_CACHE. */
+    public static final Setting<Boolean> PERSISTENT_SAT_CACHE = new Setting<>(
+            "incremental.analysis.sat_cache.persistent", BOOLEAN, true, "FALSE",
+            "This setting determines whether SAT verdicts should be stored in the "
+                    + "incremental.analysis.cache_dir and reused in later runs as long as the variability model"
+                    + " does not change.");
+
+    /** The Constant VM_CNF_CACHE. */
+    public static final Setting<Boolean> VM_CNF_CACHE = new Setting<>(
+            "incremental.analysis.vm_cnf.cache", BOOLEAN, true, "FALSE",
+            "This setting determines whether the CNF of the variability model should be stored in the"
+                    + " incremental.analysis.cache_dir and reused in later runs in which the variability model did not"
+                    + " change.");
+
+    /** The Constant CARRY_FORWARD_RESULTS. */
+    public static final Setting<Boolean> CARRY_FORWARD_RESULTS = new Setting<>(
+            "incremental.analysis.carry_forward_results", BOOLEAN, true, "FALSE",
+            "This setting determines whether the results of each source file should be stored in the"
+                    + " incremental.analysis.cache_dir. Source files that are skipped in later runs then contribute"
+                    + " their stored results, so that every run produces the complete result.");
+
+    /** The Constant QUIET. */
+    public static final Setting<Boolean> QUIET = new Setting<>(
+            "incremental.analysis.quiet", BOOLEAN, true, "FALSE",
+            "This setting determines whether log messages for single files and code blocks should be suppressed."
+                    + " Only a summary of counters is logged at the end of the analysis.");
+
+    /** The Constant SAT_CACHE_SIZE. */
+    public static final @NonNull Setting<@NonNull Integer> SAT_CACHE_SIZE = new Setting<>(
+            "incremental.analysis.sat_cache.size", Setting.Type.INTEGER, true, "100000",
+            "Maximum number of SAT verdicts kept in the cache shared by all analysis threads. The least recently"
+                    + " used verdicts are evicted first. Must be >= 1.");
+
+    /** The Constant HIERARCHICAL_PRUNING. */
+    public static final Setting<Boolean> HIERARCHICAL_PRUNING = new Setting<>(
+            "incremental.analysis.hierarchical_pruning", BOOLEAN, true, "FALSE",
+            "This setting determines whether the verdict of a code block should be passed down to its nested blocks."
+                    + " Nested blocks of dead blocks and nested blocks with the same presence condition are then"
+                    + " decided without calling the SAT solver.");
+
+    /** The Constant TRIVIAL_CHECKS. */
+    public static final Setting<Boolean> TRIVIAL_CHECKS = new Setting<>(
+            "incremental.analysis.trivial_checks", BOOLEAN, true, "FALSE",
+            "This setting determines whether presence conditions that are conjunctions of literals should be decided"
+                    + " without calling the SAT solver, using the variables that unit propagation forces in the"
+                    + " variability model and the variables that occur in none of its remaining constraints.");
+
+    /** The Constant SCHEDULING. */
+    public static final @NonNull EnumSetting<@NonNull SchedulingStrategy> SCHEDULING = new EnumSetting<>(
+            "incremental.analysis.scheduling", SchedulingStrategy.class, true, SchedulingStrategy.ORDERED,
+            "How the " + IncrementalThreadedDeadCodeFinder.class.getName() + " distributes source files over its"
+                    + " threads. ORDERED analyzes them in code model order. WORK_STEALING analyzes them in order of"
+                    + " their estimated cost and splits large files into subtree tasks.");
+
+    /** The Constant DETERMINISTIC_OUTPUT. */
+    public static final Setting<Boolean> DETERMINISTIC_OUTPUT = new Setting<>(
+            "incremental.analysis.deterministic_output", BOOLEAN, true, "TRUE",
+            "This setting determines whether the WORK_STEALING scheduling passes on results in code model order."
+                    + " If set to false, results are passed on as soon as a source file is done.");
+
+    /** The Constant DETECTION_THREADS. */
+    public static final @NonNull Setting<@NonNull Integer> DETECTION_THREADS = new Setting<>(
+            "incremental.analysis.code_model.optimization.threads", Setting.Type.INTEGER, true, "2",
+            "Number of threads that read previous code models and detect changes for the"
+                    + " incremental.analysis.code_model.optimization in the "
+                    + IncrementalThreadedDeadCodeFinder.class.getName() + ". Must be >= 1.");
+
+    /** The Constant VIRTUAL_THREADS. */
+    public static final Setting<Boolean> VIRTUAL_THREADS = new Setting<>(
+            "incremental.analysis.virtual_threads", BOOLEAN, true, "FALSE",
+            "This setting determines whether the " + IncrementalThreadedDeadCodeFinder.class.getName()
+                    + " should read code models on virtual threads and check the code blocks on a pool sized to the"
+                    + " number of available processors, ignoring analysis.undead.threads and"
+                    + " incremental.analysis.code_model.optimization.threads. On JVMs without virtual threads, a"
+                    + " cached pool of platform threads reads the code models instead.");
+
+    /** The Constant DETECTION_PREFETCH. */
+    public static final @NonNull Setting<@NonNull Integer> DETECTION_PREFETCH = new Setting<>(
+            "incremental.analysis.code_model.optimization.prefetch", Setting.Type.INTEGER, true, "64",
+            "Maximum number of source files for which the change detection of the "
+                    + IncrementalThreadedDeadCodeFinder.class.getName() + " may run ahead of the analysis."
+                    + " Must be >= 1.");
+
+    /** The Constant STREAM_CODE_MODEL. */
+    public static final Setting<Boolean> STREAM_CODE_MODEL = new Setting<>(
+            "incremental.analysis.code_model.streaming", BOOLEAN, true, "FALSE",
+            "This setting determines whether full analyses should read the source files of the code model one by one"
+                    + " from the hybrid cache instead of loading the complete code model into memory. Peak memory"
+                    + " usage then depends on the number of threads instead of the size of the code model.");
+
+    /** The Constant BLOCK_LEVEL_REUSE. */
+    public static final Setting<Boolean> BLOCK_LEVEL_REUSE = new Setting<>(
+            "incremental.analysis.block_level_reuse", BOOLEAN, true, "FALSE",
+            "This setting determines whether partial analyses should only check the code blocks of a modified"
+                    + " source file whose presence condition did not occur in its previous version. All other blocks"
+                    + " keep the verdict of the previous run. Requires incremental.analysis.carry_forward_results.");
+
+    /** The Constant VM_DELTA_ANALYSIS. */
+    public static final Setting<Boolean> VM_DELTA_ANALYSIS = new Setting<>(
+            "incremental.analysis.vm_delta", BOOLEAN, true, "FALSE",
+            "This setting determines whether runs in which only the variability model changed should only analyze the"
+                    + " source files whose presence conditions mention a variable that is connected to a changed"
+                    + " constraint. Requires incremental.analysis.carry_forward_results and a previous full analysis"
+                    + " with this setting enabled.");
+
+    /** The Constant VARIABLE_INDEX. */
+    public static final Setting<Boolean> VARIABLE_INDEX = new Setting<>(
+            "incremental.analysis.variable_index", BOOLEAN, true, "FALSE",
+            "This setting determines whether an inverted index from the variables of the variability model to the"
+                    + " source files and line ranges of the blocks referencing them should be maintained in"
+                    + " incremental.analysis.cache_dir. Always enabled by incremental.analysis.vm_delta. Requires"
+                    + " incremental.analysis.carry_forward_results.");
+
+    /** The Constant SPILL_RESULTS. */
+    public static final Setting<Boolean> SPILL_RESULTS = new Setting<>(
+            "incremental.analysis.results.spill", BOOLEAN, true, "FALSE",
+            "This setting determines whether dead code blocks should be written to a compressed file in the output"
+                    + " directory as soon as they are found, instead of being passed on to the output table in"
+                    + " memory. The presence condition of each source file is stored once per file.");
+
+    /** The Constant SHARDS. */
+    public static final @NonNull Setting<@NonNull Integer> SHARDS = new Setting<>(
+            "incremental.analysis.shards", Setting.Type.INTEGER, true, "0",
+            "Number of worker JVMs among which the source files are distributed for checking. The shards are written"
+                    + " to a new directory in the output directory. 0 checks all source files in this JVM.");
+
+    /** The Constant SHARD_RETRIES. */
+    public static final @NonNull Setting<@NonNull Integer> SHARD_RETRIES = new Setting<>(
+            "incremental.analysis.shards.retries", Setting.Type.INTEGER, true, "2",
+            "Number of times the worker of a shard is started again if it fails, before the shard is checked in this"
+                    + " JVM. Must be >= 0.");
+
+    /** The Constant SHARD_TIMEOUT. */
+    public static final @NonNull Setting<@NonNull Integer> SHARD_TIMEOUT = new Setting<>(
+            "incremental.analysis.shards.timeout", Setting.Type.INTEGER, true, "0",
+            "Number of seconds a worker may run before it is stopped and counted as failed. 0 for no limit.");
+
+    /** The Constant SHARD_JVM_ARGS. */
+    public static final Setting<String> SHARD_JVM_ARGS = new Setting<>(
+            "incremental.analysis.shards.jvm_args", Setting.Type.STRING, false, null,
+            "Additional arguments for the worker JVMs of incremental.analysis.shards, separated by white space, e.g."
+                    + " their maximum heap size.");
+
+    /** The Constant SHARD_LAUNCHERS. */
+    public static final Setting<String> SHARD_LAUNCHERS = new Setting<>(
+            "incremental.analysis.shards.launchers", Setting.Type.STRING, false, null,
+            "Command prefixes to start the worker JVMs of incremental.analysis.shards with, separated by semicolons,"
+                    + " e.g. \"ssh host1;ssh host2\". The prefixes are used in turn. The hosts must share the output"
+                    + " directory under the same path. If not set, all workers run on this host.");
+
+    /** The Constant SHARD_CLASSPATH. */
+    public static final Setting<String> SHARD_CLASSPATH = new Setting<>(
+            "incremental.analysis.shards.classpath", Setting.Type.STRING, false, null,
+            "Class path of the worker JVMs of incremental.analysis.shards. If not set, it is assembled from the jars"
+                    + " that KernelHaven loaded this plugin and its dependencies from, and the class path of this"
+                    + " JVM.");
+
+    /** The Constant METRICS. */
+    public static final Setting<Boolean> METRICS = new Setting<>(
+            "incremental.analysis.metrics", BOOLEAN, true, "FALSE",
+            "This setting determines whether the metrics of each run (phase durations, skipped files, SAT calls,"
+                    + " cache hit rate, solver time histogram and thread utilization) should be written as a CSV"
+                    + " table to the output directory.");
+
+    /** The value of {@link #NUMBER_OF_THREADS} that lets the number of threads be tuned during the run. */
+    public static final @NonNull String AUTO_THREADS = "auto";
+
     /** The Constant NUMBER_OF_THREADS. */
-    public static final @NonNull Setting<@NonNull Integer> NUMBER_OF_THREADS =
-            new Setting<>("analysis.undead.threads", Setting.Type.INTEGER, true, "2",
-                    "Number of threads to use for the " + ThreadedDeadCodeFinder.class.getName() + ". Must be >= 1.");
+    public static final @NonNull Setting<@NonNull String> NUMBER_OF_THREADS =
+            new Setting<>("analysis.undead.threads", Setting.Type.STRING, true, "2",
+                    "Number of threads to use for the " + ThreadedDeadCodeFinder.class.getName() + ". Must be >= 1,"
+                            + " or " + AUTO_THREADS + " to let the " + IncrementalThreadedDeadCodeFinder.class.getName()
+                            + " start with one thread per available processor and adjust the number of threads during"
+                            + " the run based on the observed throughput and garbage collection time. Only the ORDERED"
+                            + " scheduling is tuned; WORK_STEALING uses one thread per available processor.");
     /**
      * Holds all declared setting constants.
      */
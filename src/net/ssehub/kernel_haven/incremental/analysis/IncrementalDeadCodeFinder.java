@@ -4,16 +4,25 @@ import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
 import java.io.File;
 import java.io.IOException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import net.ssehub.kernel_haven.SetUpException;
 import net.ssehub.kernel_haven.analysis.AnalysisComponent;
 import net.ssehub.kernel_haven.build_model.BuildModel;
 import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.CnfVariable;
 import net.ssehub.kernel_haven.cnf.ConverterException;
 import net.ssehub.kernel_haven.cnf.FormulaToCnfConverterFactory;
 import net.ssehub.kernel_haven.cnf.FormulaToCnfConverterFactory.Strategy;
@@ -26,6 +35,10 @@ import net.ssehub.kernel_haven.code_model.CodeElement;
 import net.ssehub.kernel_haven.code_model.SourceFile;
 import net.ssehub.kernel_haven.config.Configuration;
 import net.ssehub.kernel_haven.config.DefaultSettings;
+import net.ssehub.kernel_haven.incremental.analysis.DeadCodeAnalysisStatistics.Counter;
+import net.ssehub.kernel_haven.incremental.analysis.DeadCodeAnalysisStatistics.Phase;
+import net.ssehub.kernel_haven.incremental.analysis.DeadCodeShardWorker.ShardVerdicts;
+import net.ssehub.kernel_haven.incremental.analysis.FormulaInterner.Node;
 import net.ssehub.kernel_haven.incremental.analysis.IncrementalDeadCodeFinder.DeadCodeBlock;
 import net.ssehub.kernel_haven.incremental.storage.HybridCache;
 import net.ssehub.kernel_haven.incremental.storage.HybridCache.ChangeFlag;
@@ -33,9 +46,9 @@ import net.ssehub.kernel_haven.incremental.util.LinuxFormulaRelevancyChecker;
 import net.ssehub.kernel_haven.incremental.util.SourceFileDifferenceDetector;
 import net.ssehub.kernel_haven.incremental.util.SourceFileDifferenceDetector.Consideration;
 import net.ssehub.kernel_haven.util.FormatException;
+import net.ssehub.kernel_haven.util.Logger.Level;
 import net.ssehub.kernel_haven.util.io.TableElement;
 import net.ssehub.kernel_haven.util.io.TableRow;
-import net.ssehub.kernel_haven.util.logic.Conjunction;
 import net.ssehub.kernel_haven.util.logic.Formula;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
 import net.ssehub.kernel_haven.util.null_checks.Nullable;
@@ -54,6 +67,12 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 	/** The relevancy checker. */
 	protected LinuxFormulaRelevancyChecker relevancyChecker;
 
+	/**
+	 * The memoized verdicts of the {@link #relevancyChecker}; <code>null</code> if
+	 * all blocks are considered.
+	 */
+	protected @Nullable RelevancyCache relevancyCache;
+
 	/** The vm. */
 	protected VariabilityModel vm;
 
@@ -69,6 +88,12 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 	/** The previous bm. */
 	protected BuildModel previousBm;
 
+	/**
+	 * The paths of the files whose build PC changed, computed before the analysis
+	 * if only the build model changed; <code>null</code> otherwise.
+	 */
+	protected @Nullable Set<String> changedBuildPcs;
+
 	/** The variability model changed. */
 	protected boolean variabilityModelChanged;
 
@@ -90,6 +115,206 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 
 	protected boolean codeModelOptimization;
 
+	/** The directory for data persisted between runs; may be <code>null</code>. */
+	protected @Nullable File analysisCacheDir;
+
+	/** Whether SAT verdicts should be persisted between runs. */
+	protected boolean persistSatVerdicts;
+
+	/** The persistent SAT cache; <code>null</code> if disabled. */
+	protected @Nullable PersistentSatCache persistentSatCache;
+
+	/** Whether verdicts are passed down the tree of code elements. */
+	protected boolean hierarchicalPruning;
+
+	/** The number of worker JVMs; 0 if all files are checked in this JVM. */
+	protected int shardCount;
+
+	/** The number of times a failed worker is started again. */
+	protected int shardRetries;
+
+	/**
+	 * The number of seconds a worker may run before it counts as failed; 0 for no
+	 * limit.
+	 */
+	protected int shardTimeout;
+
+	/** Additional arguments for the worker JVMs; may be <code>null</code>. */
+	protected @Nullable String shardJvmArgs;
+
+	/**
+	 * The command prefixes to start the worker JVMs with, separated by semicolons;
+	 * may be <code>null</code>.
+	 */
+	protected @Nullable String shardLaunchers;
+
+	/**
+	 * The class path of the worker JVMs; <code>null</code> if it is assembled from
+	 * the class loaders of this plugin.
+	 */
+	protected @Nullable String shardClassPath;
+
+	/**
+	 * Distributes the source files of this run to worker JVMs; <code>null</code>
+	 * if disabled.
+	 */
+	protected @Nullable ShardedDeadCodeRunner shardRunner;
+
+	/**
+	 * The keys of the presence conditions that were passed to the workers without
+	 * a verdict, by canonical string of the SAT cache key; used to add the
+	 * verdicts of the workers to the {@link #satCache} and the
+	 * {@link #persistentSatCache} in {@link #finishShards()}.
+	 */
+	private @NonNull Map<String, ShardKey> shardKeys = new ConcurrentHashMap<>();
+
+	/**
+	 * The keys of a presence condition that was passed to a worker without a
+	 * verdict.
+	 */
+	private static final class ShardKey {
+
+		/** The SAT cache key. */
+		private final @NonNull Node key;
+
+		/** The canonical string of the file presence condition. */
+		private final @NonNull String filePc;
+
+		/** The canonical string of the element presence condition. */
+		private final @NonNull String elementPc;
+
+		/**
+		 * Creates the keys.
+		 * 
+		 * @param key       The SAT cache key.
+		 * @param filePc    The canonical string of the file presence condition.
+		 * @param elementPc The canonical string of the element presence condition.
+		 */
+		private ShardKey(@NonNull Node key, @NonNull String filePc, @NonNull String elementPc) {
+			this.key = key;
+			this.filePc = filePc;
+			this.elementPc = elementPc;
+		}
+
+	}
+
+	/** The hits of the SAT caches of the workers of this run. */
+	private long shardSatCacheHits;
+
+	/** The misses of the SAT caches of the workers of this run. */
+	private long shardSatCacheMisses;
+
+	/** Whether trivial presence conditions are decided without the SAT solver. */
+	protected boolean trivialChecks;
+
+	/**
+	 * Decides trivial presence conditions without the SAT solver; <code>null</code>
+	 * if disabled or not applicable to the current variability model.
+	 */
+	protected @Nullable TrivialSatChecker trivialSatChecker;
+
+	/** Whether the CNF of the variability model is cached between runs. */
+	protected boolean cacheVmCnf;
+
+	/** Whether results of skipped files are taken from the previous runs. */
+	protected boolean carryForwardResults;
+
+	/** The index of results of previous runs; <code>null</code> if disabled. */
+	protected @Nullable DeadCodeResultIndex resultIndex;
+
+	/** The paths of all source files that were considered in this run. */
+	protected @NonNull Set<String> seenPaths = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The previous versions of source files that the change detection read and
+	 * found to be different, by path. They are kept until the source file is
+	 * analyzed, so that {@link #createPcVerdicts(SourceFile)} does not read them
+	 * again.
+	 */
+	protected @NonNull Map<String, SourceFile<?>> detectedPreviousFiles = new ConcurrentHashMap<>();
+
+	/** Whether per-file and per-block log messages are suppressed. */
+	protected boolean quietMode;
+
+	/** The statistics of the current run. */
+	protected @NonNull DeadCodeAnalysisStatistics statistics = new DeadCodeAnalysisStatistics();
+
+	/** The maximum number of entries in the shared SAT cache. */
+	protected int satCacheSize;
+
+	/** The SAT cache shared by all source files and worker threads. */
+	protected @NonNull SatCache<Node> satCache;
+
+	/**
+	 * Interns the checked presence conditions as canonical SAT cache keys and
+	 * shares the presence conditions held in results.
+	 */
+	protected @NonNull FormulaInterner formulaInterner = new FormulaInterner();
+
+	/** The clauses of the file presence conditions, converted once per run. */
+	protected @NonNull FilePcCnfCache filePcCnfCache = new FilePcCnfCache();
+
+	/** Whether the code model of full analyses is read lazily. */
+	protected boolean streamCodeModel;
+
+	/** Whether verdicts of unchanged blocks of modified files are reused. */
+	protected boolean blockLevelReuse;
+
+	/**
+	 * Whether only source files affected by a change of the variability model are
+	 * analyzed if the build model did not change.
+	 */
+	protected boolean vmDeltaAnalysis;
+
+	/**
+	 * Whether this run only analyzes the source files affected by the change of the
+	 * variability model or of the build model.
+	 */
+	protected boolean selectiveAnalysis;
+
+	/** Whether the inverted index of variables is maintained. */
+	protected boolean maintainVariableIndex;
+
+	/**
+	 * The variables affected by the change of the variability model in a selective
+	 * analysis; <code>null</code> otherwise.
+	 */
+	protected @Nullable Set<String> affectedVariables;
+
+	/**
+	 * The inverted index from variables to the source files and blocks that
+	 * reference them; <code>null</code> if disabled.
+	 */
+	protected @Nullable VariableIndex variableIndex;
+
+	/**
+	 * The CNF of the current variability model, if it was already converted while
+	 * loading the models; <code>null</code> otherwise.
+	 */
+	private @Nullable Cnf preparedVmCnf;
+
+	/** Whether the metrics of each run are written to {@link #outputDir}. */
+	protected boolean writeMetrics;
+
+	/** The output directory of KernelHaven. */
+	protected @Nullable File outputDir;
+
+	/**
+	 * Whether results are written to a file in {@link #outputDir} instead of being
+	 * passed on in memory.
+	 */
+	protected boolean spillResults;
+
+	/** The writer for the results of this run; <code>null</code> if disabled. */
+	protected volatile @Nullable DeadCodeResultWriter resultWriter;
+
+	/**
+	 * The SAT utilities of each thread. The solver of each thread has the
+	 * variability model loaded once; each presence condition is checked on top of
+	 * it.
+	 */
+	private @NonNull ThreadLocal<SatUtilities> threadSatUtils = new ThreadLocal<>();
+
 	/**
 	 * Creates a dead code analysis.
 	 *
@@ -106,12 +331,37 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 		findDcbForVariabilityRelatedPcsOnly = config.getValue(DefaultSettings.ANALYSIS_USE_VARMODEL_VARIABLES_ONLY);
 		buildModelOptimization = config.getValue(IncrementalDeadCodeAnalysisSettings.BUILD_MODEL_OPTIMIZATION);
 		codeModelOptimization = config.getValue(IncrementalDeadCodeAnalysisSettings.CODE_MODEL_OPTIMIZATION);
+		analysisCacheDir = config.getValue(IncrementalDeadCodeAnalysisSettings.ANALYSIS_CACHE_DIR);
+		persistSatVerdicts = config.getValue(IncrementalDeadCodeAnalysisSettings.PERSISTENT_SAT_CACHE);
+		satCacheSize = config.getValue(IncrementalDeadCodeAnalysisSettings.SAT_CACHE_SIZE);
+		hierarchicalPruning = config.getValue(IncrementalDeadCodeAnalysisSettings.HIERARCHICAL_PRUNING);
+		trivialChecks = config.getValue(IncrementalDeadCodeAnalysisSettings.TRIVIAL_CHECKS);
+		shardCount = config.getValue(IncrementalDeadCodeAnalysisSettings.SHARDS);
+		shardRetries = config.getValue(IncrementalDeadCodeAnalysisSettings.SHARD_RETRIES);
+		shardTimeout = config.getValue(IncrementalDeadCodeAnalysisSettings.SHARD_TIMEOUT);
+		shardJvmArgs = config.getValue(IncrementalDeadCodeAnalysisSettings.SHARD_JVM_ARGS);
+		shardLaunchers = config.getValue(IncrementalDeadCodeAnalysisSettings.SHARD_LAUNCHERS);
+		shardClassPath = config.getValue(IncrementalDeadCodeAnalysisSettings.SHARD_CLASSPATH);
+		cacheVmCnf = config.getValue(IncrementalDeadCodeAnalysisSettings.VM_CNF_CACHE);
+		carryForwardResults = config.getValue(IncrementalDeadCodeAnalysisSettings.CARRY_FORWARD_RESULTS);
+		quietMode = config.getValue(IncrementalDeadCodeAnalysisSettings.QUIET);
+		satCache = new SatCache<>(satCacheSize);
+		streamCodeModel = config.getValue(IncrementalDeadCodeAnalysisSettings.STREAM_CODE_MODEL);
+		writeMetrics = config.getValue(IncrementalDeadCodeAnalysisSettings.METRICS);
+		blockLevelReuse = config.getValue(IncrementalDeadCodeAnalysisSettings.BLOCK_LEVEL_REUSE);
+		vmDeltaAnalysis = config.getValue(IncrementalDeadCodeAnalysisSettings.VM_DELTA_ANALYSIS);
+		maintainVariableIndex = vmDeltaAnalysis
+				|| config.getValue(IncrementalDeadCodeAnalysisSettings.VARIABLE_INDEX);
+		outputDir = config.getValue(DefaultSettings.OUTPUT_DIR);
+		spillResults = config.getValue(IncrementalDeadCodeAnalysisSettings.SPILL_RESULTS);
 	}
 
 	/**
 	 * A class that holds all variables relevant for solving SAT. This is created
-	 * once per {@link DeadCodeFinder#findDeadCodeBlocks(SourceFile))}, so that this
-	 * method is thread-safe.
+	 * once per thread (see {@link IncrementalDeadCodeFinder#threadSatUtils}), so
+	 * that {@link IncrementalDeadCodeFinder#findDeadCodeBlocks(SourceFile)} is
+	 * thread-safe while the variability model is loaded into a solver only once per
+	 * thread.
 	 */
 	private static class SatUtilities {
 
@@ -121,18 +371,35 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 		/** The solver. */
 		private @NonNull ISatSolver solver;
 
-		/** The sat cache. */
-		private @NonNull Map<Formula, Boolean> satCache;
+		/** The sat cache; shared with all other instances. */
+		private @NonNull SatCache<Node> satCache;
+
+		/** The file presence condition that was checked last by this thread. */
+		private @Nullable Formula lastFilePc;
+
+		/** The canonical node of {@link #lastFilePc}. */
+		private @Nullable Node lastFilePcNode;
+
+		/**
+		 * The clauses of {@link #lastFilePc}; <code>null</code> if not requested yet.
+		 */
+		private @Nullable CnfVariable[][] lastFilePcClauses;
+
+		/**
+		 * Whether {@link #lastFilePc} alone is satisfiable with the variability model;
+		 * <code>null</code> if not known yet.
+		 */
+		private @Nullable Boolean lastFilePcSat;
 
 		/**
 		 * Creates this instance.
 		 * 
 		 * @param converter the formula to CNF converter.
 		 * @param solver    The SAT solver.
-		 * @param satCache  The SAT cache.
+		 * @param satCache  The shared SAT cache.
 		 */
 		SatUtilities(@NonNull IFormulaToCnfConverter converter, @NonNull ISatSolver solver,
-				@NonNull Map<Formula, Boolean> satCache) {
+				@NonNull SatCache<Node> satCache) {
 			this.converter = converter;
 			this.solver = solver;
 			this.satCache = satCache;
@@ -148,8 +415,45 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 	 */
 	protected @NonNull List<@NonNull DeadCodeBlock> findDeadCodeBlocks(@NonNull SourceFile<?> sourceFile) {
 
+		long start = System.nanoTime();
 		List<@NonNull DeadCodeBlock> result = new ArrayList<>();
 
+		Formula filePc = prepareFile(sourceFile, result);
+
+		if (filePc != null) {
+			Map<Formula, Boolean> pcVerdicts = createPcVerdicts(sourceFile);
+
+			// files passed to a worker JVM are finished in finishShards()
+			if (!submitToShard(sourceFile, filePc, pcVerdicts, result)) {
+				for (CodeElement<?> element : sourceFile) {
+					try {
+						checkElement(element, filePc, result, null, null, pcVerdicts);
+					} catch (SolverException | ConverterException e) {
+						LOGGER.logException("Exception while trying to check element", e);
+					}
+				}
+				finishFile(sourceFile, result);
+			}
+		}
+
+		statistics.recordBusyTime(System.nanoTime() - start);
+		return result;
+	}
+
+	/**
+	 * Decides whether the elements of the given source file need to be checked.
+	 * Results of files that are skipped because their build PC did not change are
+	 * taken from the previous run, if enabled. This method is thread-safe.
+	 * 
+	 * @param sourceFile The source file.
+	 * @param result     The list to add carried forward {@link DeadCodeBlock}s to.
+	 * @return The presence condition of the file, or <code>null</code> if the file
+	 *         is skipped.
+	 */
+	protected @Nullable Formula prepareFile(@NonNull SourceFile<?> sourceFile,
+			@NonNull List<@NonNull DeadCodeBlock> result) {
+
+		seenPaths.add(sourceFile.getPath().getPath());
 		Formula filePc = bm.getPc(sourceFile.getPath());
 
 		boolean runForFile = true;
@@ -157,116 +461,573 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 		// skip files with no presence condition
 		if (filePc == null) {
 			runForFile = false;
-			LOGGER.logInfo("Skipping " + sourceFile.getPath() + " because it has no build PC.");
+			statistics.increment(Counter.FILES_SKIPPED_NO_PC);
+			logDetail(Level.INFO, "Skipping ", sourceFile.getPath(), " because it has no build PC.");
+			if (resultIndex != null) {
+				resultIndex.remove(sourceFile.getPath());
+			}
+			if (variableIndex != null) {
+				variableIndex.remove(sourceFile.getPath());
+			}
 		} else if (buildModelOptimization && buildModelChanged && !variabilityModelChanged && previousBm != null) {
 			Collection<ChangeFlag> flagsForCodeFile = hybridCache.getFlags(sourceFile);
 			// we can only consider removing files from pc-checking when they
 			// were not newly extracted
 			if (!flagsForCodeFile.contains(ChangeFlag.EXTRACTION_CHANGE)) {
-				Formula previousFilePc = previousBm.getPc(sourceFile.getPath());
-				runForFile = !filePc.equals(previousFilePc);
+				runForFile = changedBuildPcs != null
+						? changedBuildPcs.contains(sourceFile.getPath().getPath())
+						: !filePc.equals(previousBm.getPc(sourceFile.getPath()));
 				if (!runForFile) {
-					LOGGER.logInfo("Skipping " + sourceFile.getPath() + " because its build PC did not change.");
+					statistics.increment(Counter.FILES_SKIPPED_BUILD_PC_UNCHANGED);
+					logDetail(Level.INFO, "Skipping ", sourceFile.getPath(), " because its build PC did not change.");
+					result.addAll(carryForwardResults(sourceFile));
 				} else {
-					LOGGER.logInfo("Processing " + sourceFile + " because its build PC did change.");
+					logDetail(Level.INFO, "Processing ", sourceFile, " because its build PC did change.");
 				}
 			} 
 		}
 
 		if (runForFile) {
-			LOGGER.logInfo("Running for file " + sourceFile.getPath());
-			LOGGER.logDebug("File PC: " + filePc);
+			statistics.increment(Counter.FILES_ANALYZED);
+			logDetail(Level.INFO, "Running for file ", sourceFile.getPath());
+			logDetail(Level.DEBUG, "File PC: ", filePc);
+		}
 
-			// Lazy initialization for SatUtils. Only gets initialized if the sourceFile
-			// contains at least one element.
-			SatUtilities satUtils = null;
+		return runForFile ? filePc : null;
+	}
 
-			for (CodeElement<?> element : sourceFile) {
-				if (satUtils == null) {
-					satUtils = new SatUtilities(FormulaToCnfConverterFactory.create(Strategy.RECURISVE_REPLACING),
-							SatSolverFactory.createSolver(vmCnf, false), new HashMap<>(10000));
-				}
+	/**
+	 * Detects changes between the previous and current version of the given
+	 * source file. If the source file needs to be analyzed and the verdicts of its
+	 * previous version can be reused, the previous version is kept for
+	 * {@link #createPcVerdicts(SourceFile)}. This method is thread-safe.
+	 * 
+	 * @param sourceFile The source file.
+	 * @param detector   The detector.
+	 * @return Whether the source file needs to be analyzed.
+	 * 
+	 * @throws IOException If reading the previous version fails.
+	 */
+	protected boolean detectChange(@NonNull SourceFile<?> sourceFile, @NonNull SourceFileDifferenceDetector detector)
+			throws IOException {
+
+		SourceFile<?> previous = hybridCache.readPreviousCm(sourceFile.getPath());
+		boolean different = detector.isDifferent(sourceFile, previous);
+		DeadCodeResultIndex index = resultIndex;
+		if (different && previous != null && blockLevelReuse && index != null
+				&& index.get(sourceFile.getPath()) != null && bm.getPc(sourceFile.getPath()) != null) {
+			detectedPreviousFiles.put(sourceFile.getPath().getPath(), previous);
+		}
+		return different;
+	}
 
+	/**
+	 * Creates the store for verdicts of presence conditions within a single file.
+	 * The store is thread-safe, so that the elements of one file may be checked by
+	 * several threads.
+	 * 
+	 * <p>
+	 * If {@link #blockLevelReuse} is enabled and neither the variability nor the
+	 * build model changed, the store is filled with the verdicts of the previous
+	 * version of the file. The verdict of a block only depends on its presence
+	 * condition, which includes the conditions of all its ancestors, on the file
+	 * presence condition and on the variability model. Thus, each block whose
+	 * presence condition already occurred in the previous version keeps its
+	 * verdict, and only blocks with a new presence condition are checked.
+	 * </p>
+	 * 
+	 * <p>
+	 * In a selective analysis after a change of the variability model, the store
+	 * is filled with the previous verdicts of all blocks that do not lie within a
+	 * line range of an affected variable in the {@link VariableIndex}.
+	 * </p>
+	 * 
+	 * @param sourceFile The source file that is checked with the store.
+	 * @return The store, or <code>null</code> if neither pruning nor reuse is
+	 *         enabled.
+	 */
+	protected @Nullable Map<Formula, Boolean> createPcVerdicts(@NonNull SourceFile<?> sourceFile) {
+		Map<Formula, Boolean> result = hierarchicalPruning ? new ConcurrentHashMap<>() : null;
+		if (blockLevelReuse && resultIndex != null && !variabilityModelChanged && !buildModelChanged) {
+			List<@NonNull DeadCodeBlock> previousResults = resultIndex.get(sourceFile.getPath());
+			SourceFile<?> previous = detectedPreviousFiles.remove(sourceFile.getPath().getPath());
+			if (previousResults == null) {
+				previous = null;
+			} else if (previous == null) {
 				try {
-					checkElement(element, filePc, sourceFile, satUtils, result);
-				} catch (SolverException | ConverterException e) {
-					LOGGER.logException("Exception while trying to check element", e);
+					previous = hybridCache.readPreviousCm(sourceFile.getPath());
+				} catch (IOException e) {
+					LOGGER.logException("Could not read previous code model for path " + sourceFile.getPath(), e);
+				}
+			}
+			if (previous != null) {
+				if (result == null) {
+					result = new ConcurrentHashMap<>();
+				}
+				for (CodeElement<?> element : previous) {
+					addPreviousVerdicts(element, result);
+				}
+				// only dead blocks are stored; all other blocks were alive
+				for (DeadCodeBlock block : notNull(previousResults)) {
+					if (block.getPresenceCondition() != null) {
+						result.put(notNull(block.getPresenceCondition()), false);
+					}
 				}
+				logDetail(Level.DEBUG, "Reusing ", result.size(), " verdicts of the previous version of ",
+						sourceFile.getPath());
+			}
+		} else if (selectiveAnalysis && resultIndex != null && variableIndex != null && affectedVariables != null
+				&& !hybridCache.getFlags(sourceFile).contains(ChangeFlag.EXTRACTION_CHANGE)) {
+			List<@NonNull DeadCodeBlock> previousResults = resultIndex.get(sourceFile.getPath());
+			int[] ranges = variableIndex.getRanges(sourceFile.getPath(), notNull(affectedVariables));
+			if (previousResults != null && !VariableIndex.coversFile(ranges)) {
+				if (result == null) {
+					result = new ConcurrentHashMap<>();
+				}
+				Set<Formula> deadPcs = new HashSet<>();
+				for (DeadCodeBlock block : notNull(previousResults)) {
+					if (block.getPresenceCondition() != null) {
+						deadPcs.add(notNull(block.getPresenceCondition()));
+					}
+				}
+				for (CodeElement<?> element : sourceFile) {
+					addUnaffectedVerdicts(element, ranges, deadPcs, result);
+				}
+				logDetail(Level.DEBUG, "Reusing ", result.size(), " verdicts of blocks of ", sourceFile.getPath(),
+						" not affected by the change of the variability model");
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the verdicts of the previous run for the given element and its nested
+	 * elements, unless they lie within one of the given line ranges. The
+	 * presence conditions of blocks outside of these ranges do not mention any
+	 * variable affected by the change of the variability model, so their verdicts
+	 * did not change.
+	 * 
+	 * @param element  The element.
+	 * @param ranges   The line ranges of the affected variables, as pairs of start
+	 *                 and end line.
+	 * @param deadPcs  The presence conditions of the dead blocks of the previous
+	 *                 run.
+	 * @param verdicts The store to add the verdicts to.
+	 */
+	private static void addUnaffectedVerdicts(@NonNull CodeElement<?> element, @NonNull int[] ranges,
+			@NonNull Set<Formula> deadPcs, @NonNull Map<Formula, Boolean> verdicts) {
+		if (VariableIndex.isCovered(ranges, element.getLineStart(), element.getLineEnd())) {
+			// all nested elements lie within the same range
+			return;
+		}
+		Formula pc = element.getPresenceCondition();
+		verdicts.put(pc, !deadPcs.contains(pc));
+		for (int i = 0; i < element.getNestedElementCount(); i++) {
+			addUnaffectedVerdicts(element.getNestedElement(i), ranges, deadPcs, verdicts);
+		}
+	}
+
+	/**
+	 * Marks the presence conditions of the given element and its nested elements
+	 * as satisfiable.
+	 * 
+	 * @param element  The element of the previous version of a file.
+	 * @param verdicts The store to add the verdicts to.
+	 */
+	private static void addPreviousVerdicts(@NonNull CodeElement<?> element, @NonNull Map<Formula, Boolean> verdicts) {
+		verdicts.put(element.getPresenceCondition(), true);
+		for (int i = 0; i < element.getNestedElementCount(); i++) {
+			addPreviousVerdicts(element.getNestedElement(i), verdicts);
+		}
+	}
+
+	/**
+	 * Records the results of a source file that was checked completely.
+	 * 
+	 * @param sourceFile The source file.
+	 * @param result     The dead code blocks found in the file.
+	 */
+	protected void finishFile(@NonNull SourceFile<?> sourceFile, @NonNull List<@NonNull DeadCodeBlock> result) {
+		if (resultIndex != null) {
+			resultIndex.put(sourceFile.getPath(), result);
+		}
+		if (variableIndex != null) {
+			variableIndex.put(sourceFile, notNull(bm.getPc(sourceFile.getPath())));
+		}
+	}
 
+	/**
+	 * Passes a source file to the {@link #shardRunner}, if enabled. The variable
+	 * index is updated right away; the results are added to the given list and
+	 * recorded once the workers finished (see {@link #finishShards()}). Verdicts that are known in this JVM,
+	 * i.e. from the given verdicts, the SAT caches or the trivial checks, are
+	 * passed on to the worker. This method is thread-safe.
+	 * 
+	 * @param sourceFile The source file.
+	 * @param filePc     The presence condition of the file.
+	 * @param pcVerdicts The known verdicts for presence conditions of this file;
+	 *                   <code>null</code> if there are none.
+	 * @param result     The list to add the dead code blocks of the file to.
+	 * @return Whether the file was passed to a worker; if not, it has to be
+	 *         checked in this JVM.
+	 */
+	protected boolean submitToShard(@NonNull SourceFile<?> sourceFile, @NonNull Formula filePc,
+			@Nullable Map<Formula, Boolean> pcVerdicts, @NonNull List<@NonNull DeadCodeBlock> result) {
+		ShardedDeadCodeRunner runner = this.shardRunner;
+		if (runner == null) {
+			return false;
+		}
+		RelevancyCache relevancy = this.relevancyCache;
+		SatUtilities satUtils = threadSatUtils.get();
+		Function<Formula, @Nullable Boolean> verdicts = (elementPc) -> {
+			Boolean sat = pcVerdicts != null ? pcVerdicts.get(elementPc) : null;
+			if (sat == null) {
+				Node key = createSatKey(elementPc, filePc, satUtils);
+				sat = lookupVerdict(key, elementPc, filePc, satUtils);
+				if (sat == null) {
+					shardKeys.put(key.toString(), new ShardKey(key, notNull(satUtils.lastFilePcNode).toString(),
+							formulaInterner.canonical(elementPc).toString()));
+				}
 			}
+			return sat;
+		};
+		try {
+			runner.submit(sourceFile, filePc, relevancy != null ? relevancy::isRelevant : null, verdicts, result);
+		} catch (IOException e) {
+			LOGGER.logException("Could not pass " + sourceFile.getPath() + " to a worker; checking it locally", e);
+			return false;
+		}
+		if (variableIndex != null) {
+			variableIndex.put(sourceFile, filePc);
 		}
+		return true;
+	}
 
-		return result;
+	/**
+	 * Updates the variable index for a source file that is skipped because the
+	 * structure of its variability related code blocks did not change. If the
+	 * file was newly extracted, the line ranges of its blocks may still have
+	 * shifted.
+	 * 
+	 * @param sourceFile The skipped source file.
+	 */
+	protected void updateVariableIndex(@NonNull SourceFile<?> sourceFile) {
+		Formula filePc = bm.getPc(sourceFile.getPath());
+		if (variableIndex != null && filePc != null
+				&& hybridCache.getFlags(sourceFile).contains(ChangeFlag.EXTRACTION_CHANGE)) {
+			variableIndex.put(sourceFile, filePc);
+		}
 	}
 
 	/**
-	 * Checks whether the given formula is satisfiable with the variability model.
-	 * Internally, this method has a cache to speed up when the same formula is
-	 * passed to it several times.
+	 * Checks whether the conjunction of the given presence conditions is
+	 * satisfiable with the variability model, using the solver and caches of the
+	 * calling thread (see {@link #isSat(Formula, Formula, SatUtilities)}). The SAT
+	 * caches must be initialized. This method is thread-safe.
 	 * 
-	 * @param pc       The formula to check.
-	 * @param satUtils The sat utils to use.
+	 * @param elementPc The presence condition of the element.
+	 * @param filePc    The presence condition of the file.
 	 * 
 	 * @return Whether the formula is satisfiable with the variability model.
 	 * 
 	 * @throws ConverterException If the conversion to CNF fails.
 	 * @throws SolverException    If the SAT-solver fails.
 	 */
-	private boolean isSat(@NonNull Formula pc, @NonNull SatUtilities satUtils)
+	protected boolean isSat(@NonNull Formula elementPc, @NonNull Formula filePc)
 			throws ConverterException, SolverException {
+		return isSat(elementPc, filePc, threadSatUtils.get());
+	}
 
-		Boolean sat = satUtils.satCache.get(pc);
+	/**
+	 * Checks whether the conjunction of the given presence conditions is
+	 * satisfiable with the variability model. Internally, this method uses a cache
+	 * shared by all threads to speed up when the same formula is passed to it
+	 * several times. The cache is keyed by the canonical form of the formula (see
+	 * {@link FormulaInterner}), so that formulas that only differ in the order or
+	 * duplication of operands share their verdict.
+	 * 
+	 * @param elementPc The presence condition of the element.
+	 * @param filePc    The presence condition of the file.
+	 * @param satUtils  The sat utils to use.
+	 * 
+	 * @return Whether the formula is satisfiable with the variability model.
+	 * 
+	 * @throws ConverterException If the conversion to CNF fails.
+	 * @throws SolverException    If the SAT-solver fails.
+	 */
+	private boolean isSat(@NonNull Formula elementPc, @NonNull Formula filePc, @NonNull SatUtilities satUtils)
+			throws ConverterException, SolverException {
 
+		Node key = createSatKey(elementPc, filePc, satUtils);
+		Boolean sat = lookupVerdict(key, elementPc, filePc, satUtils);
 		if (sat == null) {
-			Cnf pcCnf = satUtils.converter.convert(pc);
+			sat = solve(key, elementPc, filePc, satUtils);
+		}
+
+		// a satisfiable conjunction implies a satisfiable file PC; the key of the file
+		// PC alone is the node of the file PC
+		if (sat) {
+			satUtils.lastFilePcSat = true;
+		} else if (key == satUtils.lastFilePcNode) {
+			satUtils.lastFilePcSat = false;
+		}
+		return sat;
+	}
 
+	/**
+	 * Calls the SAT solver of the calling thread for the conjunction of the given
+	 * presence conditions and stores the verdict (see
+	 * {@link #storeVerdict(Node, Formula, boolean, SatUtilities)}).
+	 * 
+	 * @param key       The SAT cache key of the conjunction of both presence
+	 *                  conditions.
+	 * @param elementPc The presence condition of the element.
+	 * @param filePc    The presence condition of the file.
+	 * @param satUtils  The sat utils of the calling thread.
+	 * 
+	 * @return Whether the formula is satisfiable with the variability model.
+	 * 
+	 * @throws ConverterException If the conversion to CNF fails.
+	 * @throws SolverException    If the SAT-solver fails.
+	 */
+	private boolean solve(@NonNull Node key, @NonNull Formula elementPc, @NonNull Formula filePc,
+			@NonNull SatUtilities satUtils) throws ConverterException, SolverException {
+
+		// only the element PC is converted; the clauses of the file PC are converted
+		// once per run and added to it
+		CnfVariable[][] filePcClauses = getFilePcClauses(filePc, satUtils);
+		Cnf pcCnf = satUtils.converter.convert(elementPc);
+		for (CnfVariable[] clause : filePcClauses) {
+			pcCnf.addRow(clause);
+		}
+
+		if (isLogged(Level.DEBUG)) {
 			String[] cnfLines = pcCnf.toString().split("\n");
 			String[] output = new String[cnfLines.length + 1];
 			System.arraycopy(cnfLines, 0, output, 1, cnfLines.length);
 			output[0] = "PcCnf: ";
 			LOGGER.logDebug(output);
+		}
 
-			sat = satUtils.solver.isSatisfiable(pcCnf);
-			satUtils.satCache.put(pc, sat);
-			LOGGER.logDebug("sat(" + pc + ") = " + sat);
+		long solverStart = System.nanoTime();
+		boolean sat = satUtils.solver.isSatisfiable(pcCnf);
+		statistics.recordSolverTime(System.nanoTime() - solverStart);
+		storeVerdict(key, elementPc, sat, satUtils);
+		return sat;
+	}
+
+	/**
+	 * Creates the SAT cache key for the conjunction of the given presence
+	 * conditions.
+	 * 
+	 * @param elementPc The presence condition of the element.
+	 * @param filePc    The presence condition of the file.
+	 * @param satUtils  The sat utils of the calling thread.
+	 * 
+	 * @return The canonical node of the conjunction.
+	 */
+	private @NonNull Node createSatKey(@NonNull Formula elementPc, @NonNull Formula filePc,
+			@NonNull SatUtilities satUtils) {
+
+		// the elements of a file share their file PC, so its node is only computed once
+		if (satUtils.lastFilePc != filePc) {
+			satUtils.lastFilePcNode = formulaInterner.canonical(filePc);
+			satUtils.lastFilePcClauses = null;
+			satUtils.lastFilePcSat = null;
+			satUtils.lastFilePc = filePc;
 		}
+		return formulaInterner.and(formulaInterner.canonical(elementPc), notNull(satUtils.lastFilePcNode));
+	}
 
+	/**
+	 * Returns the clauses of the given file presence condition. Must be called
+	 * after {@link #createSatKey(Formula, Formula, SatUtilities)} for the same file
+	 * presence condition.
+	 * 
+	 * @param filePc   The presence condition of the file.
+	 * @param satUtils The sat utils of the calling thread.
+	 * 
+	 * @return The clauses of the file presence condition.
+	 * 
+	 * @throws ConverterException If the conversion to CNF fails.
+	 */
+	private @NonNull CnfVariable[][] getFilePcClauses(@NonNull Formula filePc, @NonNull SatUtilities satUtils)
+			throws ConverterException {
+
+		CnfVariable[][] filePcClauses = satUtils.lastFilePcClauses;
+		if (filePcClauses == null) {
+			filePcClauses = filePcCnfCache.get(notNull(satUtils.lastFilePcNode), filePc, satUtils.converter);
+			satUtils.lastFilePcClauses = filePcClauses;
+		}
+		return filePcClauses;
+	}
+
+	/**
+	 * Looks up a verdict without calling the SAT solver: in the SAT cache, with the
+	 * {@link #trivialSatChecker}, from the verdict of the file presence condition
+	 * alone if it is known, and in the persistent SAT cache, in this order.
+	 * 
+	 * @param key       The SAT cache key of the conjunction of both presence
+	 *                  conditions.
+	 * @param elementPc The presence condition of the element.
+	 * @param filePc    The presence condition of the file.
+	 * @param satUtils  The sat utils of the calling thread.
+	 * 
+	 * @return The verdict; <code>null</code> if the solver is needed.
+	 */
+	private @Nullable Boolean lookupVerdict(@NonNull Node key, @NonNull Formula elementPc,
+			@NonNull Formula filePc, @NonNull SatUtilities satUtils) {
+
+		Boolean sat = satUtils.satCache.get(key);
+
+		TrivialSatChecker trivialChecker = this.trivialSatChecker;
+		if (sat == null && trivialChecker != null) {
+			sat = trivialChecker.check(elementPc, filePc);
+			if (sat != null) {
+				statistics.increment(sat ? Counter.TRIVIAL_SAT : Counter.TRIVIAL_UNSAT);
+				satUtils.satCache.put(key, sat);
+			}
+		}
+
+		Boolean filePcSat = satUtils.lastFilePcSat;
+		if (sat == null && trivialChecker != null && filePcSat != null) {
+			sat = trivialChecker.checkWithFilePc(elementPc, filePc, filePcSat);
+			if (sat != null) {
+				statistics.increment(sat ? Counter.FILE_PC_SAT : Counter.FILE_PC_UNSAT);
+				satUtils.satCache.put(key, sat);
+			}
+		}
+
+		if (sat == null && persistentSatCache != null) {
+			sat = persistentSatCache.get(notNull(satUtils.lastFilePcNode).toString(),
+					formulaInterner.canonical(elementPc).toString());
+			if (sat != null) {
+				statistics.increment(Counter.PERSISTENT_SAT_CACHE_HITS);
+				satUtils.satCache.put(key, sat);
+			}
+		}
 		return sat;
 	}
 
+	/**
+	 * Stores a verdict of the SAT solver in the SAT cache and the persistent SAT
+	 * cache. Must be called after
+	 * {@link #createSatKey(Formula, Formula, SatUtilities)} for the same file
+	 * presence condition.
+	 * 
+	 * @param key       The SAT cache key.
+	 * @param elementPc The presence condition of the element.
+	 * @param sat       The verdict.
+	 * @param satUtils  The sat utils of the calling thread.
+	 */
+	private void storeVerdict(@NonNull Node key, @NonNull Formula elementPc, boolean sat,
+			@NonNull SatUtilities satUtils) {
+		satUtils.satCache.put(key, sat);
+		if (persistentSatCache != null) {
+			persistentSatCache.put(notNull(satUtils.lastFilePcNode).toString(),
+					formulaInterner.canonical(elementPc).toString(), sat);
+		}
+		logDetail(Level.DEBUG, "sat(", key, ") = ", sat);
+	}
+
 	/**
 	 * Checks if a given element is dead. Recursively walks over each child element,
 	 * too.
 	 * 
 	 * @param element    The element to check.
 	 * @param filePc     The presence condition of the file.
-	 * @param sourceFile The source file; used for creating the result.
-	 * @param satUtils   The SAT utils to use.
 	 * @param result     The list to add result {@link DeadCodeBlock}s to.
+	 * @param parentPc   The presence condition of the parent element;
+	 *                   <code>null</code> for top-level elements.
+	 * @param parentSat  The verdict of the parent element; <code>null</code> if
+	 *                   unknown or pruning is disabled.
+	 * @param pcVerdicts The verdicts for presence conditions of this file;
+	 *                   <code>null</code> if pruning is disabled.
 	 * 
 	 * @throws ConverterException If converting the formula to CNF fails.
 	 * @throws SolverException    If solving the CNF fails.
+	 * 
+	 * @see #checkSingleElement(CodeElement, Formula, List, Formula, Boolean, Map)
 	 */
-	private void checkElement(@NonNull CodeElement<?> element, @NonNull Formula filePc,
-			@NonNull SourceFile<?> sourceFile, @NonNull SatUtilities satUtils,
-			@NonNull List<@NonNull DeadCodeBlock> result) throws ConverterException, SolverException {
+	protected void checkElement(@NonNull CodeElement<?> element, @NonNull Formula filePc,
+			@NonNull List<@NonNull DeadCodeBlock> result, @Nullable Formula parentPc, @Nullable Boolean parentSat,
+			@Nullable Map<Formula, Boolean> pcVerdicts) throws ConverterException, SolverException {
 
-		Formula pc = new Conjunction(element.getPresenceCondition(), filePc);
-
-		boolean considerBlock = this.relevancyChecker != null
-				? this.relevancyChecker.visit(element.getPresenceCondition())
-				: true;
+		Boolean childParentSat = checkSingleElement(element, filePc, result, parentPc, parentSat, pcVerdicts);
 
-		if (considerBlock && !isSat(pc, satUtils)) {
-			DeadCodeBlock deadBlock = new DeadCodeBlock(element, filePc);
-			LOGGER.logInfo("Found dead block: " + deadBlock);
-			result.add(deadBlock);
-		}
 		int nestedCount = element.getNestedElementCount();
 		for (int i = 0; i < nestedCount; i++) {
 			CodeElement<?> child = element.getNestedElement(i);
-			checkElement(child, filePc, sourceFile, satUtils, result);
+			checkElement(child, filePc, result, element.getPresenceCondition(), childParentSat, pcVerdicts);
+		}
+	}
+
+	/**
+	 * Checks if a given element is dead, without its child elements.
+	 * 
+	 * <p>
+	 * If {@link #hierarchicalPruning} is enabled, the verdict of the parent is
+	 * passed down the tree: children of dead blocks are dead as well, and children
+	 * with the same presence condition as their parent share its verdict. Verdicts
+	 * for presence conditions that already occurred in the file are reused, too.
+	 * None of these cases invoke the solver; the reported blocks are the same as
+	 * without pruning.
+	 * </p>
+	 * 
+	 * @param element    The element to check.
+	 * @param filePc     The presence condition of the file.
+	 * @param result     The list to add result {@link DeadCodeBlock}s to.
+	 * @param parentPc   The presence condition of the parent element;
+	 *                   <code>null</code> for top-level elements.
+	 * @param parentSat  The verdict of the parent element; <code>null</code> if
+	 *                   unknown or pruning is disabled.
+	 * @param pcVerdicts The verdicts for presence conditions of this file (see
+	 *                   {@link #createPcVerdicts(SourceFile)}); <code>null</code>
+	 *                   if neither pruning nor reuse is enabled.
+	 * @return The verdict to pass to the child elements; <code>null</code> if
+	 *         unknown or pruning is disabled.
+	 * 
+	 * @throws ConverterException If converting the formula to CNF fails.
+	 * @throws SolverException    If solving the CNF fails.
+	 */
+	protected @Nullable Boolean checkSingleElement(@NonNull CodeElement<?> element, @NonNull Formula filePc,
+			@NonNull List<@NonNull DeadCodeBlock> result, @Nullable Formula parentPc, @Nullable Boolean parentSat,
+			@Nullable Map<Formula, Boolean> pcVerdicts) throws ConverterException, SolverException {
+
+		Formula elementPc = element.getPresenceCondition();
+
+		boolean considerBlock = this.relevancyCache != null
+				? this.relevancyCache.isRelevant(elementPc)
+				: true;
+
+		Boolean sat = null;
+		if (parentSat != null && (!parentSat || elementPc.equals(parentPc))) {
+			// inherited verdict: children of dead blocks are dead, equal PCs share
+			// their verdict
+			sat = parentSat;
+		} else if (considerBlock && pcVerdicts != null) {
+			sat = pcVerdicts.get(elementPc);
+		}
+
+		if (considerBlock) {
+			statistics.increment(Counter.BLOCKS_CHECKED);
+			if (sat == null) {
+				sat = isSat(elementPc, filePc);
+			}
+			if (pcVerdicts != null) {
+				pcVerdicts.put(elementPc, sat);
+			}
+			if (!sat) {
+				DeadCodeBlock deadBlock = new DeadCodeBlock(element.getSourceFile(), element.getLineStart(),
+						element.getLineEnd(), formulaInterner.share(filePc), formulaInterner.share(elementPc));
+				statistics.increment(Counter.DEAD_BLOCKS);
+				logDetail(Level.INFO, "Found dead block: ", deadBlock);
+				result.add(deadBlock);
+			}
 		}
+
+		// only pass verdicts down if pruning is enabled
+		return hierarchicalPruning ? sat : null;
 	}
 
 	/**
@@ -304,6 +1065,26 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 			this.filePc = null;
 		}
 
+		/**
+		 * Creates a dead code block with all information, e.g. one that was stored in
+		 * a previous run.
+		 * 
+		 * @param sourceFile        The source file.
+		 * @param startLine         The start line of the block.
+		 * @param endLine           The end line of the block.
+		 * @param filePc            The presence condition for the complete file,
+		 *                          maybe <tt>null</tt>
+		 * @param presenceCondition The presence condition of the block, maybe
+		 *                          <tt>null</tt>
+		 */
+		public DeadCodeBlock(@NonNull File sourceFile, int startLine, int endLine, @Nullable Formula filePc,
+				@Nullable Formula presenceCondition) {
+			this(sourceFile, startLine);
+			this.endLine = endLine;
+			this.presenceCondition = presenceCondition;
+			this.filePc = filePc;
+		}
+
 		/**
 		 * Converts a {@link CodeElement} into a {@link DeadCodeBlock}. This constructor
 		 * stores more information.
@@ -405,6 +1186,11 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 	 */
 	protected void loadModelsFromHybridCache() {
 		this.hybridCache = postExtraction.getNextResult();
+		this.selectiveAnalysis = false;
+		this.preparedVmCnf = null;
+		this.affectedVariables = null;
+		this.previousBm = null;
+		this.changedBuildPcs = null;
 		try {
 
 			vm = hybridCache.readVm();
@@ -427,9 +1213,20 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 
 			// if bm or cm changed, we need the entire code model
 			if (buildModelChanged || variabilityModelChanged) {
-				LOGGER.logInfo("Performing a full analysis based on the complete code model."
-						+ " from the current and previous extractions");
-				cm = hybridCache.readCm();
+				Collection<SourceFile<?>> affected = null;
+				if (vmDeltaAnalysis && variabilityModelChanged && !buildModelChanged) {
+					affected = readAffectedCodeModel();
+				} else if (buildModelOptimization && buildModelChanged && !variabilityModelChanged) {
+					affected = readChangedBuildPcCodeModel();
+				}
+				if (affected != null) {
+					selectiveAnalysis = true;
+					cm = affected;
+				} else {
+					LOGGER.logInfo("Performing a full analysis based on the complete code model."
+							+ " from the current and previous extractions");
+					cm = streamCodeModel ? createStreamingCodeModel() : hybridCache.readCm();
+				}
 			} else {
 				// if bm and vm remained the same, we only need the newly
 				// extracted parts of the code model
@@ -443,13 +1240,611 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 		}
 	}
 
+	/**
+	 * Reads the source files that are affected by the change of the variability
+	 * model (see {@link VariabilityModelDelta}), together with all newly extracted
+	 * source files. All other source files keep their results from the previous
+	 * run. This requires a complete {@link VariableIndex} and stored results;
+	 * if either is missing or one of the variability models is unsatisfiable as a
+	 * whole, a full analysis is needed.
+	 * 
+	 * @return The affected source files, or <code>null</code> if a full analysis is
+	 *         needed.
+	 */
+	private @Nullable Collection<SourceFile<?>> readAffectedCodeModel() {
+		if (!carryForwardResults || analysisCacheDir == null) {
+			return null;
+		}
+		Collection<SourceFile<?>> result = null;
+		try {
+			VariableIndex index = new VariableIndex(notNull(analysisCacheDir));
+			index.load();
+			if (!index.isComplete()) {
+				LOGGER.logInfo("No complete variable index from a previous full analysis available.");
+				return null;
+			}
+
+			VariabilityModel previousVm = hybridCache.readPreviousVm();
+			Cnf previousCnf = new VmToCnfConverter().convertVmToCnf(previousVm);
+			Cnf currentCnf = new VmToCnfConverter().convertVmToCnf(notNull(vm));
+			if (!SatSolverFactory.createSolver(previousCnf, false).isSatisfiable(new Cnf())
+					|| !SatSolverFactory.createSolver(currentCnf, false).isSatisfiable(new Cnf())) {
+				LOGGER.logInfo("A variability model is unsatisfiable; all source files are affected.");
+				return null;
+			}
+
+			Set<String> affectedVariables = VariabilityModelDelta.computeAffectedVariables(previousCnf, currentCnf,
+					previousVm.getVariableMap().keySet(), notNull(vm).getVariableMap().keySet());
+			Collection<SourceFile<?>> sourceFiles = readSourceFiles(index.getFiles(affectedVariables));
+
+			LOGGER.logInfo("Performing a selective analysis: " + affectedVariables.size()
+					+ " variables are affected by the change of the variability model, " + sourceFiles.size()
+					+ " of " + index.getPaths().size() + " source files are analyzed.");
+			preparedVmCnf = currentCnf;
+			this.affectedVariables = affectedVariables;
+			result = sourceFiles;
+		} catch (IOException | FormatException | SolverException e) {
+			LOGGER.logException("Could not determine the source files affected by the change of the variability"
+					+ " model", e);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the source files whose build PC changed (see {@link BuildModelDelta}),
+	 * together with all newly extracted source files. The build PCs of both build
+	 * models are compared in parallel before the analysis, so that source files
+	 * with an unchanged build PC are neither read nor handed to the analysis. They
+	 * keep their results from the previous run.
+	 * 
+	 * @return The source files to analyze, or <code>null</code> if the previous
+	 *         build model could not be read.
+	 */
+	private @Nullable Collection<SourceFile<?>> readChangedBuildPcCodeModel() {
+		Collection<SourceFile<?>> result = null;
+		try {
+			previousBm = hybridCache.readPreviousBm();
+			long start = System.nanoTime();
+			Set<String> changed = BuildModelDelta.computeChangedFiles(previousBm, bm);
+			LOGGER.logInfo("Compared the build PCs of " + bm.getSize() + " source files in "
+					+ (System.nanoTime() - start) / 1000000 + " ms; " + changed.size() + " changed.");
+			changedBuildPcs = changed;
+
+			Collection<SourceFile<?>> sourceFiles = readSourceFiles(changed);
+			Set<String> readPaths = new HashSet<>();
+			for (SourceFile<?> sourceFile : sourceFiles) {
+				readPaths.add(sourceFile.getPath().getPath());
+			}
+			long skipped = 0;
+			for (File path : bm) {
+				if (!readPaths.contains(path.getPath())) {
+					skipped++;
+				}
+			}
+			statistics.add(Counter.FILES_SKIPPED_BUILD_PC_UNCHANGED, skipped);
+
+			LOGGER.logInfo("Performing a selective analysis: " + sourceFiles.size() + " of " + bm.getSize()
+					+ " source files are analyzed because their build PC changed or they were newly extracted.");
+			result = sourceFiles;
+		} catch (IOException | FormatException e) {
+			LOGGER.logException("Could not read the previous build model", e);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads all newly extracted source files and the source files with the given
+	 * paths from the hybrid cache.
+	 * 
+	 * @param paths The paths of the source files to read in addition to the newly
+	 *              extracted ones.
+	 * @return The source files.
+	 * 
+	 * @throws IOException     If reading from the hybrid cache fails.
+	 * @throws FormatException If a source file can not be parsed.
+	 */
+	private @NonNull Collection<SourceFile<?>> readSourceFiles(@NonNull Collection<String> paths)
+			throws IOException, FormatException {
+		// newly extracted source files are analyzed in any case
+		Map<String, SourceFile<?>> sourceFiles = new LinkedHashMap<>();
+		for (SourceFile<?> sourceFile : hybridCache.readCmForFlags(ChangeFlag.EXTRACTION_CHANGE)) {
+			sourceFiles.put(sourceFile.getPath().getPath(), sourceFile);
+		}
+		for (String path : new TreeSet<>(paths)) {
+			if (!sourceFiles.containsKey(path)) {
+				SourceFile<?> sourceFile = hybridCache.readCm(new File(path));
+				if (sourceFile != null) {
+					sourceFiles.put(path, sourceFile);
+				}
+			}
+		}
+		return new ArrayList<>(sourceFiles.values());
+	}
+
+	/**
+	 * Creates a code model that reads the source files of the build model lazily.
+	 * Source files without a presence condition in the build model are not
+	 * analyzed in a full analysis anyway, so they need not be read.
+	 * 
+	 * @return The code model.
+	 */
+	private @NonNull Collection<SourceFile<?>> createStreamingCodeModel() {
+		List<@NonNull File> paths = new ArrayList<>();
+		for (File path : bm) {
+			paths.add(path);
+		}
+		LOGGER.logInfo("Reading " + paths.size() + " source files of the code model lazily.");
+		return new StreamingCodeModel(hybridCache, paths);
+	}
+
+	/**
+	 * Checks whether a message of the given level about a single file or block will
+	 * be logged. In {@link #quietMode}, such messages are never logged.
+	 * 
+	 * @param level The level of the message.
+	 * @return Whether the message will be logged.
+	 */
+	protected boolean isLogged(@NonNull Level level) {
+		return !quietMode && LOGGER.getLevel().shouldLog(level);
+	}
+
+	/**
+	 * Logs a message about a single file or block. The message is only built from
+	 * its parts if it will be logged (see {@link #isLogged(Level)}), so that the hot
+	 * path does not create strings that are thrown away.
+	 * 
+	 * @param level The level of the message; either {@link Level#INFO} or
+	 *              {@link Level#DEBUG}.
+	 * @param parts The parts of the message; converted with
+	 *              {@link String#valueOf(Object)}.
+	 */
+	protected void logDetail(@NonNull Level level, @NonNull Object... parts) {
+		if (isLogged(level)) {
+			StringBuilder message = new StringBuilder();
+			for (Object part : parts) {
+				message.append(part);
+			}
+			if (level == Level.DEBUG) {
+				LOGGER.logDebug(message.toString());
+			} else {
+				LOGGER.logInfo(message.toString());
+			}
+		}
+	}
+
+	/**
+	 * Stores the caches and results of this run for later runs and reports the
+	 * statistics of this run.
+	 */
+	protected void finishRun() {
+		long start = System.nanoTime();
+		finishSatCaches();
+		finishResultIndex();
+		finishResultWriter();
+		detectedPreviousFiles.clear();
+		statistics.recordPhase(Phase.FINISH, System.nanoTime() - start);
+		reportStatistics();
+	}
+
+	/**
+	 * Creates the {@link #relevancyChecker} for the current variability model and
+	 * the {@link #relevancyCache} that memoizes its verdicts.
+	 */
+	protected void initializeRelevancyChecker() {
+		relevancyChecker = new LinuxFormulaRelevancyChecker(vm, true);
+		relevancyCache = new RelevancyCache(relevancyChecker, notNull(vm));
+	}
+
+	/**
+	 * Opens the {@link #resultWriter} for this run, if enabled.
+	 */
+	protected void initializeResultWriter() {
+		resultWriter = null;
+		if (spillResults && outputDir != null) {
+			String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
+			File file = new File(outputDir, "IncrementalDeadCodeBlocks_" + timestamp + ".bin.gz");
+			try {
+				resultWriter = new DeadCodeResultWriter(file);
+				LOGGER.logInfo("Writing dead code blocks to " + file);
+			} catch (IOException e) {
+				LOGGER.logException("Could not create " + file + "; passing results on in memory", e);
+			}
+		}
+	}
+
+	/**
+	 * Creates the {@link #shardRunner} for this run, if enabled. The shards are
+	 * written to a new directory in the output directory. If the shards can not
+	 * be created, all source files are checked in this JVM.
+	 */
+	protected void initializeShardRunner() {
+		shardRunner = null;
+		if (shardCount <= 0) {
+			return;
+		}
+		if (outputDir == null) {
+			LOGGER.logWarning("Checking all source files in this JVM, since shards require an output directory.");
+			return;
+		}
+		String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
+		File directory = new File(outputDir, "IncrementalDeadCodeShards_" + timestamp);
+		try {
+			ShardedDeadCodeRunner runner = new ShardedDeadCodeRunner(directory, shardCount, hierarchicalPruning,
+					notNull(vmCnf), satCacheSize);
+			runner.setRetries(shardRetries);
+			runner.setTimeout(shardTimeout);
+			if (shardJvmArgs != null) {
+				runner.setJvmArgs(notNull(shardJvmArgs));
+			}
+			if (shardLaunchers != null) {
+				runner.setLaunchers(Arrays.asList(notNull(shardLaunchers).split(";")));
+			}
+			if (shardClassPath != null) {
+				runner.setClassPath(notNull(shardClassPath));
+			}
+			shardRunner = runner;
+			LOGGER.logInfo("Distributing source files among " + shardCount + " worker JVMs in " + directory);
+		} catch (IOException e) {
+			LOGGER.logException("Could not create shards in " + directory + "; checking all source files in this JVM",
+					e);
+		}
+	}
+
+	/**
+	 * Runs the worker JVMs of the {@link #shardRunner}, if enabled, and records
+	 * the dead code blocks of the source files passed to them. Then, the results
+	 * queued by {@link #emitResults(List)} are passed on in their order. If the
+	 * workers fail, the submitted files are dropped from the {@link #resultIndex},
+	 * so that later runs do not take their outdated results. The verdicts of the
+	 * workers are added to the SAT caches and their solver calls and checked
+	 * blocks to the statistics of this run.
+	 */
+	protected void finishShards() {
+		ShardedDeadCodeRunner runner = shardRunner;
+		if (runner == null) {
+			return;
+		}
+		shardRunner = null;
+		try {
+			runner.run((file, deadBlocks) -> {
+				statistics.add(Counter.DEAD_BLOCKS, deadBlocks.size());
+				if (resultIndex != null) {
+					resultIndex.put(file, deadBlocks);
+				}
+			}, this::addShardVerdicts, this::emitResults);
+		} catch (IOException e) {
+			LOGGER.logException("Sharded analysis failed; the results are incomplete", e);
+			// the previous results of the submitted files are outdated, but their new
+			// results are unknown
+			if (resultIndex != null) {
+				for (String path : runner.getSubmittedPaths()) {
+					resultIndex.remove(new File(path));
+				}
+			}
+		}
+		shardKeys.clear();
+		runner.recordMetrics(statistics);
+	}
+
+	/**
+	 * Adds the verdicts of a worker to the SAT caches and its counters to the
+	 * statistics of this run.
+	 * 
+	 * @param verdicts The verdicts and counters of the worker.
+	 */
+	private void addShardVerdicts(@NonNull ShardVerdicts verdicts) {
+		for (Map.Entry<String, Boolean> verdict : verdicts.getVerdicts().entrySet()) {
+			ShardKey key = shardKeys.get(verdict.getKey());
+			if (key != null) {
+				satCache.put(key.key, verdict.getValue());
+				if (persistentSatCache != null) {
+					persistentSatCache.put(key.filePc, key.elementPc, verdict.getValue());
+				}
+			}
+		}
+		for (long nanos : verdicts.getSolverNanos()) {
+			statistics.recordSolverTime(nanos);
+		}
+		statistics.add(Counter.BLOCKS_CHECKED, verdicts.getBlocksChecked());
+		shardSatCacheHits += verdicts.getSatCacheHits();
+		shardSatCacheMisses += verdicts.getSatCacheMisses();
+	}
+
+	/**
+	 * Passes the given dead code blocks on as results of this component. If
+	 * enabled, they are written to the {@link #resultWriter} instead, so that they
+	 * do not accumulate in memory. While source files are passed to worker JVMs,
+	 * the results are queued in the {@link #shardRunner} instead and passed on in
+	 * the same order in {@link #finishShards()}, so that the results of checked
+	 * and submitted files keep the order of the code model. This method is
+	 * thread-safe.
+	 * 
+	 * @param deadBlocks The dead code blocks.
+	 */
+	protected void emitResults(@NonNull List<@NonNull DeadCodeBlock> deadBlocks) {
+		ShardedDeadCodeRunner runner = shardRunner;
+		if (runner != null) {
+			runner.queueResults(deadBlocks);
+			return;
+		}
+		DeadCodeResultWriter writer = resultWriter;
+		if (writer != null) {
+			try {
+				writer.write(deadBlocks);
+				return;
+			} catch (IOException e) {
+				LOGGER.logException("Could not write dead code blocks; passing results on in memory", e);
+				resultWriter = null;
+			}
+		}
+		for (DeadCodeBlock block : deadBlocks) {
+			addResult(block);
+		}
+	}
+
+	/**
+	 * Closes the {@link #resultWriter} of this run, if enabled.
+	 */
+	protected void finishResultWriter() {
+		DeadCodeResultWriter writer = resultWriter;
+		if (writer != null) {
+			try {
+				writer.close();
+				LOGGER.logInfo("Wrote " + writer.getBlockCount() + " dead code blocks of " + writer.getFileCount()
+						+ " source files.");
+			} catch (IOException e) {
+				LOGGER.logException("Could not finish writing dead code blocks", e);
+			}
+			resultWriter = null;
+		}
+	}
+
+	/**
+	 * Logs the statistics and the usage of the shared SAT cache of this run. If
+	 * enabled, all metrics of this run are written as a CSV table to the output
+	 * directory, too.
+	 */
+	protected void reportStatistics() {
+		// the SAT caches of the workers count as part of the shared SAT cache
+		long hits = satCache.getHits() + shardSatCacheHits;
+		long misses = satCache.getMisses() + shardSatCacheMisses;
+		statistics.setSatCacheCounts(hits, misses);
+		LOGGER.logInfo("Analysis summary: " + statistics.getSummary(),
+				"SAT cache hits: " + hits + ", misses: " + misses);
+
+		if (writeMetrics && outputDir != null) {
+			String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
+			File metricsFile = new File(outputDir, "IncrementalDeadCodeMetrics_" + timestamp + ".csv");
+			try {
+				statistics.writeCsv(metricsFile);
+				LOGGER.logInfo("Wrote metrics of this run to " + metricsFile);
+			} catch (IOException e) {
+				LOGGER.logException("Could not write metrics to " + metricsFile, e);
+			}
+		}
+	}
+
+	/**
+	 * Converts {@link #vm} to CNF. If enabled, the CNF of the previous run is read
+	 * from the {@link CnfCache} instead when the variability model did not change;
+	 * otherwise the newly converted CNF is stored there.
+	 * 
+	 * @return The CNF of the variability model.
+	 * 
+	 * @throws FormatException If the variability model is invalid.
+	 */
+	protected @NonNull Cnf convertVmToCnf() throws FormatException {
+		VariabilityModel model = notNull(vm);
+		CnfCache cache = null;
+		String fingerprint = null;
+		if (cacheVmCnf && analysisCacheDir != null) {
+			cache = new CnfCache(notNull(analysisCacheDir));
+			try {
+				fingerprint = CnfCache.fingerprint(model);
+				Cnf cached = cache.read(fingerprint);
+				if (cached != null) {
+					LOGGER.logInfo("Reusing cached CNF of the unchanged variability model.");
+					return cached;
+				}
+			} catch (IOException e) {
+				LOGGER.logException("Could not read cached CNF of the variability model", e);
+			}
+		}
+
+		Cnf result = preparedVmCnf != null ? preparedVmCnf : new VmToCnfConverter().convertVmToCnf(model);
+		preparedVmCnf = null;
+		if (cache != null && fingerprint != null) {
+			try {
+				cache.write(result, fingerprint);
+			} catch (IOException e) {
+				LOGGER.logException("Could not cache CNF of the variability model", e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the shared SAT cache, prepares the solvers of the worker threads and
+	 * loads the persistent SAT cache, if enabled. All of them are bound to the
+	 * current {@link #vmCnf}; verdicts stored for a different variability model are
+	 * discarded by the persistent cache itself.
+	 */
+	protected void initializeSatCaches() {
+		satCache = new SatCache<>(satCacheSize);
+		shardSatCacheHits = 0;
+		shardSatCacheMisses = 0;
+		formulaInterner = new FormulaInterner();
+		filePcCnfCache = new FilePcCnfCache();
+		Cnf cnf = notNull(vmCnf);
+		threadSatUtils = ThreadLocal.withInitial(() -> new SatUtilities(
+				FormulaToCnfConverterFactory.create(Strategy.RECURISVE_REPLACING),
+				SatSolverFactory.createSolver(cnf, false), satCache));
+		persistentSatCache = null;
+		if (persistSatVerdicts && analysisCacheDir != null && vmCnf != null) {
+			PersistentSatCache cache = new PersistentSatCache(notNull(analysisCacheDir), notNull(vmCnf));
+			try {
+				cache.load();
+				LOGGER.logInfo("Loaded " + cache.size() + " persisted SAT verdicts.");
+			} catch (IOException e) {
+				LOGGER.logException("Could not load persisted SAT verdicts; starting with an empty cache", e);
+			}
+			persistentSatCache = cache;
+		}
+		trivialSatChecker = trivialChecks ? createTrivialSatChecker(cnf) : null;
+	}
+
+	/**
+	 * Creates the checker for trivial presence conditions. Its verdicts are only
+	 * sound for a satisfiable variability model, so the solver is asked once
+	 * whether the variability model is satisfiable at all.
+	 * 
+	 * @param cnf The CNF of the variability model.
+	 * 
+	 * @return The checker; <code>null</code> if the variability model is not
+	 *         satisfiable or the check fails.
+	 */
+	private @Nullable TrivialSatChecker createTrivialSatChecker(@NonNull Cnf cnf) {
+		TrivialSatChecker result = null;
+		try {
+			if (SatSolverFactory.createSolver(cnf, false).isSatisfiable(new Cnf())) {
+				result = TrivialSatChecker.create(cnf);
+			}
+			if (result == null) {
+				LOGGER.logInfo("Trivial checks are disabled, since the variability model is not satisfiable.");
+			}
+		} catch (SolverException e) {
+			LOGGER.logException("Could not check the variability model; trivial checks are disabled", e);
+		}
+		if (result != null) {
+			LOGGER.logInfo("Trivial checks use " + result.getForcedCount() + " forced and "
+					+ result.getConstrainedCount() + " constrained variables of the variability model.");
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the persistent SAT cache to disk, if enabled.
+	 */
+	protected void finishSatCaches() {
+		if (persistentSatCache != null) {
+			try {
+				persistentSatCache.save();
+			} catch (IOException e) {
+				LOGGER.logException("Could not persist SAT verdicts", e);
+			}
+		}
+	}
+
+	/**
+	 * Loads the index of results of previous runs, if enabled.
+	 */
+	protected void initializeResultIndex() {
+		resultIndex = null;
+		seenPaths.clear();
+		detectedPreviousFiles.clear();
+		if (carryForwardResults && analysisCacheDir != null) {
+			DeadCodeResultIndex index = new DeadCodeResultIndex(notNull(analysisCacheDir));
+			try {
+				index.load();
+			} catch (IOException e) {
+				LOGGER.logException("Could not load results of previous runs; starting with an empty index", e);
+			}
+			resultIndex = index;
+		}
+		variableIndex = null;
+		if (maintainVariableIndex && carryForwardResults && analysisCacheDir != null) {
+			VariableIndex index = new VariableIndex(notNull(analysisCacheDir));
+			try {
+				index.load();
+			} catch (IOException e) {
+				LOGGER.logException("Could not load variable index; starting with an empty index", e);
+			}
+			variableIndex = index;
+		}
+	}
+
+	/**
+	 * Returns the results of the previous run for a source file that is skipped in
+	 * this run.
+	 * 
+	 * @param sourceFile The skipped source file.
+	 * @return The dead code blocks from the previous run; empty if the results are
+	 *         not carried forward or unknown.
+	 */
+	protected @NonNull List<@NonNull DeadCodeBlock> carryForwardResults(@NonNull SourceFile<?> sourceFile) {
+		seenPaths.add(sourceFile.getPath().getPath());
+		List<@NonNull DeadCodeBlock> previous = resultIndex != null ? resultIndex.get(sourceFile.getPath()) : null;
+		return previous != null ? previous : new ArrayList<>();
+	}
+
+	/**
+	 * Adds the results of the previous run for all files that were not part of the
+	 * code model of this run and writes the result index to disk. In a full
+	 * analysis, files that are not part of the code model were deleted, so their
+	 * results are dropped instead. Results of files without a build PC are dropped
+	 * as well.
+	 */
+	protected void finishResultIndex() {
+		if (resultIndex == null) {
+			return;
+		}
+		DeadCodeResultIndex index = notNull(resultIndex);
+		boolean fullAnalysis = (buildModelChanged || variabilityModelChanged) && !selectiveAnalysis;
+		if (variableIndex != null) {
+			finishVariableIndex(notNull(variableIndex), fullAnalysis);
+		}
+		for (String path : new ArrayList<>(index.getPaths())) {
+			if (!seenPaths.contains(path)) {
+				File file = new File(path);
+				List<@NonNull DeadCodeBlock> previous = index.get(file);
+				if (fullAnalysis || bm.getPc(file) == null || previous == null) {
+					index.remove(file);
+				} else {
+					emitResults(previous);
+				}
+			}
+		}
+		try {
+			index.save();
+		} catch (IOException e) {
+			LOGGER.logException("Could not persist results for later runs", e);
+		}
+	}
+
+	/**
+	 * Removes deleted source files from the variable index and writes it to disk.
+	 * After a full analysis, the index contains all source files and is marked as
+	 * complete.
+	 * 
+	 * @param index        The variable index.
+	 * @param fullAnalysis Whether this run analyzed the complete code model.
+	 */
+	private void finishVariableIndex(@NonNull VariableIndex index, boolean fullAnalysis) {
+		for (String path : new ArrayList<>(index.getPaths())) {
+			if (!seenPaths.contains(path) && (fullAnalysis || bm.getPc(new File(path)) == null)) {
+				index.remove(new File(path));
+			}
+		}
+		if (fullAnalysis) {
+			index.markComplete();
+		}
+		try {
+			index.save();
+		} catch (IOException e) {
+			LOGGER.logException("Could not persist variable index for later runs", e);
+		}
+	}
+
 	/**
 	 * Execute.
 	 */
 	@Override
 	protected void execute() {
 
+		statistics = new DeadCodeAnalysisStatistics();
+		long phaseStart = System.nanoTime();
 		loadModelsFromHybridCache();
+		statistics.recordPhase(Phase.LOAD_MODELS, System.nanoTime() - phaseStart);
 
 		if (vm == null || bm == null || cm == null) {
 			LOGGER.logError("Couldn't get models: ", "got variability model: " + (vm != null),
@@ -458,13 +1853,20 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 		}
 
 		try {
-			vmCnf = new VmToCnfConverter().convertVmToCnf(notNull(vm));
+			phaseStart = System.nanoTime();
+			vmCnf = convertVmToCnf();
+			statistics.recordPhase(Phase.VM_TO_CNF, System.nanoTime() - phaseStart);
+			phaseStart = System.nanoTime();
+			initializeSatCaches();
+			initializeResultIndex();
+			initializeResultWriter();
+			initializeShardRunner();
 
 			// If only variability related variables should be considered, the
 			// set of considered SourceFile elements is reduced to the source files
 			// that were changed in regards to their variability information
 			if (findDcbForVariabilityRelatedPcsOnly) {
-				relevancyChecker = new LinuxFormulaRelevancyChecker(vm, true);
+				initializeRelevancyChecker();
 			}
 
 			SourceFileDifferenceDetector detector = null;
@@ -483,11 +1885,13 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 				boolean analyzeSourceFile = true;
 				if (reduceCodeModel) {
 					try {
-						analyzeSourceFile = detector.isDifferent(sourceFile,
-								hybridCache.readPreviousCm(sourceFile.getPath()));
+						analyzeSourceFile = detectChange(sourceFile, detector);
 						if (!analyzeSourceFile) {
-							LOGGER.logInfo("Skipping" + sourceFile.getPath()
-									+ " because the structure of variability related code blocks did not change");
+							statistics.increment(Counter.FILES_SKIPPED_CODE_UNCHANGED);
+							logDetail(Level.INFO, "Skipping ", sourceFile.getPath(),
+									" because the structure of variability related code blocks did not change");
+							emitResults(carryForwardResults(sourceFile));
+							updateVariableIndex(sourceFile);
 						}
 
 					} catch (IOException e) {
@@ -496,12 +1900,12 @@ public class IncrementalDeadCodeFinder extends AnalysisComponent<DeadCodeBlock>
 				}
 
 				if (analyzeSourceFile) {
-					List<@NonNull DeadCodeBlock> deadBlocks = findDeadCodeBlocks(sourceFile);
-					for (DeadCodeBlock block : deadBlocks) {
-						addResult(block);
-					}
+					emitResults(findDeadCodeBlocks(sourceFile));
 				}
 			}
+			finishShards();
+			statistics.recordPhase(Phase.ANALYSIS, System.nanoTime() - phaseStart);
+			finishRun();
 
 		} catch (FormatException e) {
 			LOGGER.logException("Invalid variability model", e);
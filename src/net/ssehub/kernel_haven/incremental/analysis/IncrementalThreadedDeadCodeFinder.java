@@ -2,21 +2,31 @@ package net.ssehub.kernel_haven.incremental.analysis;
 
 import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
 import net.ssehub.kernel_haven.SetUpException;
 import net.ssehub.kernel_haven.analysis.AnalysisComponent;
-import net.ssehub.kernel_haven.cnf.VmToCnfConverter;
+import net.ssehub.kernel_haven.build_model.BuildModel;
 import net.ssehub.kernel_haven.code_model.SourceFile;
 import net.ssehub.kernel_haven.config.Configuration;
+import net.ssehub.kernel_haven.incremental.analysis.DeadCodeAnalysisStatistics.Counter;
+import net.ssehub.kernel_haven.incremental.analysis.DeadCodeAnalysisStatistics.Phase;
+import net.ssehub.kernel_haven.incremental.analysis.IncrementalDeadCodeAnalysisSettings.SchedulingStrategy;
 import net.ssehub.kernel_haven.incremental.storage.HybridCache;
-import net.ssehub.kernel_haven.incremental.util.LinuxFormulaRelevancyChecker;
 import net.ssehub.kernel_haven.incremental.util.SourceFileDifferenceDetector;
 import net.ssehub.kernel_haven.incremental.util.SourceFileDifferenceDetector.Consideration;
 import net.ssehub.kernel_haven.util.FormatException;
+import net.ssehub.kernel_haven.util.Logger.Level;
 import net.ssehub.kernel_haven.util.OrderPreservingParallelizer;
 import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
 
 /**
  * Incremental and multithreaded version of
@@ -26,9 +36,33 @@ import net.ssehub.kernel_haven.util.null_checks.NonNull;
  */
 public class IncrementalThreadedDeadCodeFinder extends IncrementalDeadCodeFinder {
 
+    /** The number of streamed source files per thread that may wait for or be in analysis. */
+    private static final int MAX_FILES_IN_FLIGHT_PER_THREAD = 2;
+
     /** The num threads. */
     private int numThreads;
 
+    /** How the source files are distributed over the threads. */
+    private @NonNull SchedulingStrategy scheduling;
+
+    /** Whether results are passed on in code model order. */
+    private boolean deterministicOutput;
+
+    /** The number of threads that detect changes in the code model. */
+    private int detectionThreads;
+
+    /** The maximum number of source files in flight in the change detection. */
+    private int detectionPrefetch;
+
+    /** Whether the number of analysis threads is adjusted during the run by a {@link ThreadCountTuner}. */
+    private boolean autoThreads;
+
+    /**
+     * Whether code models are read on virtual threads while the code blocks are checked on {@link #numThreads}
+     * threads sized to the number of available processors.
+     */
+    private boolean virtualThreads;
+
     /**
      * Creates a dead code analysis.
      *
@@ -41,7 +75,35 @@ public class IncrementalThreadedDeadCodeFinder extends IncrementalDeadCodeFinder
         super(config, postExtraction);
         IncrementalDeadCodeAnalysisSettings.registerAllSettings(config);
 
-        numThreads = config.getValue(IncrementalDeadCodeAnalysisSettings.NUMBER_OF_THREADS);
+        scheduling = config.getValue(IncrementalDeadCodeAnalysisSettings.SCHEDULING);
+        deterministicOutput = config.getValue(IncrementalDeadCodeAnalysisSettings.DETERMINISTIC_OUTPUT);
+        detectionThreads = config.getValue(IncrementalDeadCodeAnalysisSettings.DETECTION_THREADS);
+        detectionPrefetch = config.getValue(IncrementalDeadCodeAnalysisSettings.DETECTION_PREFETCH);
+        virtualThreads = config.getValue(IncrementalDeadCodeAnalysisSettings.VIRTUAL_THREADS);
+
+        String threadsKey = IncrementalDeadCodeAnalysisSettings.NUMBER_OF_THREADS.getKey();
+        String threads = config.getValue(IncrementalDeadCodeAnalysisSettings.NUMBER_OF_THREADS).trim();
+        autoThreads = threads.equalsIgnoreCase(IncrementalDeadCodeAnalysisSettings.AUTO_THREADS);
+        if (!autoThreads) {
+            try {
+                numThreads = Integer.parseInt(threads);
+            } catch (NumberFormatException e) {
+                numThreads = 0;
+            }
+            if (numThreads < 1) {
+                throw new SetUpException("Invalid value for " + threadsKey + ": " + threads + "; must be >= 1 or "
+                        + IncrementalDeadCodeAnalysisSettings.AUTO_THREADS);
+            }
+        }
+        if (virtualThreads || autoThreads) {
+            // reading is moved off the analysis threads, so these are only needed for CPU-bound work
+            if (!autoThreads && config.getProperty(threadsKey) != null) {
+                LOGGER.logWarning("Ignoring " + threadsKey + " = " + threads + ", as "
+                        + IncrementalDeadCodeAnalysisSettings.VIRTUAL_THREADS.getKey()
+                        + " uses one analysis thread per available processor.");
+            }
+            numThreads = Runtime.getRuntime().availableProcessors();
+        }
 
     }
 
@@ -53,7 +115,10 @@ public class IncrementalThreadedDeadCodeFinder extends IncrementalDeadCodeFinder
      */
     @Override
     protected void execute() {
+        statistics = new DeadCodeAnalysisStatistics();
+        long phaseStart = System.nanoTime();
         loadModelsFromHybridCache();
+        statistics.recordPhase(Phase.LOAD_MODELS, System.nanoTime() - phaseStart);
 
         if (vm == null || bm == null || cm == null) {
             LOGGER.logError("Couldn't get models: ", "got variability model: " + (vm != null),
@@ -62,7 +127,14 @@ public class IncrementalThreadedDeadCodeFinder extends IncrementalDeadCodeFinder
         }
 
         try {
-            vmCnf = new VmToCnfConverter().convertVmToCnf(notNull(vm));
+            phaseStart = System.nanoTime();
+            vmCnf = convertVmToCnf();
+            statistics.recordPhase(Phase.VM_TO_CNF, System.nanoTime() - phaseStart);
+            phaseStart = System.nanoTime();
+            initializeSatCaches();
+            initializeResultIndex();
+            initializeResultWriter();
+            initializeShardRunner();
 
             /*
              * If option to only consider variability related items was selected,
@@ -72,7 +144,7 @@ public class IncrementalThreadedDeadCodeFinder extends IncrementalDeadCodeFinder
              * null, all blocks will be considered for analysis.
              */
             if (findDcbForVariabilityRelatedPcsOnly) {
-                relevancyChecker = new LinuxFormulaRelevancyChecker(vm, true);
+                initializeRelevancyChecker();
             }
 
             /*
@@ -100,42 +172,22 @@ public class IncrementalThreadedDeadCodeFinder extends IncrementalDeadCodeFinder
                 }
             }
 
-            LOGGER.logInfo("Dead Code Detection will be performed using " + numThreads + " Threads.");
-            
-            OrderPreservingParallelizer<SourceFile<?>, List<@NonNull DeadCodeBlock>> parallelizer =
-                    new OrderPreservingParallelizer<>(this::findDeadCodeBlocks, (deadBlocks) -> {
-                        for (DeadCodeBlock block : deadBlocks) {
-                            addResult(block);
-                        }
-                    }, numThreads);
-
-            int sourceFilesCovered = 0;
-            // Feed parallelizer with input
-            for (SourceFile<?> sourceFile : cm) {
-                boolean analyzeSourceFile = true;
-                if (reduceCodeModel) {
-                    try {
-                        /*
-                         * Check if we have to analyze the file by detecting changes between previous
-                         * and current version of codemodel
-                         */
-                        analyzeSourceFile =
-                                detector.isDifferent(sourceFile, hybridCache.readPreviousCm(sourceFile.getPath()));
-                    } catch (IOException e) {
-                        LOGGER.logException("Could not read previous code model for path " + sourceFile.getPath(), e);
-                    }
-                }
-                if (analyzeSourceFile) {
-                    sourceFilesCovered++;
-                    parallelizer.add(sourceFile);
-                } else {
-                    LOGGER.logDebug("Skipping " + sourceFile.getPath()
-                            + " because it introduced no variability related changes.");
-                }
+            if (autoThreads && scheduling == SchedulingStrategy.ORDERED) {
+                LOGGER.logInfo("Dead Code Detection will be performed using an automatically tuned number of"
+                        + " Threads, starting with " + numThreads + ".");
+            } else {
+                LOGGER.logInfo("Dead Code Detection will be performed using " + numThreads + " Threads.");
+            }
+            if (virtualThreads) {
+                LOGGER.logInfo("Code models are read on " + (IoExecutors.supportsVirtualThreads()
+                        ? "virtual threads." : "a cached thread pool, as this JVM does not support virtual threads."));
             }
+            
+            int sourceFilesCovered = analyzeSourceFiles(reduceCodeModel ? detector : null);
 
-            parallelizer.end();
-            parallelizer.join();
+            finishShards();
+            statistics.recordPhase(Phase.ANALYSIS, System.nanoTime() - phaseStart);
+            finishRun();
             LOGGER.logInfo("Analysis finished covering " + sourceFilesCovered + " source files.");
 
         } catch (FormatException e) {
@@ -144,6 +196,266 @@ public class IncrementalThreadedDeadCodeFinder extends IncrementalDeadCodeFinder
 
     }
 
+    /**
+     * Analyzes the source files of the code model with the configured {@link SchedulingStrategy}. The models, the SAT
+     * caches and the statistics must be initialized.
+     *
+     * @param detector The detector used to skip unchanged source files; <code>null</code> if no files are skipped.
+     * @return The number of source files passed on for analysis.
+     */
+    int analyzeSourceFiles(@Nullable SourceFileDifferenceDetector detector) {
+        int sourceFilesCovered;
+        boolean workStealing = scheduling == SchedulingStrategy.WORK_STEALING;
+        if (workStealing && cm instanceof StreamingCodeModel) {
+            // work stealing needs all source files up front to order them by cost
+            LOGGER.logInfo("Using ORDERED scheduling, as the code model is streamed.");
+            workStealing = false;
+        } else if (workStealing && shardRunner != null) {
+            // the worker JVMs balance the load among themselves
+            LOGGER.logInfo("Using ORDERED scheduling, as source files are checked by worker JVMs.");
+            workStealing = false;
+        }
+        if (workStealing) {
+            if (autoThreads) {
+                LOGGER.logWarning("The number of threads is not tuned for WORK_STEALING scheduling; using " + numThreads
+                        + " threads instead of " + IncrementalDeadCodeAnalysisSettings.NUMBER_OF_THREADS.getKey()
+                        + " = " + IncrementalDeadCodeAnalysisSettings.AUTO_THREADS + ".");
+            }
+            sourceFilesCovered = runWorkStealing(detector);
+        } else if (autoThreads) {
+            sourceFilesCovered = runTuned(detector);
+        } else {
+            sourceFilesCovered = runOrdered(detector);
+        }
+        if (!autoThreads || workStealing) {
+            statistics.setMetric("threads.final", numThreads);
+        }
+        return sourceFilesCovered;
+    }
+
+    /**
+     * Feeds the source files in code model order into an {@link OrderPreservingParallelizer}. If the code model is
+     * streamed, at most {@link #MAX_FILES_IN_FLIGHT_PER_THREAD} source files per thread are handed to the parallelizer
+     * before their results are passed on, so that the source files are not all held in its queue.
+     *
+     * @param detector The detector used to skip unchanged source files; <code>null</code> if no files are skipped.
+     * @return The number of source files passed on for analysis.
+     */
+    private int runOrdered(@Nullable SourceFileDifferenceDetector detector) {
+        Semaphore inFlight = cm instanceof StreamingCodeModel
+                ? new Semaphore(MAX_FILES_IN_FLIGHT_PER_THREAD * numThreads) : null;
+        OrderPreservingParallelizer<SourceFile<?>, List<@NonNull DeadCodeBlock>> parallelizer =
+                new OrderPreservingParallelizer<>(this::findDeadCodeBlocks, (deadBlocks) -> {
+                    emitResults(deadBlocks);
+                    if (inFlight != null) {
+                        inFlight.release();
+                    }
+                }, numThreads);
+
+        // Feed parallelizer with input
+        int sourceFilesCovered = selectSourceFiles(detector, (sourceFile) -> {
+            if (inFlight != null) {
+                inFlight.acquireUninterruptibly();
+            }
+            parallelizer.add(sourceFile);
+        });
+
+        parallelizer.end();
+        parallelizer.join();
+        return sourceFilesCovered;
+    }
+
+    /**
+     * Analyzes the source files in code model order on the pool of a {@link ThreadCountTuner}, which adjusts the
+     * number of threads during the run. The chosen numbers of threads are recorded in the statistics.
+     *
+     * @param detector The detector used to skip unchanged source files; <code>null</code> if no files are skipped.
+     * @return The number of source files passed on for analysis.
+     */
+    private int runTuned(@Nullable SourceFileDifferenceDetector detector) {
+        int sourceFilesCovered;
+        try (ThreadCountTuner tuner = new ThreadCountTuner()) {
+            int maxInFlight = MAX_FILES_IN_FLIGHT_PER_THREAD * tuner.getMaxThreads();
+            Semaphore inFlight = cm instanceof StreamingCodeModel ? new Semaphore(maxInFlight) : null;
+            OrderedPrefetchStage<SourceFile<?>, List<@NonNull DeadCodeBlock>> stage = new OrderedPrefetchStage<>(
+                (sourceFile) -> {
+                    List<@NonNull DeadCodeBlock> deadBlocks = findDeadCodeBlocks(sourceFile);
+                    tuner.fileFinished();
+                    return deadBlocks;
+                },
+                (sourceFile, deadBlocks) -> {
+                    // if the analysis failed, the exception was logged by the stage
+                    if (deadBlocks != null) {
+                        emitResults(deadBlocks);
+                    }
+                    if (inFlight != null) {
+                        inFlight.release();
+                    }
+                }, tuner.getPool(), maxInFlight);
+
+            sourceFilesCovered = selectSourceFiles(detector, (sourceFile) -> {
+                if (inFlight != null) {
+                    inFlight.acquireUninterruptibly();
+                }
+                stage.add(sourceFile);
+            });
+            stage.end();
+            stage.join();
+            tuner.recordMetrics(statistics);
+        }
+        return sourceFilesCovered;
+    }
+
+    /**
+     * Analyzes the source files with a {@link WorkStealingScheduler}. The timings of this run are stored for the
+     * cost estimation of the next run, if the cache directory is configured; timings of source files that are no
+     * longer in the build model are dropped.
+     *
+     * @param detector The detector used to skip unchanged source files; <code>null</code> if no files are skipped.
+     * @return The number of source files passed on for analysis.
+     */
+    private int runWorkStealing(@Nullable SourceFileDifferenceDetector detector) {
+        List<SourceFile<?>> sourceFiles = new ArrayList<>();
+        selectSourceFiles(detector, sourceFiles::add);
+
+        FileTimings timings = null;
+        if (analysisCacheDir != null) {
+            timings = new FileTimings(notNull(analysisCacheDir));
+            try {
+                timings.load();
+            } catch (IOException e) {
+                LOGGER.logException("Could not load timings of the previous run", e);
+            }
+        }
+
+        new WorkStealingScheduler(this, numThreads, timings, deterministicOutput, this::emitResults)
+                .run(sourceFiles);
+
+        if (timings != null) {
+            BuildModel buildModel = bm;
+            timings.retain(path -> buildModel.getPc(path) != null);
+            try {
+                timings.save();
+            } catch (IOException e) {
+                LOGGER.logException("Could not store timings of this run", e);
+            }
+        }
+        return sourceFiles.size();
+    }
+
+    /**
+     * Passes all source files of the code model that need to be analyzed to the given target, in code model order.
+     * If a detector is given, the previous code model of each source file is read and compared on
+     * {@link #detectionThreads} threads, with at most {@link #detectionPrefetch} files in flight. This overlaps the
+     * change detection with the analysis of the files already passed on. Results of skipped source files are carried
+     * forward, if enabled.
+     *
+     * @param detector The detector used to skip unchanged source files; <code>null</code> if no files are skipped.
+     * @param target   Receives the source files to analyze; called by a single thread.
+     * @return The number of source files passed to the target.
+     */
+    private int selectSourceFiles(@Nullable SourceFileDifferenceDetector detector,
+            @NonNull Consumer<SourceFile<?>> target) {
+        int[] selected = {0};
+        if (detector == null && virtualThreads && cm instanceof StreamingCodeModel) {
+            return readAhead((StreamingCodeModel) cm, target);
+        }
+        if (detector == null) {
+            for (SourceFile<?> sourceFile : cm) {
+                selected[0]++;
+                target.accept(sourceFile);
+            }
+            return selected[0];
+        }
+
+        ExecutorService executor = virtualThreads
+                ? IoExecutors.create() : Executors.newFixedThreadPool(detectionThreads);
+        try {
+            OrderedPrefetchStage<SourceFile<?>, Boolean> stage = new OrderedPrefetchStage<>(
+                (sourceFile) -> isDifferent(sourceFile, detector),
+                (sourceFile, different) -> {
+                    // if the detection failed, the source file is analyzed
+                    if (different == null || different) {
+                        selected[0]++;
+                        target.accept(sourceFile);
+                    } else {
+                        skipSourceFile(sourceFile);
+                    }
+                }, executor, detectionPrefetch);
+            for (SourceFile<?> sourceFile : cm) {
+                stage.add(sourceFile);
+            }
+            stage.end();
+            stage.join();
+        } finally {
+            executor.shutdown();
+        }
+        return selected[0];
+    }
+
+    /**
+     * Passes all source files of a streamed code model to the given target, in code model order. The source files
+     * are read from the hybrid cache on an {@link IoExecutors} executor, at most
+     * {@link #MAX_FILES_IN_FLIGHT_PER_THREAD} per analysis thread ahead of the target.
+     *
+     * @param model  The streamed code model.
+     * @param target Receives the source files to analyze; called by a single thread.
+     * @return The number of source files passed to the target.
+     */
+    private int readAhead(@NonNull StreamingCodeModel model, @NonNull Consumer<SourceFile<?>> target) {
+        int[] selected = {0};
+        ExecutorService executor = IoExecutors.create();
+        try {
+            OrderedPrefetchStage<File, SourceFile<?>> stage = new OrderedPrefetchStage<>(model::read,
+                (path, sourceFile) -> {
+                    if (sourceFile != null) {
+                        selected[0]++;
+                        target.accept(sourceFile);
+                    }
+                }, executor, MAX_FILES_IN_FLIGHT_PER_THREAD * numThreads);
+            for (File path : model.getPaths()) {
+                stage.add(path);
+            }
+            stage.end();
+            stage.join();
+        } finally {
+            executor.shutdown();
+        }
+        return selected[0];
+    }
+
+    /**
+     * Detects changes between the previous and current version of the given source file. This method is
+     * thread-safe.
+     *
+     * @param sourceFile The source file.
+     * @param detector   The detector.
+     * @return Whether the source file needs to be analyzed.
+     */
+    private boolean isDifferent(@NonNull SourceFile<?> sourceFile, @NonNull SourceFileDifferenceDetector detector) {
+        boolean analyzeSourceFile = true;
+        try {
+            analyzeSourceFile = detectChange(sourceFile, detector);
+        } catch (IOException e) {
+            LOGGER.logException("Could not read previous code model for path " + sourceFile.getPath(), e);
+        }
+        return analyzeSourceFile;
+    }
+
+    /**
+     * Skips a source file that introduced no variability related changes. Its results are carried forward, if
+     * enabled.
+     *
+     * @param sourceFile The source file.
+     */
+    private void skipSourceFile(@NonNull SourceFile<?> sourceFile) {
+        statistics.increment(Counter.FILES_SKIPPED_CODE_UNCHANGED);
+        logDetail(Level.DEBUG, "Skipping ", sourceFile.getPath(),
+                " because it introduced no variability related changes.");
+        emitResults(carryForwardResults(sourceFile));
+        updateVariableIndex(sourceFile);
+    }
+
     /*
      * (non-Javadoc)
      * 
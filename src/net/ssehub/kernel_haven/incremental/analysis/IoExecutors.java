@@ -0,0 +1,87 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.ssehub.kernel_haven.util.Logger;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Creates executors for I/O-bound tasks. On JVMs that support virtual threads (Java 21 and later), each task runs on
+ * its own virtual thread, so that tasks blocking on I/O do not occupy a platform thread. On older JVMs, a cached pool
+ * of daemon platform threads is used instead. In both cases, the number of concurrent tasks must be bounded by the
+ * caller.
+ *
+ * @author Moritz
+ */
+public class IoExecutors {
+
+    /** The logger. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** The factory method for virtual thread executors; <code>null</code> if not supported by this JVM. */
+    private static final @Nullable Method VIRTUAL_THREAD_FACTORY = findVirtualThreadFactory();
+
+    /** Numbers the platform threads of the fallback executors. */
+    private static final @NonNull AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    /**
+     * Utility class; don't allow any instances.
+     */
+    private IoExecutors() {
+    }
+
+    /**
+     * Looks up <code>Executors.newVirtualThreadPerTaskExecutor()</code>.
+     *
+     * @return The method; <code>null</code> if this JVM does not support virtual threads.
+     */
+    private static @Nullable Method findVirtualThreadFactory() {
+        Method result = null;
+        try {
+            result = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            // JVM older than Java 21
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether this JVM supports virtual threads.
+     *
+     * @return Whether executors created by this class use virtual threads.
+     */
+    public static boolean supportsVirtualThreads() {
+        return VIRTUAL_THREAD_FACTORY != null;
+    }
+
+    /**
+     * Creates an executor for I/O-bound tasks. The executor must be shut down by the caller.
+     *
+     * @return A virtual thread per task executor, or a cached pool of daemon platform threads if this JVM does not
+     *      support virtual threads.
+     */
+    public static @NonNull ExecutorService create() {
+        ExecutorService result = null;
+        if (VIRTUAL_THREAD_FACTORY != null) {
+            try {
+                result = (ExecutorService) VIRTUAL_THREAD_FACTORY.invoke(null);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                LOGGER.logException("Could not create virtual thread executor; using platform threads", e);
+            }
+        }
+        if (result == null) {
+            result = Executors.newCachedThreadPool((runnable) -> {
+                Thread thread = new Thread(runnable, "IoExecutors-" + THREAD_NUMBER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,163 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import net.ssehub.kernel_haven.util.Logger;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * A pipeline stage that applies a function to its inputs on an {@link ExecutorService} and passes each input together
+ * with its output to a consumer, in input order. At most a fixed number of inputs are in flight;
+ * {@link #add(Object)} blocks once this limit is reached, so that the stage never runs further ahead of its consumer
+ * than that. Usage is the same as for the <code>OrderPreservingParallelizer</code>: {@link #add(Object)} all inputs,
+ * then call {@link #end()} and {@link #join()}.
+ *
+ * @param <I> The type of the inputs.
+ * @param <O> The type of the outputs.
+ *
+ * @author Moritz
+ */
+public class OrderedPrefetchStage<I, O> {
+
+    /** The logger. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** Marks the end of the input in {@link #inFlight}. */
+    private static final Pending<?, ?> END = new Pending<>(null, new CompletableFuture<>());
+
+    /** The function applied to each input. */
+    private @NonNull Function<I, O> function;
+
+    /** The executor that runs the function. */
+    private @NonNull ExecutorService executor;
+
+    /** The pending inputs with their outputs, in input order. */
+    private @NonNull BlockingQueue<Pending<I, O>> inFlight;
+
+    /** The thread that passes the outputs to the consumer. */
+    private @NonNull Thread consumerThread;
+
+    /**
+     * Creates and starts the stage.
+     *
+     * @param function The function to apply to each input. If it throws an exception, the consumer receives
+     *                 <code>null</code> for this input.
+     * @param consumer Receives each input with its output, in input order; called by a single thread. If it throws
+     *                 an exception, the exception is logged and the next input is passed on.
+     * @param executor The executor that runs the function; not shut down by this stage.
+     * @param prefetch The maximum number of inputs in flight; must be &gt;= 1.
+     */
+    public OrderedPrefetchStage(@NonNull Function<I, O> function, @NonNull BiConsumer<I, @Nullable O> consumer,
+            @NonNull ExecutorService executor, int prefetch) {
+        this.function = function;
+        this.executor = executor;
+        // one additional slot for the end marker
+        this.inFlight = new ArrayBlockingQueue<>(prefetch + 1);
+        this.consumerThread = new Thread(() -> consume(consumer), "OrderedPrefetchStage-consumer");
+        this.consumerThread.start();
+    }
+
+    /**
+     * Takes the outputs in input order and passes them to the consumer until the end marker is reached.
+     *
+     * @param consumer The consumer.
+     */
+    private void consume(@NonNull BiConsumer<I, @Nullable O> consumer) {
+        try {
+            Pending<I, O> next;
+            while ((next = inFlight.take()) != END) {
+                O output = null;
+                try {
+                    output = next.output.get();
+                } catch (ExecutionException e) {
+                    LOGGER.logException("Exception in pipeline stage", e.getCause());
+                }
+                // keep draining after a failure, otherwise add() blocks forever and later inputs are lost
+                // checkstyle: stop exception type check
+                try {
+                    consumer.accept(next.input, output);
+                } catch (Throwable e) {
+                    LOGGER.logException("Exception in consumer of pipeline stage", e);
+                }
+                // checkstyle: resume exception type check
+            }
+        } catch (InterruptedException e) {
+            LOGGER.logException("Pipeline stage was interrupted", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds an input. Blocks while the maximum number of inputs is in flight.
+     *
+     * @param input The input.
+     */
+    public void add(I input) {
+        Future<O> output = executor.submit(() -> function.apply(input));
+        try {
+            inFlight.put(new Pending<>(input, output));
+        } catch (InterruptedException e) {
+            output.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Signals that no further inputs will be added.
+     */
+    @SuppressWarnings("unchecked")
+    public void end() {
+        try {
+            inFlight.put((Pending<I, O>) END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until all outputs are passed to the consumer. Must be called after {@link #end()}.
+     */
+    public void join() {
+        try {
+            consumerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * An input together with its pending output.
+     *
+     * @param <I> The type of the input.
+     * @param <O> The type of the output.
+     */
+    private static class Pending<I, O> {
+
+        /** The input. */
+        private I input;
+
+        /** The pending output. */
+        private @NonNull Future<O> output;
+
+        /**
+         * Creates a pending output.
+         *
+         * @param input  The input.
+         * @param output The pending output.
+         */
+        Pending(I input, @NonNull Future<O> output) {
+            this.input = input;
+            this.output = output;
+        }
+
+    }
+
+}
@@ -0,0 +1,352 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.CnfVariable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * On-disk store for SAT verdicts that survives between incremental runs. Verdicts are only valid for the variability
+ * model they were computed with, so the store is keyed by a fingerprint of the variability model CNF. Stores written
+ * for a different fingerprint are deleted when loading. Verdicts that were not used in the last
+ * {@link #MAX_IDLE_RUNS} runs are dropped when saving, so that the store does not grow with every formula ever
+ * checked. Verdicts are grouped by the presence condition of their file, so that the canonical string of each file
+ * presence condition is only held and stored once, followed by the canonical strings of the element presence
+ * conditions checked against it. This class is thread-safe.
+ *
+ * @author Moritz
+ */
+public class PersistentSatCache {
+
+    /** Prefix for the files written by this cache. */
+    private static final @NonNull String FILE_PREFIX = "sat_verdicts_";
+
+    /**
+     * Version of the keys; part of the file name, so that files with keys of an older version are deleted when
+     * loading.
+     */
+    private static final @NonNull String KEY_VERSION = "c3_";
+
+    /** The number of runs after which an unused verdict is dropped. */
+    private static final int MAX_IDLE_RUNS = 10;
+
+    /** Suffix for the files written by this cache. */
+    private static final @NonNull String FILE_SUFFIX = ".bin.gz";
+
+    /** The directory in which the cache is stored. */
+    private @NonNull File directory;
+
+    /** The fingerprint of the variability model CNF. */
+    private @NonNull String vmFingerprint;
+
+    /**
+     * The verdicts, keyed by the canonical string of the file presence condition and then by the canonical string of
+     * the element presence condition.
+     */
+    private @NonNull Map<String, Map<String, Verdict>> verdicts = new ConcurrentHashMap<>();
+
+    /** The number of the current run; counts the runs since the store was created. */
+    private int run;
+
+    /**
+     * A stored verdict with the number of the last run it was used in.
+     */
+    private static final class Verdict {
+
+        /** Whether the formula is satisfiable. */
+        private final boolean sat;
+
+        /** The number of the last run that used this verdict. */
+        private volatile int lastUsed;
+
+        /**
+         * Creates a verdict.
+         *
+         * @param sat      Whether the formula is satisfiable.
+         * @param lastUsed The number of the last run that used this verdict.
+         */
+        private Verdict(boolean sat, int lastUsed) {
+            this.sat = sat;
+            this.lastUsed = lastUsed;
+        }
+
+    }
+
+    /** Whether verdicts were added since loading. */
+    private volatile boolean modified;
+
+    /**
+     * Creates a persistent SAT cache. Call {@link #load()} to read previously stored verdicts.
+     *
+     * @param directory The directory to store the verdicts in.
+     * @param vmCnf     The CNF of the variability model that all verdicts are computed against.
+     */
+    public PersistentSatCache(@NonNull File directory, @NonNull Cnf vmCnf) {
+        this.directory = directory;
+        this.vmFingerprint = fingerprint(vmCnf);
+    }
+
+    /**
+     * Computes a fingerprint for the given CNF.
+     *
+     * @param cnf The CNF to compute the fingerprint for.
+     * @return The hexadecimal fingerprint.
+     */
+    public static @NonNull String fingerprint(@NonNull Cnf cnf) {
+        MessageDigest digest = createDigest();
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < cnf.getRowCount(); i++) {
+            row.setLength(0);
+            List<CnfVariable> variables = cnf.getRow(i);
+            for (CnfVariable variable : variables) {
+                if (variable.isNegation()) {
+                    row.append('-');
+                }
+                row.append(variable.getName()).append(' ');
+            }
+            row.append('\n');
+            digest.update(row.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Creates the message digest used for fingerprints.
+     *
+     * @return A SHA-256 message digest.
+     */
+    static @NonNull MessageDigest createDigest() {
+        try {
+            return notNull(MessageDigest.getInstance("SHA-256"));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is mandatory for every JVM implementation
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Converts a digest to a hexadecimal string.
+     *
+     * @param digest The digest.
+     * @return The hexadecimal string.
+     */
+    static @NonNull String toHex(@NonNull byte[] digest) {
+        StringBuilder result = new StringBuilder();
+        for (byte b : digest) {
+            result.append(String.format("%02x", b));
+        }
+        return notNull(result.toString());
+    }
+
+    /**
+     * Returns the file that verdicts for the current variability model are stored in.
+     *
+     * @return The cache file.
+     */
+    private @NonNull File getCacheFile() {
+        return new File(directory, FILE_PREFIX + KEY_VERSION + vmFingerprint + FILE_SUFFIX);
+    }
+
+    /**
+     * Loads previously stored verdicts for the current variability model. Stored verdicts of other variability models
+     * are deleted, as they can never become valid again.
+     *
+     * @throws IOException If reading the cache file fails.
+     */
+    public void load() throws IOException {
+        File cacheFile = getCacheFile();
+        File[] existing = directory.listFiles();
+        if (existing != null) {
+            for (File file : existing) {
+                if (file.getName().startsWith(FILE_PREFIX) && !file.equals(cacheFile)) {
+                    if (!file.delete()) {
+                        throw new IOException("Could not delete outdated SAT cache " + file);
+                    }
+                }
+            }
+        }
+
+        verdicts.clear();
+        run = 0;
+        if (cacheFile.isFile()) {
+            Map<String, Map<String, Verdict>> loaded = new HashMap<>();
+            int previousRun;
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new GZIPInputStream(new FileInputStream(cacheFile))))) {
+                previousRun = in.readInt();
+                int filePcCount = readCount(in, cacheFile);
+                for (int i = 0; i < filePcCount; i++) {
+                    String filePc = readKey(in, cacheFile);
+                    Map<String, Verdict> fileVerdicts = new ConcurrentHashMap<>();
+                    int count = readCount(in, cacheFile);
+                    for (int j = 0; j < count; j++) {
+                        boolean sat = in.readBoolean();
+                        int lastUsed = in.readInt();
+                        fileVerdicts.put(readKey(in, cacheFile), new Verdict(sat, lastUsed));
+                    }
+                    loaded.put(filePc, fileVerdicts);
+                }
+            }
+            verdicts.putAll(loaded);
+            run = previousRun + 1;
+        }
+        // the run counter is stored with the verdicts, so every run has to be saved
+        modified = true;
+    }
+
+    /**
+     * Reads a count from the cache file.
+     *
+     * @param in        The input to read from.
+     * @param cacheFile The cache file, for the error message.
+     * @return The count.
+     *
+     * @throws IOException If reading fails or the count is negative.
+     */
+    private static int readCount(@NonNull DataInputStream in, @NonNull File cacheFile) throws IOException {
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Corrupt SAT cache " + cacheFile);
+        }
+        return count;
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 key from the cache file.
+     *
+     * @param in        The input to read from.
+     * @param cacheFile The cache file, for the error message.
+     * @return The key.
+     *
+     * @throws IOException If reading fails or the length is negative.
+     */
+    private static @NonNull String readKey(@NonNull DataInputStream in, @NonNull File cacheFile) throws IOException {
+        byte[] key = new byte[readCount(in, cacheFile)];
+        in.readFully(key);
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 key to the cache file.
+     *
+     * @param out The output to write to.
+     * @param key The key.
+     *
+     * @throws IOException If writing fails.
+     */
+    private static void writeKey(@NonNull DataOutputStream out, @NonNull String key) throws IOException {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes all verdicts to disk if verdicts were added or used since loading. Verdicts that were not used in the
+     * last {@link #MAX_IDLE_RUNS} runs are dropped.
+     *
+     * @throws IOException If writing the cache file fails.
+     */
+    public void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        File cacheFile = getCacheFile();
+        File tmpFile = new File(directory, cacheFile.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(tmpFile))))) {
+            // snapshot, so that the counts match the written entries
+            Map<String, Map<String, Verdict>> snapshot = new HashMap<>();
+            for (Map.Entry<String, Map<String, Verdict>> file : verdicts.entrySet()) {
+                Map<String, Verdict> fileVerdicts = new HashMap<>(file.getValue());
+                fileVerdicts.values().removeIf((verdict) -> run - verdict.lastUsed >= MAX_IDLE_RUNS);
+                if (!fileVerdicts.isEmpty()) {
+                    snapshot.put(file.getKey(), fileVerdicts);
+                }
+            }
+            out.writeInt(run);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Map<String, Verdict>> file : snapshot.entrySet()) {
+                writeKey(out, file.getKey());
+                out.writeInt(file.getValue().size());
+                for (Map.Entry<String, Verdict> entry : file.getValue().entrySet()) {
+                    out.writeBoolean(entry.getValue().sat);
+                    out.writeInt(entry.getValue().lastUsed);
+                    writeKey(out, entry.getKey());
+                }
+            }
+        }
+        if (cacheFile.exists() && !cacheFile.delete() || !tmpFile.renameTo(cacheFile)) {
+            throw new IOException("Could not replace SAT cache " + cacheFile);
+        }
+        modified = false;
+    }
+
+    /**
+     * Returns the stored verdict for the conjunction of the given presence conditions.
+     *
+     * @param filePc    The canonical string of the file presence condition (see
+     *                  {@link FormulaInterner.Node#toString()}).
+     * @param elementPc The canonical string of the element presence condition.
+     * @return The stored verdict or <code>null</code> if the conjunction was never solved.
+     */
+    public @Nullable Boolean get(@NonNull String filePc, @NonNull String elementPc) {
+        Map<String, Verdict> fileVerdicts = verdicts.get(filePc);
+        Verdict verdict = fileVerdicts != null ? fileVerdicts.get(elementPc) : null;
+        Boolean result = null;
+        if (verdict != null) {
+            verdict.lastUsed = run;
+            result = verdict.sat;
+        }
+        return result;
+    }
+
+    /**
+     * Stores the verdict for the conjunction of the given presence conditions.
+     *
+     * @param filePc    The canonical string of the file presence condition (see
+     *                  {@link FormulaInterner.Node#toString()}).
+     * @param elementPc The canonical string of the element presence condition.
+     * @param sat       Whether the conjunction is satisfiable with the variability model.
+     */
+    public void put(@NonNull String filePc, @NonNull String elementPc, boolean sat) {
+        Map<String, Verdict> fileVerdicts = verdicts.computeIfAbsent(filePc, (key) -> new ConcurrentHashMap<>());
+        if (fileVerdicts.put(elementPc, new Verdict(sat, run)) == null) {
+            modified = true;
+        }
+    }
+
+    /**
+     * Returns the number of stored verdicts.
+     *
+     * @return The number of verdicts.
+     */
+    public int size() {
+        int result = 0;
+        for (Map<String, Verdict> fileVerdicts : verdicts.values()) {
+            result += fileVerdicts.size();
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,183 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.ssehub.kernel_haven.incremental.util.LinuxFormulaRelevancyChecker;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.variability_model.VariabilityModel;
+
+/**
+ * Memoizes the verdicts of a {@link LinuxFormulaRelevancyChecker}. A formula is relevant if one of its variables is
+ * relevant, so the checker only needs to be asked once per variable. The verdicts of all variables of the variability
+ * model are computed once, when the cache is created, and kept in a sorted array that is only read afterwards.
+ * Variables that are not part of the variability model are cached like presence conditions. This class is
+ * thread-safe.
+ *
+ * <p>
+ * The verdicts of whole presence conditions are cached by identity in a {@link BoundedCache}. The presence
+ * condition of a nested block is usually the conjunction of the presence condition object of its parent with its
+ * own condition, so the verdict of the parent part is found in the cache and only the condition is traversed.
+ * </p>
+ *
+ * @author Moritz
+ */
+public class RelevancyCache {
+
+    /** The maximum number of presence conditions whose verdicts are cached. */
+    private static final int FORMULA_CACHE_SIZE = 1 << 16;
+
+    /** The Linux suffix of variables for tristate options that are built as modules. */
+    private static final @NonNull String MODULE_SUFFIX = "_MODULE";
+
+    /** The checker that decides the relevancy of single variables. */
+    private @NonNull LinuxFormulaRelevancyChecker checker;
+
+    /** The names of the variables of the variability model, sorted. */
+    private @NonNull String[] variableNames;
+
+    /** The verdict of each variable in {@link #variableNames}, at the same index. */
+    private @NonNull boolean[] variableVerdicts;
+
+    /** The verdicts of presence conditions and of variables unknown to the variability model, by identity. */
+    private @NonNull BoundedCache<IdentityKey, Boolean> formulas = new BoundedCache<>(FORMULA_CACHE_SIZE);
+
+    /** The verdict of constants. */
+    private boolean constantsRelevant;
+
+    /**
+     * A key that compares formulas by identity, so that lookups don't traverse the formula for
+     * {@link Formula#hashCode()} or {@link Formula#equals(Object)}.
+     */
+    private static final class IdentityKey {
+
+        /** The formula. */
+        private @NonNull Formula formula;
+
+        /**
+         * Creates a key.
+         *
+         * @param formula The formula.
+         */
+        private IdentityKey(@NonNull Formula formula) {
+            this.formula = formula;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(formula);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof IdentityKey && ((IdentityKey) obj).formula == formula;
+        }
+
+    }
+
+    /**
+     * Creates a relevancy cache.
+     *
+     * @param checker The checker to memoize.
+     * @param vm      The variability model; the verdicts of its variables are computed up front.
+     */
+    public RelevancyCache(@NonNull LinuxFormulaRelevancyChecker checker, @NonNull VariabilityModel vm) {
+        this.checker = checker;
+        Set<String> names = new TreeSet<>();
+        for (String name : vm.getVariableMap().keySet()) {
+            names.add(name);
+            names.add(name + MODULE_SUFFIX);
+        }
+        variableNames = notNull(names.toArray(new String[names.size()]));
+        variableVerdicts = new boolean[variableNames.length];
+        for (int i = 0; i < variableNames.length; i++) {
+            variableVerdicts[i] = checker.visitVariable(new Variable(variableNames[i]));
+        }
+        constantsRelevant = checker.visitTrue(True.INSTANCE) || checker.visitFalse(False.INSTANCE);
+    }
+
+    /**
+     * Returns whether the given presence condition is relevant.
+     *
+     * @param pc The presence condition.
+     * @return Whether the presence condition is relevant.
+     */
+    public boolean isRelevant(@NonNull Formula pc) {
+        IdentityKey key = new IdentityKey(pc);
+        Boolean result = formulas.get(key);
+        if (result == null) {
+            result = compute(pc);
+            formulas.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Computes whether a formula is relevant. Cached verdicts of operands are used, but not updated.
+     *
+     * @param formula The formula.
+     * @return Whether the formula contains a relevant variable.
+     */
+    private boolean compute(@NonNull Formula formula) {
+        boolean result;
+        if (formula instanceof Variable) {
+            result = lookupVariable((Variable) formula);
+        } else if (formula instanceof Negation) {
+            result = compute(((Negation) formula).getFormula());
+        } else if (formula instanceof Conjunction) {
+            result = computeOperand(((Conjunction) formula).getLeft())
+                    || computeOperand(((Conjunction) formula).getRight());
+        } else if (formula instanceof Disjunction) {
+            result = computeOperand(((Disjunction) formula).getLeft())
+                    || computeOperand(((Disjunction) formula).getRight());
+        } else if (formula instanceof True || formula instanceof False) {
+            result = constantsRelevant;
+        } else {
+            result = checker.visit(formula);
+        }
+        return result;
+    }
+
+    /**
+     * Computes whether an operand of a binary operator is relevant, using its cached verdict if there is one.
+     *
+     * @param operand The operand.
+     * @return Whether the operand contains a relevant variable.
+     */
+    private boolean computeOperand(@NonNull Formula operand) {
+        Boolean cached = operand instanceof Variable ? null : formulas.get(new IdentityKey(operand));
+        return cached != null ? cached : compute(operand);
+    }
+
+    /**
+     * Returns the verdict of a single variable. Variables that are not part of the variability model are passed to
+     * the checker and cached by identity.
+     *
+     * @param variable The variable.
+     * @return Whether the variable is relevant.
+     */
+    private boolean lookupVariable(@NonNull Variable variable) {
+        int index = Arrays.binarySearch(variableNames, variable.getName());
+        if (index >= 0) {
+            return variableVerdicts[index];
+        }
+        IdentityKey key = new IdentityKey(variable);
+        Boolean result = formulas.get(key);
+        if (result == null) {
+            result = checker.visitVariable(variable);
+            formulas.put(key, result);
+        }
+        return result;
+    }
+
+}
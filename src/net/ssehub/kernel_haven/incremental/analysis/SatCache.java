@@ -0,0 +1,22 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+/**
+ * A bounded cache for SAT verdicts that is shared by all worker threads of an analysis. See {@link BoundedCache} for
+ * how entries are locked and evicted.
+ *
+ * @param <K> The type of the keys.
+ *
+ * @author Moritz
+ */
+public class SatCache<K> extends BoundedCache<K, Boolean> {
+
+    /**
+     * Creates a SAT cache.
+     *
+     * @param maxSize The maximum number of verdicts held by this cache. Must be &gt;= 1.
+     */
+    public SatCache(int maxSize) {
+        super(maxSize);
+    }
+
+}
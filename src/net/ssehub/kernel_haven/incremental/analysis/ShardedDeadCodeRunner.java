@@ -0,0 +1,660 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.SatSolverFactory;
+import net.ssehub.kernel_haven.code_model.CodeElement;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.incremental.analysis.DeadCodeShardWorker.ShardVerdicts;
+import net.ssehub.kernel_haven.incremental.analysis.DeadCodeShardWorker.ShardWriter;
+import net.ssehub.kernel_haven.incremental.analysis.IncrementalDeadCodeFinder.DeadCodeBlock;
+import net.ssehub.kernel_haven.util.Logger;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Distributes the source files of a run over several worker JVMs (see {@link DeadCodeShardWorker}) and merges their
+ * results. Each worker has its own heap, so the garbage collection of one worker does not stop the others.
+ *
+ * <p>
+ * Source files are submitted while the code model is read and are written to the shard with the lowest estimated
+ * cost so far; the cost of a file is estimated by the number of its elements. Thus, the coordinator does not hold
+ * the code model in memory. Once all files are submitted, {@link #run(BiConsumer, Consumer, Consumer)} starts one
+ * worker per shard and waits for all of them. Shards whose worker fails or exceeds the timeout set by
+ * {@link #setTimeout(int)} are started again up to {@link #setRetries(int)} times, and are finally checked in this
+ * JVM. If all workers succeed, the work directory is deleted afterwards; otherwise, it is kept with the logs of the
+ * workers.
+ * </p>
+ *
+ * <p>
+ * To keep the order of the results, the results of source files checked in this JVM are queued with
+ * {@link #queueResults(List)} as well, in the order in which they are passed on; the results of submitted files are
+ * queued as the (still empty) lists given to {@link #submit(SourceFile, Formula, Predicate, Function, List)}, which
+ * are filled once the workers finished.
+ * </p>
+ *
+ * <p>
+ * All files are exchanged through the work directory, so workers may run on other hosts if they share this directory
+ * under the same path and have the same Java installation and class path. Such workers are started through a
+ * command prefix like <code>ssh host</code> (see {@link #setLaunchers(List)}).
+ * </p>
+ *
+ * <p>
+ * KernelHaven loads plugins with their own class loaders, so the class path of this JVM usually lacks this plugin and
+ * its dependencies. Therefore, the class path of the workers is assembled from the URLs of the class loaders of this
+ * plugin and the locations of the classes that the workers need, followed by the class path of this JVM (see
+ * {@link #createClassPath()}); it may be replaced with {@link #setClassPath(String)}.
+ * </p>
+ *
+ * @author Moritz
+ */
+public class ShardedDeadCodeRunner {
+
+    /** The logger. */
+    private static final Logger LOGGER = Logger.get();
+
+    /**
+     * The number of seconds the coordinator waits for a worker beyond the timeout, before it stops the worker process.
+     * Workers stop themselves once the timeout passed; this gives a worker started through a launcher the time to do
+     * so, since stopping the launcher process may not stop the worker on the other host.
+     */
+    private static final int TIMEOUT_GRACE_SECONDS = 30;
+
+    /** The work directory. */
+    private @NonNull File directory;
+
+    /** The fingerprint of the CNF of the variability model, passed on to the workers to verify the CNF. */
+    private @NonNull String vmFingerprint;
+
+    /** The writers of the shard files; <code>null</code> once all files are submitted. */
+    private @Nullable ShardWriter[] writers;
+
+    /** The estimated cost of each shard. */
+    private @NonNull long[] costs;
+
+    /** The result lists of the submitted source files by their paths, in submission order. */
+    private @NonNull Map<String, List<@NonNull DeadCodeBlock>> submitted = new LinkedHashMap<>();
+
+    /** The queued results, in the order in which they are passed on. */
+    private @NonNull List<List<@NonNull DeadCodeBlock>> queuedResults = new ArrayList<>();
+
+    /** The number of times a failed shard is started again. */
+    private int retries;
+
+    /** The number of seconds a worker may run before it is stopped and counted as failed; 0 for no limit. */
+    private int timeout;
+
+    /** The command prefixes to start workers with, used in turn; empty to start workers directly. */
+    private @NonNull List<List<String>> launchers = new ArrayList<>();
+
+    /** Additional arguments for the JVMs of the workers. */
+    private @NonNull List<String> jvmArgs = new ArrayList<>();
+
+    /** The class path of the workers. */
+    private @NonNull String classPath = createClassPath();
+
+    /** The number of started worker processes, including retries. */
+    private int startedWorkers;
+
+    /** The number of shards that were checked in this JVM, because their workers failed. */
+    private int localShards;
+
+    /**
+     * Creates the shards in the given work directory.
+     *
+     * @param directory           The work directory; created if it does not exist.
+     * @param shardCount          The number of shards. Must be >= 1.
+     * @param hierarchicalPruning Whether the workers may consider children of dead elements dead without checking
+     *                            them.
+     * @param vmCnf               The CNF of the variability model.
+     * @param satCacheSize        The maximum number of verdicts held by the SAT cache of each worker.
+     *
+     * @throws IOException If the work directory or the shard files can not be created.
+     */
+    public ShardedDeadCodeRunner(@NonNull File directory, int shardCount, boolean hierarchicalPruning,
+            @NonNull Cnf vmCnf, int satCacheSize) throws IOException {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Number of shards must be >= 1: " + shardCount);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        this.directory = directory;
+        this.vmFingerprint = PersistentSatCache.fingerprint(vmCnf);
+        new CnfCache(directory).write(vmCnf, vmFingerprint);
+
+        ShardWriter[] writers = new ShardWriter[shardCount];
+        try {
+            for (int i = 0; i < shardCount; i++) {
+                writers[i] = new ShardWriter(getShardFile(i), hierarchicalPruning, satCacheSize);
+            }
+        } catch (IOException e) {
+            for (ShardWriter writer : writers) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+            throw e;
+        }
+        this.writers = writers;
+        this.costs = new long[shardCount];
+    }
+
+    /**
+     * Sets the number of times a failed shard is started again before it is checked in this JVM.
+     *
+     * @param retries The number of retries. Must be >= 0.
+     */
+    public void setRetries(int retries) {
+        this.retries = Math.max(retries, 0);
+    }
+
+    /**
+     * Sets the number of seconds a worker may run. Workers that run longer are stopped and count as failed. The
+     * timeout is passed to the workers, which stop themselves once it passed; this also works for workers on other
+     * hosts. The worker processes are additionally stopped by this JVM {@link #TIMEOUT_GRACE_SECONDS} seconds later.
+     *
+     * @param timeout The timeout in seconds; 0 or less for no limit.
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = Math.max(timeout, 0);
+    }
+
+    /**
+     * Sets the command prefixes to start the workers with. Shard <code>i</code> is started with the prefix
+     * <code>i % launchers.size()</code>; an empty list starts all workers directly on this host.
+     *
+     * @param launchers The command prefixes, each split into its arguments at white space.
+     */
+    public void setLaunchers(@NonNull List<String> launchers) {
+        this.launchers = new ArrayList<>();
+        for (String launcher : launchers) {
+            List<String> prefix = splitArguments(launcher);
+            if (!prefix.isEmpty()) {
+                this.launchers.add(prefix);
+            }
+        }
+    }
+
+    /**
+     * Sets additional arguments for the JVMs of the workers, e.g. their maximum heap size.
+     *
+     * @param jvmArgs The arguments, separated by white space.
+     */
+    public void setJvmArgs(@NonNull String jvmArgs) {
+        this.jvmArgs = splitArguments(jvmArgs);
+    }
+
+    /**
+     * Sets the class path of the workers, replacing the one assembled by {@link #createClassPath()}.
+     *
+     * @param classPath The class path, with entries separated by the path separator of the platform.
+     */
+    public void setClassPath(@NonNull String classPath) {
+        this.classPath = classPath;
+    }
+
+    /**
+     * Assembles the class path for the workers: the URLs of the class loaders of this plugin, the locations of the
+     * classes that the workers need from KernelHaven and CnfUtils, and the class path of this JVM. Locations that are
+     * no local files are skipped.
+     *
+     * @return The class path, with entries separated by the path separator of the platform.
+     */
+    static @NonNull String createClassPath() {
+        Set<String> entries = new LinkedHashSet<>();
+        for (ClassLoader loader = DeadCodeShardWorker.class.getClassLoader(); loader != null;
+                loader = loader.getParent()) {
+            if (loader instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) loader).getURLs()) {
+                    addLocation(entries, url);
+                }
+            }
+        }
+        for (Class<?> type : Arrays.asList(DeadCodeShardWorker.class, Formula.class, Cnf.class,
+                SatSolverFactory.class)) {
+            CodeSource source = type.getProtectionDomain().getCodeSource();
+            if (source != null) {
+                addLocation(entries, source.getLocation());
+            }
+        }
+        for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                entries.add(new File(entry).getAbsolutePath());
+            }
+        }
+        return notNull(String.join(File.pathSeparator, entries));
+    }
+
+    /**
+     * Adds the local file of the given location to the class path entries.
+     *
+     * @param entries  The class path entries.
+     * @param location The location of a class path entry; skipped if it is <code>null</code> or no local file.
+     */
+    private static void addLocation(@NonNull Set<String> entries, @Nullable URL location) {
+        if (location != null && "file".equals(location.getProtocol())) {
+            try {
+                entries.add(new File(location.toURI()).getAbsolutePath());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                LOGGER.logWarning("Skipping class path entry " + location + " of the workers: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Splits a string into arguments at white space.
+     *
+     * @param arguments The string.
+     * @return The arguments.
+     */
+    private static @NonNull List<String> splitArguments(@NonNull String arguments) {
+        String trimmed = arguments.trim();
+        return trimmed.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(trimmed.split("\\s+")));
+    }
+
+    /**
+     * Adds a source file to the shard with the lowest estimated cost. This method is thread-safe.
+     *
+     * @param sourceFile The source file.
+     * @param filePc     The presence condition of the file.
+     * @param relevant   Decides whether the presence condition of an element is relevant; <code>null</code> if all
+     *                   elements are relevant.
+     * @param verdicts   Returns the known verdict for the presence condition of a relevant element of this file, or
+     *                   <code>null</code> if the worker has to check it; <code>null</code> if no verdicts are known.
+     * @param result     The list to add the dead code blocks of the file to, once the workers finished.
+     *
+     * @throws IOException If writing the shard file fails.
+     */
+    public void submit(@NonNull SourceFile<?> sourceFile, @NonNull Formula filePc,
+            @Nullable Predicate<Formula> relevant, @Nullable Function<Formula, @Nullable Boolean> verdicts,
+            @NonNull List<@NonNull DeadCodeBlock> result) throws IOException {
+        long cost = 1;
+        for (CodeElement<?> element : sourceFile) {
+            cost += countElements(element);
+        }
+
+        ShardWriter writer;
+        synchronized (costs) {
+            ShardWriter[] writers = this.writers;
+            if (writers == null) {
+                throw new IllegalStateException("All source files were submitted already");
+            }
+            int shard = 0;
+            for (int i = 1; i < costs.length; i++) {
+                if (costs[i] < costs[shard]) {
+                    shard = i;
+                }
+            }
+            costs[shard] += cost;
+            writer = writers[shard];
+        }
+        synchronized (writer) {
+            writer.write(sourceFile, filePc, relevant, verdicts);
+        }
+        synchronized (submitted) {
+            submitted.put(sourceFile.getPath().getPath(), result);
+        }
+    }
+
+    /**
+     * Returns the paths of the submitted source files, in submission order.
+     *
+     * @return The paths of the submitted source files.
+     */
+    public @NonNull List<String> getSubmittedPaths() {
+        synchronized (submitted) {
+            return new ArrayList<>(submitted.keySet());
+        }
+    }
+
+    /**
+     * Queues the results of a source file to be passed on by {@link #run(BiConsumer, Consumer, Consumer)}. For
+     * submitted files, this is the list given to {@link #submit(SourceFile, Formula, Predicate, Function, List)}.
+     * This method is thread-safe; the results are passed on in the order of the calls.
+     *
+     * @param deadBlocks The dead code blocks of a source file.
+     */
+    public void queueResults(@NonNull List<@NonNull DeadCodeBlock> deadBlocks) {
+        synchronized (queuedResults) {
+            queuedResults.add(deadBlocks);
+        }
+    }
+
+    /**
+     * Counts an element and all of its nested elements.
+     *
+     * @param element The element.
+     * @return The number of elements.
+     */
+    private static long countElements(@NonNull CodeElement<?> element) {
+        long result = 1;
+        for (int i = 0; i < element.getNestedElementCount(); i++) {
+            result += countElements(element.getNestedElement(i));
+        }
+        return result;
+    }
+
+    /**
+     * Checks all shards and passes on the dead code blocks of each submitted source file in submission order,
+     * including an empty list for files without dead code blocks, and the verdicts of the solver calls of each shard.
+     * Then, all queued results are passed on in the order in which they were queued; this happens even if checking
+     * the shards fails, in which case the results of the submitted files are empty. Afterwards, the shard, result
+     * and verdict files are deleted. If no worker failed, the CNF, the logs of the workers and the work
+     * directory are deleted as well; otherwise, they are kept to inspect the failures.
+     *
+     * @param consumer        Receives each submitted source file with its dead code blocks.
+     * @param verdictConsumer Receives the verdicts and counters of each shard.
+     * @param resultConsumer  Receives the queued results.
+     *
+     * @throws IOException If a shard can neither be checked by a worker nor in this JVM.
+     */
+    public void run(@NonNull BiConsumer<File, List<@NonNull DeadCodeBlock>> consumer,
+            @NonNull Consumer<ShardVerdicts> verdictConsumer,
+            @NonNull Consumer<List<@NonNull DeadCodeBlock>> resultConsumer) throws IOException {
+        try {
+            checkShards(consumer, verdictConsumer);
+        } finally {
+            synchronized (queuedResults) {
+                for (List<@NonNull DeadCodeBlock> deadBlocks : queuedResults) {
+                    resultConsumer.accept(deadBlocks);
+                }
+                queuedResults.clear();
+            }
+        }
+    }
+
+    /**
+     * Checks all shards, fills the result lists of the submitted source files and passes them on in submission
+     * order (see {@link #run(BiConsumer, Consumer, Consumer)}).
+     *
+     * @param consumer        Receives each submitted source file with its dead code blocks.
+     * @param verdictConsumer Receives the verdicts and counters of each shard.
+     *
+     * @throws IOException If a shard can neither be checked by a worker nor in this JVM.
+     */
+    private void checkShards(@NonNull BiConsumer<File, List<@NonNull DeadCodeBlock>> consumer,
+            @NonNull Consumer<ShardVerdicts> verdictConsumer) throws IOException {
+        ShardWriter[] writers;
+        synchronized (costs) {
+            writers = this.writers;
+            this.writers = null;
+        }
+        if (writers == null) {
+            throw new IllegalStateException("Shards were checked already");
+        }
+        for (ShardWriter writer : writers) {
+            synchronized (writer) {
+                writer.close();
+            }
+        }
+
+        Map<String, List<@NonNull DeadCodeBlock>> results = new HashMap<>();
+        List<ShardVerdicts> verdicts = new ArrayList<>();
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < writers.length; i++) {
+            pending.add(i);
+        }
+        boolean failures = false;
+        for (int attempt = 0; attempt <= retries && !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                LOGGER.logWarning("Starting the workers of shards " + pending + " again (retry " + attempt + " of "
+                        + retries + ")");
+            }
+            pending = runWorkers(pending, results, verdicts);
+            failures |= !pending.isEmpty();
+        }
+        for (int shard : pending) {
+            LOGGER.logWarning("Checking shard " + shard + " in this JVM, since its worker failed; see "
+                    + getLogFile(shard));
+            DeadCodeShardWorker.analyze(directory, vmFingerprint, getShardFile(shard), getResultFile(shard),
+                    getVerdictFile(shard));
+            if (!readResults(shard, results, verdicts)) {
+                throw new IOException("Could not read the results of shard " + shard);
+            }
+            localShards++;
+        }
+
+        synchronized (submitted) {
+            for (Map.Entry<String, List<@NonNull DeadCodeBlock>> entry : submitted.entrySet()) {
+                List<@NonNull DeadCodeBlock> deadBlocks = results.get(entry.getKey());
+                List<@NonNull DeadCodeBlock> result = notNull(entry.getValue());
+                if (deadBlocks != null) {
+                    result.addAll(deadBlocks);
+                }
+                consumer.accept(new File(entry.getKey()), result);
+            }
+        }
+        for (ShardVerdicts shardVerdicts : verdicts) {
+            verdictConsumer.accept(shardVerdicts);
+        }
+
+        for (int i = 0; i < writers.length; i++) {
+            getShardFile(i).delete();
+            getResultFile(i).delete();
+            getVerdictFile(i).delete();
+        }
+        if (failures) {
+            LOGGER.logInfo("Keeping the logs of the workers in " + directory);
+        } else {
+            deleteDirectory(writers.length);
+        }
+    }
+
+    /**
+     * Deletes the CNF, the logs of the workers and the work directory. Failures are only logged, since the results
+     * are complete already.
+     *
+     * @param shardCount The number of shards.
+     */
+    private void deleteDirectory(int shardCount) {
+        try {
+            new CnfCache(directory).delete();
+        } catch (IOException e) {
+            LOGGER.logException("Could not delete the CNF in " + directory, e);
+        }
+        for (int i = 0; i < shardCount; i++) {
+            getLogFile(i).delete();
+        }
+        if (!directory.delete()) {
+            LOGGER.logWarning("Could not delete the work directory " + directory);
+        }
+    }
+
+    /**
+     * Starts one worker for each of the given shards, waits for all of them and reads their results.
+     *
+     * @param shards   The shards to check.
+     * @param results  The results to add the dead code blocks of successful shards to, by path.
+     * @param verdicts The list to add the verdicts of successful shards to.
+     * @return The shards whose workers failed or exceeded the timeout.
+     *
+     * @throws IOException If waiting for the workers is interrupted.
+     */
+    private @NonNull List<Integer> runWorkers(@NonNull List<Integer> shards,
+            @NonNull Map<String, List<@NonNull DeadCodeBlock>> results, @NonNull List<ShardVerdicts> verdicts)
+            throws IOException {
+        Map<Integer, Process> processes = new LinkedHashMap<>();
+        for (int shard : shards) {
+            try {
+                processes.put(shard, startWorker(shard));
+                startedWorkers++;
+            } catch (IOException e) {
+                LOGGER.logException("Could not start the worker of shard " + shard, e);
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout + TIMEOUT_GRACE_SECONDS);
+        List<Integer> failed = new ArrayList<>();
+        try {
+            for (int shard : shards) {
+                Process process = processes.get(shard);
+                if (process != null && timeout > 0
+                        && !process.waitFor(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+                    process.destroyForcibly().waitFor();
+                    LOGGER.logWarning("Worker of shard " + shard + " did not finish within " + timeout
+                            + " seconds and was stopped; see " + getLogFile(shard));
+                    failed.add(shard);
+                    continue;
+                }
+                int exitCode = process != null ? process.waitFor() : -1;
+                if (exitCode == DeadCodeShardWorker.TIMEOUT_EXIT_STATUS) {
+                    LOGGER.logWarning("Worker of shard " + shard + " did not finish within " + timeout
+                            + " seconds and stopped itself; see " + getLogFile(shard));
+                    failed.add(shard);
+                } else if (exitCode != 0) {
+                    if (process != null) {
+                        LOGGER.logWarning("Worker of shard " + shard + " failed with exit code " + exitCode + "; see "
+                                + getLogFile(shard));
+                    }
+                    failed.add(shard);
+                } else if (!readResults(shard, results, verdicts)) {
+                    failed.add(shard);
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Process process : processes.values()) {
+                process.destroyForcibly();
+            }
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the workers", e);
+        }
+        return failed;
+    }
+
+    /**
+     * Starts the worker for a shard.
+     *
+     * @param shard The number of the shard.
+     * @return The worker process.
+     *
+     * @throws IOException If the process can not be started.
+     */
+    private @NonNull Process startWorker(int shard) throws IOException {
+        File resultFile = getResultFile(shard);
+        if (resultFile.exists() && !resultFile.delete()) {
+            throw new IOException("Could not delete previous result file " + resultFile);
+        }
+
+        List<String> command = new ArrayList<>();
+        if (!launchers.isEmpty()) {
+            command.addAll(launchers.get(shard % launchers.size()));
+        }
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(classPath);
+        command.add(DeadCodeShardWorker.class.getName());
+        command.add(directory.getAbsolutePath());
+        command.add(vmFingerprint);
+        command.add(getShardFile(shard).getAbsolutePath());
+        command.add(resultFile.getAbsolutePath());
+        command.add(getVerdictFile(shard).getAbsolutePath());
+        command.add(Integer.toString(timeout));
+
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(Redirect.appendTo(getLogFile(shard)));
+        return builder.start();
+    }
+
+    /**
+     * Reads the results and verdicts of a shard. They are only added if both files were read completely.
+     *
+     * @param shard    The number of the shard.
+     * @param results  The results to add the dead code blocks to, by path.
+     * @param verdicts The list to add the verdicts of the shard to.
+     * @return Whether the result and verdict files were read completely.
+     */
+    private boolean readResults(int shard, @NonNull Map<String, List<@NonNull DeadCodeBlock>> results,
+            @NonNull List<ShardVerdicts> verdicts) {
+        Map<String, List<@NonNull DeadCodeBlock>> shardResults = new HashMap<>();
+        ShardVerdicts shardVerdicts;
+        try {
+            DeadCodeResultWriter.read(getResultFile(shard), (block) -> shardResults
+                    .computeIfAbsent(block.getSourceFile().getPath(), (path) -> new ArrayList<>()).add(block));
+            shardVerdicts = ShardVerdicts.read(getVerdictFile(shard));
+        } catch (IOException e) {
+            LOGGER.logException("Could not read the results of shard " + shard, e);
+            return false;
+        }
+        results.putAll(shardResults);
+        verdicts.add(shardVerdicts);
+        return true;
+    }
+
+    /**
+     * Records the number of shards, started workers and shards checked in this JVM in the given statistics.
+     *
+     * @param statistics The statistics of the run.
+     */
+    public void recordMetrics(@NonNull DeadCodeAnalysisStatistics statistics) {
+        statistics.setMetric("shards.count", costs.length);
+        statistics.setMetric("shards.workers_started", startedWorkers);
+        statistics.setMetric("shards.local", localShards);
+    }
+
+    /**
+     * Returns the input file of a shard.
+     *
+     * @param shard The number of the shard.
+     * @return The shard file.
+     */
+    private @NonNull File getShardFile(int shard) {
+        return new File(directory, "shard_" + shard + ".bin.gz");
+    }
+
+    /**
+     * Returns the result file of a shard.
+     *
+     * @param shard The number of the shard.
+     * @return The result file.
+     */
+    private @NonNull File getResultFile(int shard) {
+        return new File(directory, "shard_" + shard + "_results.bin.gz");
+    }
+
+    /**
+     * Returns the verdict file of a shard.
+     *
+     * @param shard The number of the shard.
+     * @return The verdict file.
+     */
+    private @NonNull File getVerdictFile(int shard) {
+        return new File(directory, "shard_" + shard + "_verdicts.bin.gz");
+    }
+
+    /**
+     * Returns the log file of the worker of a shard.
+     *
+     * @param shard The number of the shard.
+     * @return The log file.
+     */
+    private @NonNull File getLogFile(int shard) {
+        return new File(directory, "shard_" + shard + ".log");
+    }
+
+}
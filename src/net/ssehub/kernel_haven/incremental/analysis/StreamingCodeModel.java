@@ -0,0 +1,122 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.incremental.storage.HybridCache;
+import net.ssehub.kernel_haven.util.FormatException;
+import net.ssehub.kernel_haven.util.Logger;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * A code model that reads its source files lazily from the {@link HybridCache}. Each iteration reads the source files
+ * one by one while it advances; no reference to a source file is kept after it has been returned. Memory usage is
+ * thus bounded by the number of source files that the consumers of the iteration hold at the same time, not by the
+ * size of the code model.
+ *
+ * @author Moritz
+ */
+public class StreamingCodeModel extends AbstractCollection<SourceFile<?>> {
+
+    /** The logger. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** The hybrid cache to read the source files from. */
+    private @NonNull HybridCache hybridCache;
+
+    /** The paths of the source files. */
+    private @NonNull List<@NonNull File> paths;
+
+    /**
+     * Creates a streaming code model.
+     *
+     * @param hybridCache The hybrid cache to read the source files from.
+     * @param paths       The paths of the source files. Paths that are not present in the code model of the hybrid
+     *                    cache are skipped during iteration.
+     */
+    public StreamingCodeModel(@NonNull HybridCache hybridCache, @NonNull List<@NonNull File> paths) {
+        this.hybridCache = hybridCache;
+        this.paths = paths;
+    }
+
+    /**
+     * Returns an iterator that reads each source file when it is reached. Source files that cannot be read are
+     * logged and skipped.
+     *
+     * @return The iterator.
+     */
+    @Override
+    public @NonNull Iterator<SourceFile<?>> iterator() {
+        return new Iterator<SourceFile<?>>() {
+
+            /** The index of the next path to read. */
+            private int nextPath;
+
+            /** The next source file; <code>null</code> if not read yet. */
+            private @Nullable SourceFile<?> next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && nextPath < paths.size()) {
+                    next = read(paths.get(nextPath++));
+                }
+                return next != null;
+            }
+
+            @Override
+            public SourceFile<?> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                SourceFile<?> result = next;
+                next = null;
+                return result;
+            }
+
+        };
+    }
+
+    /**
+     * Returns the paths of the source files of this code model, in iteration order.
+     *
+     * @return The paths; must not be modified.
+     */
+    public @NonNull List<@NonNull File> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Reads a single source file from the hybrid cache. This method is thread-safe, so that callers may read ahead
+     * of the iteration order on several threads.
+     *
+     * @param path The path of the source file.
+     * @return The source file; <code>null</code> if it is not present or cannot be read.
+     */
+    public @Nullable SourceFile<?> read(@NonNull File path) {
+        SourceFile<?> sourceFile = null;
+        try {
+            sourceFile = hybridCache.readCm(path);
+        } catch (IOException | FormatException e) {
+            LOGGER.logException("Could not read code model for path " + path, e);
+        }
+        return sourceFile;
+    }
+
+    /**
+     * Returns the number of paths of this code model. The number of source files returned by an iteration is smaller
+     * if some of the paths are not present in the hybrid cache.
+     *
+     * @return The number of paths.
+     */
+    @Override
+    public int size() {
+        return paths.size();
+    }
+
+}
@@ -0,0 +1,249 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.ssehub.kernel_haven.util.Logger;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * A worker pool whose number of threads is adjusted during the run by hill climbing on the observed throughput.
+ *
+ * <p>
+ * The pool starts with one thread per available processor. In regular intervals, the number of finished source files
+ * per second is compared with the previous interval: if the throughput improved after the last adjustment, the
+ * number of threads is changed further in the same direction; if it got worse, the direction is reversed; otherwise
+ * the number of threads is kept. If the garbage collector takes more than {@link #GC_LIMIT} of an interval, the
+ * number of threads is reduced regardless of the throughput, as more threads would only hold more source files and
+ * solvers in memory.
+ * </p>
+ *
+ * @author Moritz
+ */
+public class ThreadCountTuner implements AutoCloseable {
+
+    /** The logger. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** The interval between two decisions in milliseconds. */
+    private static final long INTERVAL_MS = 1000;
+
+    /** The relative change of the throughput that is considered an improvement or a degradation. */
+    private static final double TOLERANCE = 0.05;
+
+    /** The maximum fraction of an interval that may be spent in garbage collection. */
+    private static final double GC_LIMIT = 0.2;
+
+    /** The pool of worker threads. */
+    private @NonNull ThreadPoolExecutor pool;
+
+    /** Runs the decisions. */
+    private @NonNull ScheduledExecutorService timer;
+
+    /** The number of source files finished since the start of the current measurement. */
+    private @NonNull LongAdder finishedFiles = new LongAdder();
+
+    /** The lowest allowed number of threads. */
+    private int minThreads;
+
+    /** The highest allowed number of threads. */
+    private int maxThreads;
+
+    /** The initial number of threads. */
+    private int initialThreads;
+
+    /** The current number of threads. */
+    private volatile int threads;
+
+    /** The direction of the next adjustment; either 1 or -1. */
+    private int direction = 1;
+
+    /** The throughput of the previous measurement in files per second; negative if there is none yet. */
+    private double lastThroughput = -1;
+
+    /** The start of the current measurement, as given by {@link System#nanoTime()}. */
+    private long measurementStart;
+
+    /** The garbage collection time at the start of the current measurement in milliseconds. */
+    private long measurementGcMillis;
+
+    /** The number of adjustments made. */
+    private int adjustments;
+
+    /** The lowest number of threads used. */
+    private int lowestThreads;
+
+    /** The highest number of threads used. */
+    private int highestThreads;
+
+    /** The integral of the number of threads over time, in thread nanoseconds. */
+    private double threadNanos;
+
+    /** The time of the last change of {@link #threads}, as given by {@link System#nanoTime()}. */
+    private long lastChange;
+
+    /** The start of the run, as given by {@link System#nanoTime()}. */
+    private long start;
+
+    /**
+     * Creates and starts the pool.
+     */
+    public ThreadCountTuner() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        this.minThreads = 1;
+        this.maxThreads = 2 * processors;
+        this.initialThreads = processors;
+        this.threads = processors;
+        this.lowestThreads = processors;
+        this.highestThreads = processors;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(processors, processors, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            (runnable) -> {
+                Thread thread = new Thread(runnable, "DeadCodeWorker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        timer = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+            Thread thread = new Thread(runnable, "ThreadCountTuner");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        start = System.nanoTime();
+        lastChange = start;
+        measurementStart = start;
+        measurementGcMillis = getGcMillis();
+        timer.scheduleWithFixedDelay(this::adjust, INTERVAL_MS, INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the pool of worker threads.
+     *
+     * @return The pool; shut down by {@link #close()}.
+     */
+    public @NonNull ThreadPoolExecutor getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the highest number of threads that the pool may use.
+     *
+     * @return The highest number of threads.
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Records that a source file was finished. This method is thread-safe.
+     */
+    public void fileFinished() {
+        finishedFiles.increment();
+    }
+
+    /**
+     * Measures the throughput of the last interval and adjusts the number of threads. Called by the timer.
+     */
+    private synchronized void adjust() {
+        long now = System.nanoTime();
+        long files = finishedFiles.sum();
+        // wait for enough files per thread, so that single large files do not dominate the measurement
+        if (files < threads) {
+            return;
+        }
+        finishedFiles.add(-files);
+        long gcMillis = getGcMillis();
+        double elapsedMillis = (now - measurementStart) / 1e6;
+        double throughput = files / (elapsedMillis / 1000);
+        double gcFraction = (gcMillis - measurementGcMillis) / elapsedMillis;
+        measurementStart = now;
+        measurementGcMillis = gcMillis;
+
+        int next = threads;
+        if (gcFraction > GC_LIMIT) {
+            direction = -1;
+            next = threads - 1;
+        } else if (lastThroughput < 0 || throughput > lastThroughput * (1 + TOLERANCE)) {
+            next = threads + direction;
+        } else if (throughput < lastThroughput * (1 - TOLERANCE)) {
+            direction = -direction;
+            next = threads + direction;
+        }
+        lastThroughput = throughput;
+        setThreads(Math.max(minThreads, Math.min(maxThreads, next)));
+    }
+
+    /**
+     * Changes the number of threads of the pool.
+     *
+     * @param next The new number of threads.
+     */
+    private void setThreads(int next) {
+        if (next == threads) {
+            return;
+        }
+        long now = System.nanoTime();
+        threadNanos += (double) threads * (now - lastChange);
+        lastChange = now;
+        if (next > threads) {
+            pool.setMaximumPoolSize(next);
+            pool.setCorePoolSize(next);
+        } else {
+            // excess threads terminate once they finish their current file
+            pool.setCorePoolSize(next);
+            pool.setMaximumPoolSize(next);
+        }
+        LOGGER.logDebug("Changing the number of analysis threads from " + threads + " to " + next);
+        threads = next;
+        adjustments++;
+        lowestThreads = Math.min(lowestThreads, next);
+        highestThreads = Math.max(highestThreads, next);
+    }
+
+    /**
+     * Returns the total time spent in garbage collection by this JVM.
+     *
+     * @return The time in milliseconds.
+     */
+    private static long getGcMillis() {
+        long result = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += Math.max(bean.getCollectionTime(), 0);
+        }
+        return result;
+    }
+
+    /**
+     * Records the chosen numbers of threads in the given statistics.
+     *
+     * @param statistics The statistics of the run.
+     */
+    public synchronized void recordMetrics(@NonNull DeadCodeAnalysisStatistics statistics) {
+        long now = System.nanoTime();
+        double total = threadNanos + (double) threads * (now - lastChange);
+        statistics.setMetric("threads.initial", initialThreads);
+        statistics.setMetric("threads.final", threads);
+        statistics.setMetric("threads.min", lowestThreads);
+        statistics.setMetric("threads.max", highestThreads);
+        statistics.setMetric("threads.average", now > start ? total / (now - start) : threads);
+        statistics.setMetric("threads.adjustments", adjustments);
+    }
+
+    /**
+     * Stops adjusting and shuts down the pool.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        pool.shutdown();
+    }
+
+}
@@ -0,0 +1,286 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.CnfVariable;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Decides trivial satisfiability checks without a SAT solver. This class is thread-safe.
+ *
+ * <p>
+ * Unit propagation on the CNF of the variability model yields the <i>forced</i> variables, which have the same value
+ * in every configuration. The clauses that are not satisfied by the forced values form the residual model; variables
+ * that are neither forced nor occur in the residual model are <i>free</i>. A presence condition that is a conjunction
+ * of literals (e.g. <code>true</code> or a single variable) is then decided syntactically:
+ * </p>
+ * <ul>
+ * <li>It is unsatisfiable if it contains a literal and its negation, a literal contradicting a forced variable, or
+ * <code>false</code>.</li>
+ * <li>It is satisfiable if each of its literals agrees with a forced variable or is on a free variable, since the
+ * free variables can be set without touching the residual model.</li>
+ * </ul>
+ * <p>
+ * If the verdict of the file presence condition alone is known, {@link #checkWithFilePc(Formula, Formula, boolean)}
+ * decides further presence conditions: with an unsatisfiable file presence condition, every element is dead; with a
+ * satisfiable one, an element whose presence condition is already implied by the file presence condition, i.e. whose
+ * literals are all conjuncts of the file presence condition, is alive.
+ * </p>
+ * <p>
+ * All other presence conditions are left to the solver. The second rule is only sound if the variability model is
+ * satisfiable, which has to be checked by the caller before creating a checker.
+ * </p>
+ *
+ * @author Moritz
+ */
+public class TrivialSatChecker {
+
+    /** The value of each forced variable. */
+    private @NonNull Map<String, Boolean> forced;
+
+    /** The variables that occur in clauses not satisfied by the forced variables. */
+    private @NonNull Set<String> constrained;
+
+    /**
+     * Creates a checker.
+     *
+     * @param forced      The value of each forced variable.
+     * @param constrained The variables that occur in clauses not satisfied by the forced variables.
+     */
+    private TrivialSatChecker(@NonNull Map<String, Boolean> forced, @NonNull Set<String> constrained) {
+        this.forced = forced;
+        this.constrained = constrained;
+    }
+
+    /**
+     * Creates a checker for the given variability model. The variability model must be satisfiable.
+     *
+     * @param vmCnf The CNF of the variability model.
+     * @return The checker, or <code>null</code> if unit propagation finds a conflict, i.e. the variability model is
+     *      unsatisfiable after all.
+     */
+    public static @Nullable TrivialSatChecker create(@NonNull Cnf vmCnf) {
+        List<List<CnfVariable>> clauses = new ArrayList<>(vmCnf.getRowCount());
+        for (int i = 0; i < vmCnf.getRowCount(); i++) {
+            clauses.add(vmCnf.getRow(i));
+        }
+
+        Map<String, Boolean> forced = new HashMap<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (List<CnfVariable> clause : clauses) {
+                CnfVariable unassigned = null;
+                int unassignedCount = 0;
+                boolean satisfied = false;
+                for (CnfVariable literal : clause) {
+                    Boolean value = forced.get(literal.getName());
+                    if (value == null) {
+                        unassigned = literal;
+                        unassignedCount++;
+                    } else if (value != literal.isNegation()) {
+                        satisfied = true;
+                        break;
+                    }
+                }
+                if (!satisfied && unassignedCount == 0) {
+                    return null;
+                }
+                if (!satisfied && unassignedCount == 1) {
+                    forced.put(notNullLiteral(unassigned).getName(), !unassigned.isNegation());
+                    changed = true;
+                }
+            }
+        }
+
+        Set<String> constrained = new HashSet<>();
+        for (List<CnfVariable> clause : clauses) {
+            if (!isSatisfied(clause, forced)) {
+                for (CnfVariable literal : clause) {
+                    if (!forced.containsKey(literal.getName())) {
+                        constrained.add(literal.getName());
+                    }
+                }
+            }
+        }
+        return new TrivialSatChecker(forced, constrained);
+    }
+
+    /**
+     * Returns the given literal; used where the literal is known to be set.
+     *
+     * @param literal The literal.
+     * @return The literal.
+     */
+    private static @NonNull CnfVariable notNullLiteral(@Nullable CnfVariable literal) {
+        if (literal == null) {
+            throw new IllegalStateException("Expected an unassigned literal");
+        }
+        return literal;
+    }
+
+    /**
+     * Checks whether a clause is satisfied by the given assignment.
+     *
+     * @param clause     The clause.
+     * @param assignment The assignment.
+     * @return Whether one of the literals of the clause is true.
+     */
+    private static boolean isSatisfied(@NonNull List<CnfVariable> clause, @NonNull Map<String, Boolean> assignment) {
+        for (CnfVariable literal : clause) {
+            Boolean value = assignment.get(literal.getName());
+            if (value != null && value != literal.isNegation()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tries to decide whether the conjunction of the given presence conditions is satisfiable with the variability
+     * model.
+     *
+     * @param elementPc The presence condition of the element.
+     * @param filePc    The presence condition of the file.
+     * @return The verdict, or <code>null</code> if the solver is needed.
+     */
+    public @Nullable Boolean check(@NonNull Formula elementPc, @NonNull Formula filePc) {
+        Map<String, Boolean> literals = new HashMap<>();
+        Boolean result = collectLiterals(elementPc, true, literals);
+        if (result == null) {
+            result = collectLiterals(filePc, true, literals);
+        }
+        if (result == null) {
+            // conjunction of literals without syntactic conflict
+            boolean allFree = true;
+            for (Map.Entry<String, Boolean> literal : literals.entrySet()) {
+                Boolean value = forced.get(literal.getKey());
+                if (value != null && !value.equals(literal.getValue())) {
+                    return false;
+                }
+                if (value == null && constrained.contains(literal.getKey())) {
+                    allFree = false;
+                }
+            }
+            result = allFree ? true : null;
+        } else if (result) {
+            // not a conjunction of literals
+            result = null;
+        }
+        return result;
+    }
+
+    /**
+     * Tries to decide whether the conjunction of the given presence conditions is satisfiable with the variability
+     * model, given the verdict of the file presence condition alone.
+     *
+     * @param elementPc The presence condition of the element.
+     * @param filePc    The presence condition of the file.
+     * @param filePcSat Whether the file presence condition alone is satisfiable with the variability model.
+     * @return The verdict, or <code>null</code> if the element presence condition is not implied by the file
+     *      presence condition.
+     */
+    public @Nullable Boolean checkWithFilePc(@NonNull Formula elementPc, @NonNull Formula filePc, boolean filePcSat) {
+        if (!filePcSat) {
+            return false;
+        }
+        Map<String, Boolean> elementLiterals = new HashMap<>();
+        if (collectLiterals(elementPc, true, elementLiterals) != null) {
+            return null;
+        }
+        Map<String, Boolean> fileLiterals = new HashMap<>();
+        collectConjuncts(filePc, fileLiterals);
+        for (Map.Entry<String, Boolean> literal : elementLiterals.entrySet()) {
+            if (!literal.getValue().equals(fileLiterals.get(literal.getKey()))) {
+                return null;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the literals that are conjuncts of the given formula; other conjuncts are ignored.
+     *
+     * @param formula  The formula.
+     * @param literals The literals collected so far; a variable is mapped to the value that makes its literal true.
+     */
+    private static void collectConjuncts(@NonNull Formula formula, @NonNull Map<String, Boolean> literals) {
+        if (formula instanceof Conjunction) {
+            collectConjuncts(((Conjunction) formula).getLeft(), literals);
+            collectConjuncts(((Conjunction) formula).getRight(), literals);
+        } else {
+            Map<String, Boolean> conjunct = new HashMap<>();
+            if (collectLiterals(formula, true, conjunct) == null && conjunct.size() == 1) {
+                // a single literal, possibly below double negations
+                literals.putAll(conjunct);
+            }
+        }
+    }
+
+    /**
+     * Collects the literals of a formula, if it is a conjunction of literals.
+     *
+     * @param formula  The formula.
+     * @param positive Whether the formula occurs positively, i.e. not below an odd number of negations.
+     * @param literals The literals collected so far; a variable is mapped to the value that makes its literal true.
+     * @return <code>null</code> if the formula is a conjunction of literals that do not contradict each other;
+     *      <code>false</code> if it is such a conjunction but unsatisfiable; <code>true</code> if it is no
+     *      conjunction of literals.
+     */
+    private static @Nullable Boolean collectLiterals(@NonNull Formula formula, boolean positive,
+            @NonNull Map<String, Boolean> literals) {
+        Boolean result = null;
+        if (formula instanceof Variable) {
+            Boolean previous = literals.put(((Variable) formula).getName(), positive);
+            if (previous != null && previous != positive) {
+                result = false;
+            }
+        } else if (formula instanceof Negation) {
+            result = collectLiterals(((Negation) formula).getFormula(), !positive, literals);
+        } else if (formula instanceof Conjunction && positive) {
+            result = collectLiterals(((Conjunction) formula).getLeft(), true, literals);
+            if (result == null) {
+                result = collectLiterals(((Conjunction) formula).getRight(), true, literals);
+            }
+        } else if (formula instanceof True) {
+            result = positive ? null : Boolean.FALSE;
+        } else if (formula instanceof False) {
+            result = positive ? Boolean.FALSE : null;
+        } else {
+            result = true;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of forced variables.
+     *
+     * @return The number of forced variables.
+     */
+    public int getForcedCount() {
+        return forced.size();
+    }
+
+    /**
+     * Returns the number of variables that occur in clauses not satisfied by the forced variables.
+     *
+     * @return The number of constrained variables.
+     */
+    public int getConstrainedCount() {
+        return constrained.size();
+    }
+
+}
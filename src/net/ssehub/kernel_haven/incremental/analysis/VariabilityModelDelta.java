@@ -0,0 +1,181 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.CnfVariable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+
+/**
+ * Computes the variables of the variability model whose constraints changed between two versions, together with
+ * their transitive constraint neighborhood.
+ *
+ * <p>
+ * Two variables are neighbors if they occur in a common clause of either version. Presence conditions whose
+ * variables are not connected to any changed variable have the same verdict in both versions: the variability model
+ * splits into independent groups of clauses, and a presence condition only interacts with the groups of its own
+ * variables. This only holds if both versions are satisfiable as a whole, which the caller has to check.
+ * </p>
+ *
+ * @author Moritz
+ */
+public class VariabilityModelDelta {
+
+    /**
+     * Utility class; don't allow any instances.
+     */
+    private VariabilityModelDelta() {
+    }
+
+    /**
+     * Computes the affected variables.
+     *
+     * @param previous          The CNF of the previous variability model.
+     * @param current           The CNF of the current variability model.
+     * @param previousVariables The names of the variables of the previous variability model.
+     * @param currentVariables  The names of the variables of the current variability model.
+     * @return The names of all variables that are connected to a changed clause or to an added or removed variable.
+     */
+    public static @NonNull Set<String> computeAffectedVariables(@NonNull Cnf previous, @NonNull Cnf current,
+            @NonNull Collection<String> previousVariables, @NonNull Collection<String> currentVariables) {
+
+        Set<String> previousClauses = toClauseSet(previous);
+        Set<String> currentClauses = toClauseSet(current);
+
+        // variables of changed clauses and added or removed variables are the seeds
+        Set<String> seeds = new HashSet<>();
+        addClauseVariables(previous, currentClauses, seeds);
+        addClauseVariables(current, previousClauses, seeds);
+        for (String name : previousVariables) {
+            if (!currentVariables.contains(name)) {
+                seeds.add(name);
+            }
+        }
+        for (String name : currentVariables) {
+            if (!previousVariables.contains(name)) {
+                seeds.add(name);
+            }
+        }
+
+        Map<String, String> parents = new HashMap<>();
+        Set<String> allVariables = new HashSet<>();
+        union(previous, parents, allVariables);
+        union(current, parents, allVariables);
+
+        Set<String> seedRoots = new HashSet<>();
+        for (String seed : seeds) {
+            seedRoots.add(find(parents, seed));
+        }
+        Set<String> result = new HashSet<>(seeds);
+        for (String name : allVariables) {
+            if (seedRoots.contains(find(parents, name))) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Converts each clause of the given CNF into an order-independent string.
+     *
+     * @param cnf The CNF.
+     * @return The set of clause strings.
+     */
+    private static @NonNull Set<String> toClauseSet(@NonNull Cnf cnf) {
+        Set<String> result = new HashSet<>(cnf.getRowCount() * 2);
+        for (int i = 0; i < cnf.getRowCount(); i++) {
+            result.add(toClauseString(cnf.getRow(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Converts a clause into a string that does not depend on the order of its literals.
+     *
+     * @param row The literals of the clause.
+     * @return The clause string.
+     */
+    private static @NonNull String toClauseString(@NonNull List<CnfVariable> row) {
+        List<String> literals = new ArrayList<>(row.size());
+        for (CnfVariable variable : row) {
+            literals.add((variable.isNegation() ? "-" : "") + variable.getName());
+        }
+        literals.sort(null);
+        return String.join(" ", literals);
+    }
+
+    /**
+     * Adds the variables of all clauses of the given CNF that are not contained in the other clause set.
+     *
+     * @param cnf          The CNF.
+     * @param otherClauses The clauses of the other version.
+     * @param variables    The set to add the variables to.
+     */
+    private static void addClauseVariables(@NonNull Cnf cnf, @NonNull Set<String> otherClauses,
+            @NonNull Set<String> variables) {
+        for (int i = 0; i < cnf.getRowCount(); i++) {
+            List<CnfVariable> row = cnf.getRow(i);
+            if (!otherClauses.contains(toClauseString(row))) {
+                for (CnfVariable variable : row) {
+                    variables.add(variable.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Joins the variables of each clause of the given CNF into one set of the union-find structure.
+     *
+     * @param cnf          The CNF.
+     * @param parents      The parent of each variable in the union-find structure.
+     * @param allVariables The set to add all variables of the CNF to.
+     */
+    private static void union(@NonNull Cnf cnf, @NonNull Map<String, String> parents,
+            @NonNull Set<String> allVariables) {
+        for (int i = 0; i < cnf.getRowCount(); i++) {
+            List<CnfVariable> row = cnf.getRow(i);
+            if (row.isEmpty()) {
+                continue;
+            }
+            for (CnfVariable variable : row) {
+                allVariables.add(variable.getName());
+            }
+            String first = find(parents, row.get(0).getName());
+            for (int j = 1; j < row.size(); j++) {
+                String other = find(parents, row.get(j).getName());
+                if (!other.equals(first)) {
+                    parents.put(other, first);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the representative of the set of the given variable, compressing the path on the way.
+     *
+     * @param parents The parent of each variable in the union-find structure.
+     * @param name    The name of the variable.
+     * @return The name of the representative.
+     */
+    private static @NonNull String find(@NonNull Map<String, String> parents, @NonNull String name) {
+        String root = name;
+        String parent;
+        while ((parent = parents.get(root)) != null) {
+            root = parent;
+        }
+        String current = name;
+        while (!current.equals(root)) {
+            String next = parents.get(current);
+            parents.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+}
@@ -0,0 +1,542 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.ssehub.kernel_haven.code_model.CodeElement;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.Variable;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Persistent inverted index from the variables of the variability model to the source files and blocks that
+ * reference them. Used to find the source files and blocks that are affected by a change of some variables. This
+ * class is thread-safe.
+ *
+ * <p>
+ * For each source file, the index stores the line ranges of the blocks whose condition mentions a variable. Nested
+ * blocks inherit the conditions of their parents, so a block is affected by a variable if it lies within one of the
+ * ranges of that variable. A range from line 0 to line 0 denotes the presence condition of the file itself and thus
+ * covers the whole file.
+ * </p>
+ *
+ * <p>
+ * The index is only <i>complete</i> if it contains every source file of the code model. This is the case once a
+ * full analysis was run with the index enabled; before that, source files may be missing and the index must not be
+ * used to select source files.
+ * </p>
+ *
+ * <p>
+ * The index is stored uncompressed, so that it can be memory-mapped: a table of source file paths is followed by a
+ * directory of offsets to the variable records, sorted by variable name. {@link #lookup(File, String)} uses this
+ * directory to query a single variable without reading the whole index. In memory, the index is kept inverted as
+ * well, so that {@link #getFiles(Collection)} and {@link #getRanges(File, Collection)} only touch the postings of
+ * the given variables.
+ * </p>
+ *
+ * @author Moritz
+ */
+public class VariableIndex {
+
+    /** Marks files written by this class. */
+    private static final int MAGIC = 0x4B485649;
+
+    /** The version of the file format. */
+    private static final int VERSION = 1;
+
+    /** The name of the file the index is stored in. */
+    private static final @NonNull String FILE_NAME = "variable_index.bin";
+
+    /** The file the index is stored in. */
+    private @NonNull File file;
+
+    /**
+     * The line ranges of each source file path for each variable name. The ranges are stored as pairs of start and
+     * end line.
+     */
+    private @NonNull Map<String, Map<String, int[]>> postings = new ConcurrentHashMap<>();
+
+    /**
+     * The names of the variables referenced by each source file path; used to remove the postings of a file when it
+     * is replaced or removed.
+     */
+    private @NonNull Map<String, Set<String>> fileVariables = new ConcurrentHashMap<>();
+
+    /** Whether the index contains every source file of the code model. */
+    private volatile boolean complete;
+
+    /**
+     * Creates a variable index. Call {@link #load()} to read the previously stored index.
+     *
+     * @param directory The directory to store the index in.
+     */
+    public VariableIndex(@NonNull File directory) {
+        this.file = new File(directory, FILE_NAME);
+    }
+
+    /**
+     * Loads the stored index.
+     *
+     * @throws IOException If reading the index fails or the file is corrupt.
+     */
+    public void load() throws IOException {
+        clear();
+        complete = false;
+        if (!file.isFile()) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return;
+            }
+            boolean storedComplete = buffer.get() != 0;
+            String[] paths = readPaths(buffer);
+            for (String path : paths) {
+                fileVariables.put(path, ConcurrentHashMap.newKeySet());
+            }
+
+            int varCount = buffer.getInt();
+            // skip the directory; the records follow in the same order
+            buffer.position(buffer.position() + varCount * Integer.BYTES);
+            for (int i = 0; i < varCount; i++) {
+                String name = readString(buffer);
+                int postingCount = buffer.getInt();
+                Map<String, int[]> files = new ConcurrentHashMap<>();
+                for (int j = 0; j < postingCount; j++) {
+                    String path = paths[buffer.getInt()];
+                    int[] lines = new int[buffer.getInt() * 2];
+                    for (int k = 0; k < lines.length; k++) {
+                        lines[k] = buffer.getInt();
+                    }
+                    files.put(path, lines);
+                    fileVariables.get(path).add(name);
+                }
+                postings.put(name, files);
+            }
+            complete = storedComplete;
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            clear();
+            throw new IOException("Corrupt variable index " + file, e);
+        }
+    }
+
+    /**
+     * Writes the index to disk.
+     *
+     * @throws IOException If writing the index fails.
+     */
+    public void save() throws IOException {
+        String[] paths = fileVariables.keySet().toArray(new String[0]);
+        Map<String, Integer> pathIndices = new HashMap<>();
+        for (int i = 0; i < paths.length; i++) {
+            pathIndices.put(paths[i], i);
+        }
+
+        // the records are sorted by variable name; postings of files removed concurrently are skipped
+        Map<String, Map<String, int[]>> sorted = new TreeMap<>(postings);
+        sorted.values().removeIf(Map::isEmpty);
+        int[] offsets = new int[sorted.size()];
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+        DataOutputStream records = new DataOutputStream(recordBytes);
+        int index = 0;
+        for (Map.Entry<String, Map<String, int[]>> entry : sorted.entrySet()) {
+            Map<Integer, int[]> files = new HashMap<>();
+            for (Map.Entry<String, int[]> posting : entry.getValue().entrySet()) {
+                Integer pathIndex = pathIndices.get(posting.getKey());
+                if (pathIndex != null) {
+                    files.put(pathIndex, posting.getValue());
+                }
+            }
+            offsets[index++] = records.size();
+            writeString(records, entry.getKey());
+            records.writeInt(files.size());
+            for (Map.Entry<Integer, int[]> posting : files.entrySet()) {
+                int[] lines = posting.getValue();
+                records.writeInt(posting.getKey());
+                records.writeInt(lines.length / 2);
+                for (int line : lines) {
+                    records.writeInt(line);
+                }
+            }
+        }
+        records.flush();
+
+        File tmpFile = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeBoolean(complete);
+            out.writeInt(paths.length);
+            for (String path : paths) {
+                writeString(out, path);
+            }
+            out.writeInt(offsets.length);
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            recordBytes.writeTo(out);
+        }
+        if (file.exists() && !file.delete() || !tmpFile.renameTo(file)) {
+            throw new IOException("Could not replace variable index " + file);
+        }
+    }
+
+    /**
+     * Queries a single variable from a stored index, without reading the whole index.
+     *
+     * @param directory The directory the index is stored in.
+     * @param name      The name of the variable.
+     * @return The line ranges of the variable for each source file path that references it, stored as pairs of start
+     *      and end line; <code>null</code> if no valid index is stored.
+     *
+     * @throws IOException If reading the index fails or the file is corrupt.
+     */
+    public static @Nullable Map<String, int[]> lookup(@NonNull File directory, @NonNull String name)
+            throws IOException {
+
+        File file = new File(directory, FILE_NAME);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            buffer.get();
+            String[] paths = readPaths(buffer);
+            int varCount = buffer.getInt();
+            int directoryStart = buffer.position();
+            int recordsStart = directoryStart + varCount * Integer.BYTES;
+
+            Map<String, int[]> result = new HashMap<>();
+            int low = 0;
+            int high = varCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                buffer.position(recordsStart + buffer.getInt(directoryStart + middle * Integer.BYTES));
+                int comparison = readString(buffer).compareTo(name);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    int postingCount = buffer.getInt();
+                    for (int j = 0; j < postingCount; j++) {
+                        String path = paths[buffer.getInt()];
+                        int[] lines = new int[buffer.getInt() * 2];
+                        for (int k = 0; k < lines.length; k++) {
+                            lines[k] = buffer.getInt();
+                        }
+                        result.put(path, lines);
+                    }
+                    break;
+                }
+            }
+            return result;
+
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            throw new IOException("Corrupt variable index " + file, e);
+        }
+    }
+
+    /**
+     * Stores the variables of the given source file, replacing previously stored variables.
+     *
+     * @param sourceFile The source file.
+     * @param filePc     The presence condition of the source file.
+     */
+    public void put(@NonNull SourceFile<?> sourceFile, @NonNull Formula filePc) {
+        Map<String, List<Integer>> lines = new HashMap<>();
+        Set<String> names = new HashSet<>();
+        collectVariables(filePc, names);
+        addRange(lines, names, 0, 0);
+        for (CodeElement<?> element : sourceFile) {
+            collectRanges(element, lines);
+        }
+
+        String path = sourceFile.getPath().getPath();
+        Set<String> variables = ConcurrentHashMap.newKeySet();
+        variables.addAll(lines.keySet());
+        Set<String> previous = fileVariables.put(path, variables);
+        if (previous != null) {
+            previous.removeAll(variables);
+            removePostings(path, previous);
+        }
+        for (Map.Entry<String, List<Integer>> range : lines.entrySet()) {
+            int[] array = new int[range.getValue().size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = range.getValue().get(i);
+            }
+            postings.computeIfAbsent(range.getKey(), (name) -> new ConcurrentHashMap<>()).put(path, array);
+        }
+    }
+
+    /**
+     * Removes the given source file.
+     *
+     * @param path The path of the source file.
+     */
+    public void remove(@NonNull File path) {
+        Set<String> previous = fileVariables.remove(path.getPath());
+        if (previous != null) {
+            removePostings(path.getPath(), previous);
+        }
+    }
+
+    /**
+     * Removes the postings of a source file for the given variables.
+     *
+     * @param path      The path of the source file.
+     * @param variables The names of the variables.
+     */
+    private void removePostings(@NonNull String path, @NonNull Set<String> variables) {
+        for (String name : variables) {
+            Map<String, int[]> files = postings.get(name);
+            if (files != null) {
+                files.remove(path);
+            }
+        }
+    }
+
+    /**
+     * Removes all source files.
+     */
+    private void clear() {
+        postings.clear();
+        fileVariables.clear();
+    }
+
+    /**
+     * Returns the paths of all source files in this index.
+     *
+     * @return A view of the paths.
+     */
+    public @NonNull Set<String> getPaths() {
+        return fileVariables.keySet();
+    }
+
+    /**
+     * Returns the paths of all source files whose presence conditions mention at least one of the given variables.
+     *
+     * @param names The names of the variables.
+     * @return The paths of the affected source files.
+     */
+    public @NonNull Set<String> getFiles(@NonNull Collection<String> names) {
+        Set<String> result = new HashSet<>();
+        for (String name : names) {
+            Map<String, int[]> files = postings.get(name);
+            if (files != null) {
+                result.addAll(files.keySet());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the line ranges of the blocks of the given source file whose condition mentions one of the given
+     * variables.
+     *
+     * @param path  The path of the source file.
+     * @param names The names of the variables.
+     * @return The ranges as pairs of start and end line; empty if none of the variables is referenced by the file.
+     */
+    public @NonNull int[] getRanges(@NonNull File path, @NonNull Collection<String> names) {
+        int[] result = new int[0];
+        for (String name : names) {
+            Map<String, int[]> files = postings.get(name);
+            int[] lines = files != null ? files.get(path.getPath()) : null;
+            if (lines != null) {
+                int offset = result.length;
+                result = Arrays.copyOf(result, offset + lines.length);
+                System.arraycopy(lines, 0, result, offset, lines.length);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the given ranges contain the range of the file presence condition, i.e. whether all blocks of
+     * the file are affected.
+     *
+     * @param ranges The ranges as pairs of start and end line.
+     * @return Whether the ranges cover the whole file.
+     */
+    public static boolean coversFile(@NonNull int[] ranges) {
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] == 0 && ranges[i + 1] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether a block lies within one of the given ranges.
+     *
+     * @param ranges The ranges as pairs of start and end line.
+     * @param start  The first line of the block.
+     * @param end    The last line of the block.
+     * @return Whether the block is covered; always <code>true</code> if the lines of the block are unknown.
+     */
+    public static boolean isCovered(@NonNull int[] ranges, int start, int end) {
+        if (start < 0 || end < 0) {
+            return true;
+        }
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] <= start && end <= ranges[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the index contains every source file of the code model.
+     *
+     * @return Whether the index is complete.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Marks the index as complete; to be called after a full analysis.
+     */
+    public void markComplete() {
+        complete = true;
+    }
+
+    /**
+     * Adds the line range of the given element for each variable of its condition, and recurses into the nested
+     * elements.
+     *
+     * @param element The element.
+     * @param lines   The line ranges of each variable.
+     */
+    private static void collectRanges(@NonNull CodeElement<?> element, @NonNull Map<String, List<Integer>> lines) {
+        Formula condition = element.getCondition();
+        if (condition == null) {
+            condition = element.getPresenceCondition();
+        }
+        Set<String> names = new HashSet<>();
+        collectVariables(condition, names);
+        if (element.getLineStart() < 0 || element.getLineEnd() < 0) {
+            // without line numbers, the nested blocks can't be located; conservatively cover the whole file
+            addRange(lines, names, 0, 0);
+        } else {
+            addRange(lines, names, element.getLineStart(), element.getLineEnd());
+        }
+        for (int i = 0; i < element.getNestedElementCount(); i++) {
+            collectRanges(element.getNestedElement(i), lines);
+        }
+    }
+
+    /**
+     * Adds a line range to each of the given variables.
+     *
+     * @param lines The line ranges of each variable.
+     * @param names The names of the variables.
+     * @param start The first line of the range.
+     * @param end   The last line of the range.
+     */
+    private static void addRange(@NonNull Map<String, List<Integer>> lines, @NonNull Set<String> names, int start,
+            int end) {
+        for (String name : names) {
+            List<Integer> list = lines.computeIfAbsent(name, (key) -> new ArrayList<>());
+            list.add(start);
+            list.add(end);
+        }
+    }
+
+    /**
+     * Reads the table of source file paths.
+     *
+     * @param buffer The buffer, positioned at the start of the table.
+     * @return The paths.
+     */
+    private static @NonNull String[] readPaths(@NonNull MappedByteBuffer buffer) {
+        String[] paths = new String[buffer.getInt()];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = readString(buffer);
+        }
+        return paths;
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @param buffer The buffer.
+     * @return The string.
+     */
+    private static @NonNull String readString(@NonNull MappedByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     *
+     * @param out    The stream to write to.
+     * @param string The string.
+     *
+     * @throws IOException If writing fails.
+     */
+    private static void writeString(@NonNull DataOutputStream out, @NonNull String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Collects the names of all variables of the given formula.
+     *
+     * @param formula The formula.
+     * @param names   The set to add the names to.
+     */
+    public static void collectVariables(@NonNull Formula formula, @NonNull Set<String> names) {
+        if (formula instanceof Variable) {
+            names.add(((Variable) formula).getName());
+        } else if (formula instanceof Negation) {
+            collectVariables(((Negation) formula).getFormula(), names);
+        } else if (formula instanceof Conjunction) {
+            collectVariables(((Conjunction) formula).getLeft(), names);
+            collectVariables(((Conjunction) formula).getRight(), names);
+        } else if (formula instanceof Disjunction) {
+            collectVariables(((Disjunction) formula).getLeft(), names);
+            collectVariables(((Disjunction) formula).getRight(), names);
+        }
+    }
+
+}
@@ -0,0 +1,321 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static net.ssehub.kernel_haven.util.null_checks.NullHelpers.notNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import net.ssehub.kernel_haven.cnf.ConverterException;
+import net.ssehub.kernel_haven.cnf.SolverException;
+import net.ssehub.kernel_haven.code_model.CodeElement;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.incremental.analysis.IncrementalDeadCodeFinder.DeadCodeBlock;
+import net.ssehub.kernel_haven.util.Logger;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.null_checks.NonNull;
+import net.ssehub.kernel_haven.util.null_checks.Nullable;
+
+/**
+ * Distributes the source files of an analysis over a work-stealing pool. Source files are started in order of their
+ * estimated cost, largest first, and large element trees are split into subtree tasks, so that a single huge file
+ * does not keep the other threads idle. The cost of a source file is estimated from the duration of its analysis in
+ * the previous run or, if unknown, from its number of code elements.
+ *
+ * @author Moritz
+ */
+public class WorkStealingScheduler {
+
+    /** The logger. */
+    private static final Logger LOGGER = Logger.get();
+
+    /** Subtrees with more elements than this are split into several tasks. */
+    private static final int SPLIT_THRESHOLD = 64;
+
+    /** The finder that checks the elements. */
+    private @NonNull IncrementalDeadCodeFinder finder;
+
+    /** The number of threads. */
+    private int numThreads;
+
+    /** The timings of the previous run; <code>null</code> if not available. */
+    private @Nullable FileTimings timings;
+
+    /** Whether results are passed on in the order of the source files. */
+    private boolean deterministic;
+
+    /** Receives the dead code blocks of each source file. */
+    private @NonNull Consumer<List<@NonNull DeadCodeBlock>> sink;
+
+    /** Results that are not passed on yet, because results of earlier source files are missing. */
+    private @NonNull Map<Integer, List<@NonNull DeadCodeBlock>> pendingResults = new ConcurrentHashMap<>();
+
+    /** The index of the next source file whose result is passed on in deterministic mode. */
+    private int nextResultIndex;
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param finder        The finder that checks the elements.
+     * @param numThreads    The number of threads.
+     * @param timings       The timings of the previous run; <code>null</code> if not available. Timings of this run
+     *                      are recorded into it.
+     * @param deterministic Whether results are passed on in the order of the source files.
+     * @param sink          Receives the dead code blocks of each source file.
+     */
+    public WorkStealingScheduler(@NonNull IncrementalDeadCodeFinder finder, int numThreads,
+            @Nullable FileTimings timings, boolean deterministic,
+            @NonNull Consumer<List<@NonNull DeadCodeBlock>> sink) {
+        this.finder = finder;
+        this.numThreads = numThreads;
+        this.timings = timings;
+        this.deterministic = deterministic;
+        this.sink = sink;
+    }
+
+    /**
+     * Analyzes the given source files and waits until all of them are done.
+     *
+     * @param sourceFiles The source files to analyze.
+     */
+    public void run(@NonNull List<SourceFile<?>> sourceFiles) {
+        List<FileTask> tasks = new ArrayList<>(sourceFiles.size());
+        double nanosPerElement = timings != null ? timings.getAverageNanosPerElement() : -1;
+        for (int i = 0; i < sourceFiles.size(); i++) {
+            tasks.add(new FileTask(i, sourceFiles.get(i), nanosPerElement > 0 ? nanosPerElement : 1));
+        }
+        List<FileTask> byCost = new ArrayList<>(tasks);
+        byCost.sort(Comparator.comparingDouble((FileTask task) -> task.estimatedCost).reversed());
+
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        try {
+            for (FileTask task : byCost) {
+                pool.execute(task);
+            }
+            for (FileTask task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Passes on the result of a source file. In deterministic mode, results are held back until the results of all
+     * previous source files are passed on.
+     *
+     * @param index  The index of the source file.
+     * @param result The dead code blocks of the source file.
+     */
+    private void deliver(int index, @NonNull List<@NonNull DeadCodeBlock> result) {
+        if (!deterministic) {
+            synchronized (this) {
+                sink.accept(result);
+            }
+            return;
+        }
+        pendingResults.put(index, result);
+        synchronized (this) {
+            List<@NonNull DeadCodeBlock> next;
+            while ((next = pendingResults.remove(nextResultIndex)) != null) {
+                sink.accept(next);
+                nextResultIndex++;
+            }
+        }
+    }
+
+    /**
+     * Counts the elements of the given element tree, stopping once the limit is exceeded.
+     *
+     * @param element The root of the element tree.
+     * @param limit   The count at which counting stops.
+     * @return The number of elements, at most <code>limit + 1</code>.
+     */
+    private static int countElements(@NonNull CodeElement<?> element, int limit) {
+        int count = 1;
+        for (int i = 0; i < element.getNestedElementCount() && count <= limit; i++) {
+            count += countElements(element.getNestedElement(i), limit - count);
+        }
+        return count;
+    }
+
+    /**
+     * Analyzes a single source file.
+     */
+    private class FileTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The index of the source file. */
+        private int index;
+
+        /** The source file. */
+        private @NonNull SourceFile<?> sourceFile;
+
+        /** The number of code elements in the source file. */
+        private long elementCount;
+
+        /** The estimated cost in nanoseconds. */
+        private double estimatedCost;
+
+        /** The presence condition of the file; set before the subtasks are started. */
+        private @Nullable Formula filePc;
+
+        /** The verdicts for presence conditions of the file; set before the subtasks are started. */
+        private @Nullable Map<Formula, Boolean> pcVerdicts;
+
+        /**
+         * The time spent on this file by this task and its subtasks, in nanoseconds. Unlike the wall-clock time of
+         * this task, this does not include tasks of other files that are run while joining the subtasks.
+         */
+        private @NonNull LongAdder busyNanos = new LongAdder();
+
+        /**
+         * Creates the task.
+         *
+         * @param index           The index of the source file.
+         * @param sourceFile      The source file.
+         * @param nanosPerElement The estimated duration per element, for files without timings.
+         */
+        FileTask(int index, @NonNull SourceFile<?> sourceFile, double nanosPerElement) {
+            this.index = index;
+            this.sourceFile = sourceFile;
+            for (CodeElement<?> element : sourceFile) {
+                elementCount += countElements(element, Integer.MAX_VALUE - 1);
+            }
+            long previousNanos = timings != null ? timings.getNanos(sourceFile.getPath()) : -1;
+            this.estimatedCost = previousNanos >= 0 ? previousNanos : elementCount * nanosPerElement;
+        }
+
+        /**
+         * Records time spent on this file, both for this file and in the statistics.
+         *
+         * @param nanos The duration in nanoseconds.
+         */
+        void recordBusyTime(long nanos) {
+            busyNanos.add(nanos);
+            finder.statistics.recordBusyTime(nanos);
+        }
+
+        /**
+         * Checks all elements of the source file and passes on the result. The result is passed on even if the
+         * check fails, so that the results of later source files are not held back; it is empty in that case.
+         */
+        @Override
+        protected void compute() {
+            long start = System.nanoTime();
+            List<@NonNull DeadCodeBlock> result = new ArrayList<>();
+            List<@NonNull DeadCodeBlock> delivered = new ArrayList<>();
+            // checkstyle: stop exception type check
+            try {
+                filePc = finder.prepareFile(sourceFile, result);
+                if (filePc != null) {
+                    pcVerdicts = finder.createPcVerdicts(sourceFile);
+                    List<SubtreeTask> subtasks = new ArrayList<>();
+                    for (CodeElement<?> element : sourceFile) {
+                        subtasks.add(new SubtreeTask(this, element, null, null));
+                    }
+                    // the subtasks record their busy time themselves; this thread may run other tasks while joining
+                    recordBusyTime(System.nanoTime() - start);
+                    ForkJoinTask.invokeAll(subtasks);
+                    long finishStart = System.nanoTime();
+                    for (SubtreeTask subtask : subtasks) {
+                        result.addAll(subtask.result);
+                    }
+                    finder.finishFile(sourceFile, result);
+                    recordBusyTime(System.nanoTime() - finishStart);
+                } else {
+                    recordBusyTime(System.nanoTime() - start);
+                }
+                if (timings != null) {
+                    timings.record(sourceFile.getPath(), busyNanos.sum(), elementCount);
+                }
+                delivered = result;
+            } catch (RuntimeException e) {
+                LOGGER.logException("Exception while trying to check " + sourceFile.getPath(), e);
+            } finally {
+                deliver(index, delivered);
+            }
+            // checkstyle: resume exception type check
+        }
+
+    }
+
+    /**
+     * Checks an element and its nested elements. Large subtrees are split into one task per nested element.
+     */
+    private class SubtreeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The task of the source file this subtree belongs to. */
+        private @NonNull FileTask file;
+
+        /** The root of the subtree. */
+        private @NonNull CodeElement<?> element;
+
+        /** The presence condition of the parent element. */
+        private @Nullable Formula parentPc;
+
+        /** The verdict of the parent element. */
+        private @Nullable Boolean parentSat;
+
+        /** The dead code blocks found in this subtree, in tree order. */
+        private @NonNull List<@NonNull DeadCodeBlock> result = new ArrayList<>();
+
+        /**
+         * Creates the task.
+         *
+         * @param file      The task of the source file this subtree belongs to.
+         * @param element   The root of the subtree.
+         * @param parentPc  The presence condition of the parent element.
+         * @param parentSat The verdict of the parent element.
+         */
+        SubtreeTask(@NonNull FileTask file, @NonNull CodeElement<?> element, @Nullable Formula parentPc,
+                @Nullable Boolean parentSat) {
+            this.file = file;
+            this.element = element;
+            this.parentPc = parentPc;
+            this.parentSat = parentSat;
+        }
+
+        /**
+         * Checks the subtree, splitting it if it is large.
+         */
+        @Override
+        protected void compute() {
+            long start = System.nanoTime();
+            Formula filePc = notNull(file.filePc);
+            try {
+                if (countElements(element, SPLIT_THRESHOLD) <= SPLIT_THRESHOLD) {
+                    finder.checkElement(element, filePc, result, parentPc, parentSat, file.pcVerdicts);
+                    file.recordBusyTime(System.nanoTime() - start);
+                } else {
+                    Boolean childParentSat = finder.checkSingleElement(element, filePc, result, parentPc, parentSat,
+                            file.pcVerdicts);
+                    file.recordBusyTime(System.nanoTime() - start);
+                    List<SubtreeTask> subtasks = new ArrayList<>();
+                    for (int i = 0; i < element.getNestedElementCount(); i++) {
+                        subtasks.add(new SubtreeTask(file, element.getNestedElement(i), element.getPresenceCondition(),
+                                childParentSat));
+                    }
+                    ForkJoinTask.invokeAll(subtasks);
+                    for (SubtreeTask subtask : subtasks) {
+                        result.addAll(subtask.result);
+                    }
+                }
+            } catch (SolverException | ConverterException e) {
+                LOGGER.logException("Exception while trying to check element", e);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,208 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.CnfVariable;
+import net.ssehub.kernel_haven.variability_model.VariabilityModel;
+import net.ssehub.kernel_haven.variability_model.VariabilityVariable;
+
+/**
+ * Tests the {@link CnfCache}.
+ *
+ * @author Moritz
+ */
+public class CnfCacheTest {
+
+    /** The directory the CNF is stored in. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Creates a CNF with positive and negative literals.
+     *
+     * @return The CNF.
+     */
+    private static Cnf createCnf() {
+        Cnf cnf = new Cnf();
+        cnf.addRow(new CnfVariable(false, "A"), new CnfVariable(true, "B"));
+        cnf.addRow(new CnfVariable(true, "A"));
+        cnf.addRow(new CnfVariable(false, "B"), new CnfVariable(false, "C_MODULE"), new CnfVariable(true, "D"));
+        return cnf;
+    }
+
+    /**
+     * Asserts that two CNFs have the same rows.
+     *
+     * @param expected The expected CNF.
+     * @param actual   The actual CNF.
+     */
+    private static void assertCnfEquals(Cnf expected, Cnf actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        for (int i = 0; i < expected.getRowCount(); i++) {
+            assertEquals(expected.getRow(i).size(), actual.getRow(i).size());
+            for (int j = 0; j < expected.getRow(i).size(); j++) {
+                CnfVariable first = expected.getRow(i).get(j);
+                CnfVariable second = actual.getRow(i).get(j);
+                assertEquals(first.getName(), second.getName());
+                assertEquals(first.isNegation(), second.isNegation());
+            }
+        }
+    }
+
+    /**
+     * Returns the file the CNF is stored in.
+     *
+     * @return The single file in the cache directory.
+     */
+    private File getStoredFile() {
+        File[] files = folder.getRoot().listFiles();
+        assertEquals(1, files.length);
+        return files[0];
+    }
+
+    /**
+     * Tests that a stored CNF is read again.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        CnfCache cache = new CnfCache(folder.getRoot());
+        cache.write(createCnf(), "fingerprint");
+
+        assertCnfEquals(createCnf(), new CnfCache(folder.getRoot()).read("fingerprint"));
+    }
+
+    /**
+     * Tests that a CNF stored for a different variability model is not read.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testOtherFingerprint() throws IOException {
+        CnfCache cache = new CnfCache(folder.getRoot());
+        cache.write(createCnf(), "fingerprint");
+
+        assertNull(cache.read("other"));
+    }
+
+    /**
+     * Tests that nothing is read if no CNF is stored, or if it was deleted.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testMissingAndDeleted() throws IOException {
+        CnfCache cache = new CnfCache(folder.getRoot());
+        assertNull(cache.read("fingerprint"));
+
+        cache.write(createCnf(), "fingerprint");
+        cache.delete();
+        assertNull(cache.read("fingerprint"));
+        assertEquals(0, folder.getRoot().listFiles().length);
+    }
+
+    /**
+     * Tests that a file not written by the cache is not read.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testForeignFile() throws IOException {
+        CnfCache cache = new CnfCache(folder.getRoot());
+        cache.write(createCnf(), "fingerprint");
+        try (FileOutputStream out = new FileOutputStream(getStoredFile())) {
+            out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        }
+
+        assertNull(cache.read("fingerprint"));
+    }
+
+    /**
+     * Tests that a truncated CNF is rejected.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        CnfCache cache = new CnfCache(folder.getRoot());
+        cache.write(createCnf(), "fingerprint");
+        try (RandomAccessFile raf = new RandomAccessFile(getStoredFile(), "rw")) {
+            raf.setLength(raf.length() - 2);
+        }
+
+        cache.read("fingerprint");
+    }
+
+    /**
+     * Tests that a literal that refers to an unknown variable is rejected.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = IOException.class)
+    public void testCorruptLiteral() throws IOException {
+        CnfCache cache = new CnfCache(folder.getRoot());
+        cache.write(createCnf(), "fingerprint");
+        try (RandomAccessFile raf = new RandomAccessFile(getStoredFile(), "rw")) {
+            raf.seek(raf.length() - Integer.BYTES);
+            raf.writeInt(100);
+        }
+
+        cache.read("fingerprint");
+    }
+
+    /**
+     * Computes the fingerprint of a variability model.
+     *
+     * @param constraints The constraint model.
+     * @param variables   The variables.
+     * @return The fingerprint.
+     *
+     * @throws IOException If reading the constraint model fails.
+     */
+    private static String fingerprint(File constraints, VariabilityVariable... variables) throws IOException {
+        return CnfCache.fingerprint(new VariabilityModel(constraints, new HashSet<>(Arrays.asList(variables))));
+    }
+
+    /**
+     * Tests that the fingerprint depends on the variables and the constraint model, but not on the order of the
+     * variables.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testFingerprint() throws IOException {
+        File constraints = folder.newFile("constraints.dimacs");
+        try (FileOutputStream out = new FileOutputStream(constraints)) {
+            out.write("p cnf 2 1\n1 -2 0\n".getBytes("UTF-8"));
+        }
+        VariabilityVariable a = new VariabilityVariable("A", "bool", 1);
+        VariabilityVariable b = new VariabilityVariable("B", "tristate", 2);
+
+        String fingerprint = fingerprint(constraints, a, b);
+        assertEquals(fingerprint, fingerprint(constraints, b, a));
+        assertNotEquals(fingerprint, fingerprint(constraints, a, new VariabilityVariable("B", "bool", 2)));
+
+        try (FileOutputStream out = new FileOutputStream(constraints)) {
+            out.write("p cnf 2 1\n-1 2 0\n".getBytes("UTF-8"));
+        }
+        assertNotEquals(fingerprint, fingerprint(constraints, a, b));
+    }
+
+}
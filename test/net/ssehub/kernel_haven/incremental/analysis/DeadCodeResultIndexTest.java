@@ -0,0 +1,199 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.ssehub.kernel_haven.incremental.analysis.IncrementalDeadCodeFinder.DeadCodeBlock;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link DeadCodeResultIndex}.
+ *
+ * @author Moritz
+ */
+public class DeadCodeResultIndexTest {
+
+    /** The directory the index is stored in. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Asserts that two lists of dead code blocks are equal.
+     *
+     * @param expected The expected blocks.
+     * @param actual   The actual blocks.
+     */
+    static void assertBlocksEqual(List<DeadCodeBlock> expected, List<DeadCodeBlock> actual) {
+        assertNotNull(actual);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            DeadCodeBlock first = expected.get(i);
+            DeadCodeBlock second = actual.get(i);
+            assertEquals(first.getSourceFile(), second.getSourceFile());
+            assertEquals(first.getStartLine(), second.getStartLine());
+            assertEquals(first.getEndLine(), second.getEndLine());
+            assertEquals(first.getFilePc(), second.getFilePc());
+            assertEquals(first.getPresenceCondition(), second.getPresenceCondition());
+        }
+    }
+
+    /**
+     * Creates the dead code blocks of a source file.
+     *
+     * @return The blocks.
+     */
+    static List<DeadCodeBlock> createBlocks() {
+        File file = new File("dir/file.c");
+        Formula filePc = new Variable("FILE");
+        Formula pc = new Conjunction(new Variable("A"), new Negation(new Variable("A")));
+        return Arrays.asList(new DeadCodeBlock(file, 3, 10, filePc, pc), new DeadCodeBlock(file, 12, 14, filePc, null));
+    }
+
+    /**
+     * Creates an index with two source files and stores it.
+     *
+     * @return The stored index file.
+     *
+     * @throws IOException If storing fails.
+     */
+    private File saveIndex() throws IOException {
+        DeadCodeResultIndex index = new DeadCodeResultIndex(folder.getRoot());
+        index.load();
+        index.put(new File("dir/file.c"), createBlocks());
+        index.put(new File("other.c"), Collections.emptyList());
+        index.save();
+
+        File[] files = folder.getRoot().listFiles();
+        assertEquals(1, files.length);
+        return files[0];
+    }
+
+    /**
+     * Tests that stored results are loaded again.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        saveIndex();
+
+        DeadCodeResultIndex loaded = new DeadCodeResultIndex(folder.getRoot());
+        loaded.load();
+
+        assertEquals(new HashSet<>(Arrays.asList(new File("dir/file.c").getPath(), "other.c")), loaded.getPaths());
+        assertBlocksEqual(createBlocks(), loaded.get(new File("dir/file.c")));
+        assertBlocksEqual(Collections.emptyList(), loaded.get(new File("other.c")));
+        assertNull(loaded.get(new File("missing.c")));
+    }
+
+    /**
+     * Tests that removed files are not stored.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testRemove() throws IOException {
+        saveIndex();
+        DeadCodeResultIndex index = new DeadCodeResultIndex(folder.getRoot());
+        index.load();
+        index.remove(new File("other.c"));
+        index.save();
+
+        DeadCodeResultIndex loaded = new DeadCodeResultIndex(folder.getRoot());
+        loaded.load();
+        assertEquals(Collections.singleton(new File("dir/file.c").getPath()), loaded.getPaths());
+    }
+
+    /**
+     * Tests that loading without a stored index results in an empty index.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testMissing() throws IOException {
+        DeadCodeResultIndex index = new DeadCodeResultIndex(folder.getRoot());
+        index.load();
+        assertTrue(index.getPaths().isEmpty());
+    }
+
+    /**
+     * Tests that a truncated index is rejected and leaves the index empty.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testTruncated() throws IOException {
+        File file = saveIndex();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() / 2);
+        }
+        assertLoadFails();
+    }
+
+    /**
+     * Tests that an index that is not compressed is rejected.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testCorrupt() throws IOException {
+        File file = saveIndex();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        }
+        assertLoadFails();
+    }
+
+    /**
+     * Tests that a negative block count is rejected.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testNegativeCount() throws IOException {
+        File file = saveIndex();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(1);
+            out.writeUTF("file.c");
+            out.writeBoolean(false);
+            out.writeInt(-1);
+        }
+        assertLoadFails();
+    }
+
+    /**
+     * Asserts that loading the stored index fails and leaves the index empty.
+     */
+    private void assertLoadFails() {
+        DeadCodeResultIndex index = new DeadCodeResultIndex(folder.getRoot());
+        try {
+            index.load();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+        assertTrue(index.getPaths().isEmpty());
+    }
+
+}
@@ -0,0 +1,180 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static net.ssehub.kernel_haven.incremental.analysis.DeadCodeResultIndexTest.assertBlocksEqual;
+import static org.junit.Assert.assertEquals;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.ssehub.kernel_haven.incremental.analysis.IncrementalDeadCodeFinder.DeadCodeBlock;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link DeadCodeResultWriter}.
+ *
+ * @author Moritz
+ */
+public class DeadCodeResultWriterTest {
+
+    /** The directory the results are written to. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Reads all blocks of the given file.
+     *
+     * @param file The file to read.
+     * @return The blocks.
+     *
+     * @throws IOException If reading fails.
+     */
+    private static List<DeadCodeBlock> read(File file) throws IOException {
+        List<DeadCodeBlock> result = new ArrayList<>();
+        DeadCodeResultWriter.read(file, result::add);
+        return result;
+    }
+
+    /**
+     * Tests that written blocks are read back in order and that consecutive blocks of a file share one file record.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<DeadCodeBlock> blocks = new ArrayList<>(DeadCodeResultIndexTest.createBlocks());
+        Formula otherPc = new Variable("OTHER");
+        blocks.add(new DeadCodeBlock(new File("other.c"), 1, 2, otherPc, new Variable("B")));
+        blocks.add(new DeadCodeBlock(new File("other.c"), -1, -1, null, null));
+
+        File file = new File(folder.getRoot(), "results.bin.gz");
+        try (DeadCodeResultWriter writer = new DeadCodeResultWriter(file)) {
+            writer.write(blocks.subList(0, 2));
+            writer.write(blocks.subList(2, 4));
+            assertEquals(4, writer.getBlockCount());
+            assertEquals(3, writer.getFileCount());
+        }
+
+        assertBlocksEqual(blocks, read(file));
+    }
+
+    /**
+     * Tests that blocks whose file presence conditions are equal but not the same still get the right file PC.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testEqualFilePcs() throws IOException {
+        File sourceFile = new File("file.c");
+        List<DeadCodeBlock> blocks = Arrays.asList(
+                new DeadCodeBlock(sourceFile, 1, 2, new Variable("FILE"), null),
+                new DeadCodeBlock(sourceFile, 3, 4, new Variable("FILE"), null));
+
+        File file = new File(folder.getRoot(), "results.bin.gz");
+        try (DeadCodeResultWriter writer = new DeadCodeResultWriter(file)) {
+            writer.write(blocks);
+        }
+
+        assertBlocksEqual(blocks, read(file));
+    }
+
+    /**
+     * Tests that a file without results can be read.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testEmpty() throws IOException {
+        File file = new File(folder.getRoot(), "results.bin.gz");
+        try (DeadCodeResultWriter writer = new DeadCodeResultWriter(file)) {
+            writer.write(new ArrayList<>());
+            assertEquals(0, writer.getFileCount());
+        }
+
+        assertEquals(0, read(file).size());
+    }
+
+    /**
+     * Tests that a file whose end marker is missing is rejected.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        File file = new File(folder.getRoot(), "results.bin.gz");
+        try (DeadCodeResultWriter writer = new DeadCodeResultWriter(file)) {
+            writer.write(DeadCodeResultIndexTest.createBlocks());
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 10);
+        }
+
+        read(file);
+    }
+
+    /**
+     * Tests that a file that was not written by the writer is rejected.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = IOException.class)
+    public void testForeignFile() throws IOException {
+        File file = new File(folder.getRoot(), "results.bin.gz");
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(42);
+            out.writeInt(1);
+            out.writeByte(0);
+        }
+
+        read(file);
+    }
+
+    /**
+     * Tests that a block without a preceding file record is rejected.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = IOException.class)
+    public void testBlockWithoutFile() throws IOException {
+        File file = new File(folder.getRoot(), "results.bin.gz");
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(file)))) {
+            // header, block record, end marker
+            out.writeInt(0x4B484443);
+            out.writeInt(1);
+            out.writeByte(2);
+            out.writeInt(1);
+            out.writeInt(2);
+            out.writeBoolean(false);
+            out.writeByte(0);
+        }
+
+        read(file);
+    }
+
+    /**
+     * Tests that a file that is not compressed is rejected.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = IOException.class)
+    public void testCorrupt() throws IOException {
+        File file = new File(folder.getRoot(), "results.bin.gz");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(Arrays.copyOf(new byte[] {1, 2, 3}, 32));
+        }
+
+        read(file);
+    }
+
+}
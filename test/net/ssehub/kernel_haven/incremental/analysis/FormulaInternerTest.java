@@ -0,0 +1,172 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.incremental.analysis.FormulaInterner.Node;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link FormulaInterner}.
+ *
+ * @author Moritz
+ */
+public class FormulaInternerTest {
+
+    /** The variable A. */
+    private static final Variable A = new Variable("A");
+
+    /** The variable B. */
+    private static final Variable B = new Variable("B");
+
+    /** The variable C. */
+    private static final Variable C = new Variable("C");
+
+    /**
+     * Tests that reordered and regrouped operands of conjunctions and disjunctions get the same node.
+     */
+    @Test
+    public void testOperandOrder() {
+        FormulaInterner interner = new FormulaInterner();
+
+        Node first = interner.canonical(new Conjunction(new Conjunction(A, B), C));
+        Node second = interner.canonical(new Conjunction(C, new Conjunction(B, A)));
+        assertSame(first, second);
+        assertEquals(first.toString(), second.toString());
+
+        assertSame(interner.canonical(new Disjunction(A, new Disjunction(B, C))),
+                interner.canonical(new Disjunction(new Disjunction(C, A), B)));
+    }
+
+    /**
+     * Tests that the canonical strings don't depend on the order in which formulas were interned.
+     */
+    @Test
+    public void testStableStrings() {
+        FormulaInterner first = new FormulaInterner();
+        first.canonical(C);
+        first.canonical(B);
+        FormulaInterner second = new FormulaInterner();
+
+        assertEquals(first.canonical(new Conjunction(A, new Disjunction(B, C))).toString(),
+                second.canonical(new Conjunction(new Disjunction(C, B), A)).toString());
+    }
+
+    /**
+     * Tests that different operators over the same operands get different nodes.
+     */
+    @Test
+    public void testDifferentOperators() {
+        FormulaInterner interner = new FormulaInterner();
+
+        assertNotEquals(interner.canonical(new Conjunction(A, B)), interner.canonical(new Disjunction(A, B)));
+        assertNotEquals(interner.canonical(new Conjunction(A, B)),
+                interner.canonical(new Conjunction(A, new Negation(B))));
+    }
+
+    /**
+     * Tests that duplicate operands are removed.
+     */
+    @Test
+    public void testDuplicateOperands() {
+        FormulaInterner interner = new FormulaInterner();
+
+        assertSame(interner.canonical(A), interner.canonical(new Conjunction(A, A)));
+        assertSame(interner.canonical(A), interner.canonical(new Disjunction(A, new Disjunction(A, A))));
+        assertSame(interner.canonical(new Conjunction(A, B)),
+                interner.canonical(new Conjunction(new Conjunction(A, B), new Conjunction(B, A))));
+    }
+
+    /**
+     * Tests that double negations are removed, also if this exposes nested operands of the same operator.
+     */
+    @Test
+    public void testDoubleNegation() {
+        FormulaInterner interner = new FormulaInterner();
+
+        assertSame(interner.canonical(A), interner.canonical(new Negation(new Negation(A))));
+        assertSame(interner.canonical(new Conjunction(A, new Conjunction(B, C))),
+                interner.canonical(new Conjunction(A, new Negation(new Negation(new Conjunction(C, B))))));
+        assertNotEquals(interner.canonical(A), interner.canonical(new Negation(A)));
+    }
+
+    /**
+     * Tests that complementary operands are folded into a constant.
+     */
+    @Test
+    public void testComplementaryOperands() {
+        FormulaInterner interner = new FormulaInterner();
+        Node falseNode = interner.canonical(False.INSTANCE);
+        Node trueNode = interner.canonical(True.INSTANCE);
+
+        assertSame(falseNode, interner.canonical(new Conjunction(A, new Negation(A))));
+        assertSame(trueNode, interner.canonical(new Disjunction(new Negation(A), A)));
+        assertSame(falseNode, interner.canonical(new Conjunction(new Conjunction(A, B), new Negation(B))));
+        assertSame(falseNode, interner.canonical(
+                new Conjunction(new Disjunction(A, B), new Negation(new Disjunction(B, A)))));
+    }
+
+    /**
+     * Tests that constants are dropped as neutral elements or absorb the whole operator.
+     */
+    @Test
+    public void testConstants() {
+        FormulaInterner interner = new FormulaInterner();
+
+        assertSame(interner.canonical(A), interner.canonical(new Conjunction(A, True.INSTANCE)));
+        assertSame(interner.canonical(A), interner.canonical(new Disjunction(False.INSTANCE, A)));
+        assertSame(interner.canonical(False.INSTANCE), interner.canonical(new Conjunction(A, False.INSTANCE)));
+        assertSame(interner.canonical(True.INSTANCE), interner.canonical(new Disjunction(A, True.INSTANCE)));
+        assertSame(interner.canonical(False.INSTANCE), interner.canonical(new Negation(True.INSTANCE)));
+    }
+
+    /**
+     * Tests that {@link FormulaInterner#and(Node, Node)} returns the same node as the conjunction of the formulas.
+     */
+    @Test
+    public void testAnd() {
+        FormulaInterner interner = new FormulaInterner();
+        Formula elementPc = new Conjunction(A, new Disjunction(B, C));
+        Formula filePc = new Conjunction(C, A);
+
+        assertSame(interner.canonical(new Conjunction(elementPc, filePc)),
+                interner.and(interner.canonical(elementPc), interner.canonical(filePc)));
+        assertSame(interner.canonical(False.INSTANCE),
+                interner.and(interner.canonical(A), interner.canonical(new Negation(A))));
+    }
+
+    /**
+     * Tests that {@link FormulaInterner#share(Formula)} keeps the structure of the formula and shares equal
+     * subformulas.
+     */
+    @Test
+    public void testShare() {
+        FormulaInterner interner = new FormulaInterner();
+        Formula first = new Conjunction(new Disjunction(A, B), new Negation(C));
+        Formula second = new Disjunction(new Disjunction(new Variable("A"), new Variable("B")), C);
+
+        Formula sharedFirst = interner.share(first);
+        Formula sharedSecond = interner.share(second);
+        assertEquals(first, sharedFirst);
+        assertEquals(second, sharedSecond);
+        assertSame(interner.canonical(first), interner.canonical(sharedFirst));
+        assertSame(((Conjunction) sharedFirst).getLeft(), ((Disjunction) sharedSecond).getLeft());
+        assertSame(sharedFirst, interner.share(new Conjunction(new Disjunction(A, B), new Negation(C))));
+
+        // the structure is kept, so equivalent but differently ordered formulas stay different
+        Formula reordered = interner.share(new Disjunction(B, A));
+        assertEquals(new Disjunction(B, A), reordered);
+        assertNotSame(((Conjunction) sharedFirst).getLeft(), reordered);
+    }
+
+}
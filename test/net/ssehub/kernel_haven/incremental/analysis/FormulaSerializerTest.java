@@ -0,0 +1,114 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link FormulaSerializer}.
+ *
+ * @author Moritz
+ */
+public class FormulaSerializerTest {
+
+    /**
+     * Writes the given formula.
+     *
+     * @param formula The formula.
+     * @return The written bytes.
+     *
+     * @throws IOException If writing fails.
+     */
+    private static byte[] write(Formula formula) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            FormulaSerializer.write(out, formula);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a formula from the given bytes.
+     *
+     * @param bytes The bytes.
+     * @return The formula.
+     *
+     * @throws IOException If reading fails.
+     */
+    private static Formula read(byte[] bytes) throws IOException {
+        return FormulaSerializer.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Tests that all kinds of formulas are read back as they were written.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Formula formula = new Disjunction(new Conjunction(new Variable("A"), new Negation(new Variable("B_\u00e4"))),
+                new Conjunction(True.INSTANCE, new Negation(new Disjunction(False.INSTANCE, new Variable("C")))));
+
+        assertEquals(formula, read(write(formula)));
+        assertSame(True.INSTANCE, read(write(True.INSTANCE)));
+        assertSame(False.INSTANCE, read(write(False.INSTANCE)));
+    }
+
+    /**
+     * Tests that formulas are written directly after each other without separators.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testConsecutiveFormulas() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            FormulaSerializer.write(out, new Variable("A"));
+            FormulaSerializer.write(out, new Negation(new Variable("B")));
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertEquals(new Variable("A"), FormulaSerializer.read(in));
+        assertEquals(new Negation(new Variable("B")), FormulaSerializer.read(in));
+        assertEquals(-1, in.read());
+    }
+
+    /**
+     * Tests that a truncated formula is not read.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = EOFException.class)
+    public void testTruncated() throws IOException {
+        byte[] bytes = write(new Conjunction(new Variable("A"), new Variable("B")));
+        read(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    /**
+     * Tests that an invalid tag is detected.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = IOException.class)
+    public void testInvalidTag() throws IOException {
+        read(new byte[] {42});
+    }
+
+}
@@ -0,0 +1,247 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.CnfVariable;
+
+/**
+ * Tests the {@link PersistentSatCache}.
+ *
+ * @author Moritz
+ */
+public class PersistentSatCacheTest {
+
+    /** The directory the verdicts are stored in. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Creates a CNF of a variability model.
+     *
+     * @param variable The name of the variable in the single clause.
+     * @return The CNF.
+     */
+    private static Cnf createCnf(String variable) {
+        Cnf cnf = new Cnf();
+        cnf.addRow(new CnfVariable(false, variable), new CnfVariable(true, "B"));
+        return cnf;
+    }
+
+    /**
+     * Creates a cache for the default CNF and loads the stored verdicts.
+     *
+     * @return The loaded cache.
+     *
+     * @throws IOException If loading fails.
+     */
+    private PersistentSatCache load() throws IOException {
+        PersistentSatCache cache = new PersistentSatCache(folder.getRoot(), createCnf("A"));
+        cache.load();
+        return cache;
+    }
+
+    /**
+     * Returns the file the verdicts are stored in.
+     *
+     * @return The single file in the cache directory.
+     */
+    private File getStoredFile() {
+        File[] files = folder.getRoot().listFiles();
+        assertEquals(1, files.length);
+        return files[0];
+    }
+
+    /**
+     * Tests that stored verdicts are read again by a new cache, grouped by the file presence condition.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        PersistentSatCache cache = load();
+        cache.put("A", "B", true);
+        cache.put("A", "!B", false);
+        cache.put("C", "B", false);
+        assertEquals(3, cache.size());
+        cache.save();
+
+        PersistentSatCache loaded = load();
+        assertEquals(3, loaded.size());
+        assertEquals(Boolean.TRUE, loaded.get("A", "B"));
+        assertEquals(Boolean.FALSE, loaded.get("A", "!B"));
+        assertEquals(Boolean.FALSE, loaded.get("C", "B"));
+        assertNull(loaded.get("C", "!B"));
+        assertNull(loaded.get("B", "A"));
+    }
+
+    /**
+     * Tests that overwriting a verdict does not count it twice.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testOverwrite() throws IOException {
+        PersistentSatCache cache = load();
+        cache.put("A", "B", true);
+        cache.put("A", "B", false);
+
+        assertEquals(1, cache.size());
+        assertEquals(Boolean.FALSE, cache.get("A", "B"));
+    }
+
+    /**
+     * Tests that verdicts that were not used in the last 10 runs are dropped, while used verdicts are kept.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testIdleVerdictsDropped() throws IOException {
+        PersistentSatCache cache = load();
+        cache.put("A", "B", true);
+        cache.put("A", "C", true);
+        cache.save();
+
+        for (int i = 1; i < 10; i++) {
+            cache = load();
+            assertEquals(2, cache.size());
+            cache.get("A", "C");
+            cache.save();
+        }
+
+        cache = load();
+        cache.save();
+        cache = load();
+        assertEquals(1, cache.size());
+        assertNull(cache.get("A", "B"));
+        assertEquals(Boolean.TRUE, cache.get("A", "C"));
+    }
+
+    /**
+     * Tests that verdicts stored for a different variability model are deleted when loading.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testOtherVariabilityModel() throws IOException {
+        assertNotEquals(PersistentSatCache.fingerprint(createCnf("A")), PersistentSatCache.fingerprint(createCnf("C")));
+        PersistentSatCache cache = load();
+        cache.put("A", "B", true);
+        cache.save();
+        File stored = getStoredFile();
+
+        PersistentSatCache other = new PersistentSatCache(folder.getRoot(), createCnf("C"));
+        other.load();
+        assertEquals(0, other.size());
+        assertFalse(stored.exists());
+
+        other.save();
+        assertEquals(0, load().size());
+    }
+
+    /**
+     * Tests that saving an unmodified cache does not write the file again.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testSaveUnmodified() throws IOException {
+        PersistentSatCache cache = load();
+        cache.save();
+        File stored = getStoredFile();
+        assertTrue(stored.delete());
+
+        cache.save();
+        assertEquals(0, folder.getRoot().listFiles().length);
+    }
+
+    /**
+     * Tests that a truncated cache file is rejected.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = IOException.class)
+    public void testTruncated() throws IOException {
+        PersistentSatCache cache = load();
+        cache.put("A", "B", true);
+        cache.save();
+        try (RandomAccessFile raf = new RandomAccessFile(getStoredFile(), "rw")) {
+            raf.setLength(raf.length() - 10);
+        }
+
+        load();
+    }
+
+    /**
+     * Writes the given integers as the uncompressed content of the cache file.
+     *
+     * @param values The integers to write.
+     *
+     * @throws IOException If writing fails.
+     */
+    private void writeStoredFile(int... values) throws IOException {
+        PersistentSatCache cache = load();
+        cache.save();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(getStoredFile())))) {
+            for (int value : values) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    /**
+     * Tests that a negative number of file presence conditions is rejected.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = IOException.class)
+    public void testNegativeCount() throws IOException {
+        writeStoredFile(0, -1);
+
+        load();
+    }
+
+    /**
+     * Tests that a negative key length is rejected.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = IOException.class)
+    public void testNegativeKeyLength() throws IOException {
+        writeStoredFile(0, 1, -5);
+
+        load();
+    }
+
+    /**
+     * Tests that a file that is not compressed is rejected.
+     *
+     * @throws IOException wanted.
+     */
+    @Test(expected = IOException.class)
+    public void testCorrupt() throws IOException {
+        PersistentSatCache cache = load();
+        cache.save();
+        try (FileOutputStream out = new FileOutputStream(getStoredFile())) {
+            out.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        }
+
+        load();
+    }
+
+}
@@ -0,0 +1,185 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import net.ssehub.kernel_haven.cnf.Cnf;
+import net.ssehub.kernel_haven.cnf.CnfVariable;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Disjunction;
+import net.ssehub.kernel_haven.util.logic.False;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link TrivialSatChecker}.
+ *
+ * @author Moritz
+ */
+public class TrivialSatCheckerTest {
+
+    /**
+     * Creates a checker for a variability model in which A and H are forced to true and B to false, C and D are
+     * constrained, and E is free as its only clause is satisfied by A. F and G do not occur in the model.
+     *
+     * @return The checker.
+     */
+    private static TrivialSatChecker createChecker() {
+        Cnf cnf = new Cnf();
+        cnf.addRow(new CnfVariable(false, "A"));
+        cnf.addRow(new CnfVariable(true, "B"));
+        cnf.addRow(new CnfVariable(true, "A"), new CnfVariable(false, "H"));
+        cnf.addRow(new CnfVariable(false, "C"), new CnfVariable(false, "D"));
+        cnf.addRow(new CnfVariable(false, "A"), new CnfVariable(false, "E"));
+        TrivialSatChecker checker = TrivialSatChecker.create(cnf);
+        assertNotNull(checker);
+        return checker;
+    }
+
+    /**
+     * Shorthand for creating a variable.
+     *
+     * @param name The name of the variable.
+     * @return The variable.
+     */
+    private static Variable var(String name) {
+        return new Variable(name);
+    }
+
+    /**
+     * Shorthand for creating a negation.
+     *
+     * @param formula The formula to negate.
+     * @return The negation.
+     */
+    private static Negation not(Formula formula) {
+        return new Negation(formula);
+    }
+
+    /**
+     * Shorthand for creating a conjunction.
+     *
+     * @param left  The left operand.
+     * @param right The right operand.
+     * @return The conjunction.
+     */
+    private static Conjunction and(Formula left, Formula right) {
+        return new Conjunction(left, right);
+    }
+
+    /**
+     * Tests that unit propagation finds the forced variables and the constrained variables of the remaining clauses.
+     */
+    @Test
+    public void testCreate() {
+        TrivialSatChecker checker = createChecker();
+        assertEquals(3, checker.getForcedCount());
+        assertEquals(2, checker.getConstrainedCount());
+    }
+
+    /**
+     * Tests that no checker is created if unit propagation finds a conflict.
+     */
+    @Test
+    public void testConflict() {
+        Cnf cnf = new Cnf();
+        cnf.addRow(new CnfVariable(false, "A"));
+        cnf.addRow(new CnfVariable(true, "A"), new CnfVariable(false, "B"));
+        cnf.addRow(new CnfVariable(true, "B"));
+        assertNull(TrivialSatChecker.create(cnf));
+    }
+
+    /**
+     * Tests that literals are decided by the values of forced variables.
+     */
+    @Test
+    public void testForcedVariables() {
+        TrivialSatChecker checker = createChecker();
+
+        assertEquals(Boolean.TRUE, checker.check(var("A"), True.INSTANCE));
+        assertEquals(Boolean.TRUE, checker.check(not(var("B")), var("H")));
+        assertEquals(Boolean.FALSE, checker.check(not(var("A")), True.INSTANCE));
+        assertEquals(Boolean.FALSE, checker.check(var("F"), var("B")));
+        // H is only forced through propagation of A
+        assertEquals(Boolean.FALSE, checker.check(and(var("F"), not(var("H"))), True.INSTANCE));
+    }
+
+    /**
+     * Tests that literals on free variables are satisfiable, but literals on constrained variables are left to the
+     * solver.
+     */
+    @Test
+    public void testFreeAndConstrainedVariables() {
+        TrivialSatChecker checker = createChecker();
+
+        assertEquals(Boolean.TRUE, checker.check(and(var("E"), not(var("F"))), var("G")));
+        assertEquals(Boolean.TRUE, checker.check(not(var("E")), and(var("A"), var("F"))));
+        assertNull(checker.check(var("C"), True.INSTANCE));
+        assertNull(checker.check(var("F"), not(var("D"))));
+        // a contradiction to a forced variable is unsatisfiable, even with a constrained variable
+        assertEquals(Boolean.FALSE, checker.check(var("C"), var("B")));
+    }
+
+    /**
+     * Tests that complementary literals and constants are decided, also across the element and file presence
+     * condition and below double negations.
+     */
+    @Test
+    public void testComplementaryLiterals() {
+        TrivialSatChecker checker = createChecker();
+
+        assertEquals(Boolean.FALSE, checker.check(and(var("C"), not(var("C"))), True.INSTANCE));
+        assertEquals(Boolean.FALSE, checker.check(var("F"), not(var("F"))));
+        assertEquals(Boolean.FALSE, checker.check(not(not(var("F"))), and(var("E"), not(var("F")))));
+        assertEquals(Boolean.FALSE, checker.check(False.INSTANCE, True.INSTANCE));
+        assertEquals(Boolean.FALSE, checker.check(var("E"), not(True.INSTANCE)));
+        assertEquals(Boolean.TRUE, checker.check(True.INSTANCE, not(False.INSTANCE)));
+        assertEquals(Boolean.TRUE, checker.check(not(not(var("A"))), True.INSTANCE));
+    }
+
+    /**
+     * Tests that presence conditions that are no conjunctions of literals are left to the solver.
+     */
+    @Test
+    public void testNoConjunctionOfLiterals() {
+        TrivialSatChecker checker = createChecker();
+
+        assertNull(checker.check(new Disjunction(var("E"), var("F")), True.INSTANCE));
+        assertNull(checker.check(not(and(var("E"), var("F"))), True.INSTANCE));
+        assertNull(checker.check(var("E"), new Disjunction(var("A"), var("F"))));
+    }
+
+    /**
+     * Tests that presence conditions implied by a satisfiable file presence condition are satisfiable.
+     */
+    @Test
+    public void testImpliedByFilePc() {
+        TrivialSatChecker checker = createChecker();
+        Formula filePc = and(and(var("C"), new Disjunction(var("D"), var("G"))), not(not(not(var("G")))));
+
+        assertEquals(Boolean.TRUE, checker.checkWithFilePc(var("C"), filePc, true));
+        assertEquals(Boolean.TRUE, checker.checkWithFilePc(and(not(var("G")), var("C")), filePc, true));
+        assertEquals(Boolean.TRUE, checker.checkWithFilePc(True.INSTANCE, filePc, true));
+        assertNull(checker.checkWithFilePc(var("D"), filePc, true));
+        assertNull(checker.checkWithFilePc(not(var("C")), filePc, true));
+        assertNull(checker.checkWithFilePc(new Disjunction(var("C"), var("D")), filePc, true));
+        assertNull(checker.checkWithFilePc(var("C"), not(and(var("C"), var("D"))), true));
+    }
+
+    /**
+     * Tests that every presence condition is unsatisfiable with an unsatisfiable file presence condition.
+     */
+    @Test
+    public void testUnsatisfiableFilePc() {
+        TrivialSatChecker checker = createChecker();
+
+        assertEquals(Boolean.FALSE, checker.checkWithFilePc(var("C"), var("C"), false));
+        assertEquals(Boolean.FALSE, checker.checkWithFilePc(new Disjunction(var("E"), var("F")), var("C"), false));
+    }
+
+}
@@ -0,0 +1,269 @@
+package net.ssehub.kernel_haven.incremental.analysis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.ssehub.kernel_haven.code_model.CodeBlock;
+import net.ssehub.kernel_haven.code_model.SourceFile;
+import net.ssehub.kernel_haven.util.logic.Conjunction;
+import net.ssehub.kernel_haven.util.logic.Formula;
+import net.ssehub.kernel_haven.util.logic.Negation;
+import net.ssehub.kernel_haven.util.logic.True;
+import net.ssehub.kernel_haven.util.logic.Variable;
+
+/**
+ * Tests the {@link VariableIndex}.
+ *
+ * @author Moritz
+ */
+public class VariableIndexTest {
+
+    /** The path of the first source file. */
+    private static final File FILE_1 = new File("dir/one.c");
+
+    /** The path of the second source file. */
+    private static final File FILE_2 = new File("two.c");
+
+    /** The directory the index is stored in. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Creates the first source file: a block over A from line 1 to 10 with a nested block over B from line 2 to 5,
+     * and a block over !C from line 12 to 13.
+     *
+     * @return The source file.
+     */
+    private static SourceFile<CodeBlock> createFile1() {
+        SourceFile<CodeBlock> file = new SourceFile<>(FILE_1);
+        Variable a = new Variable("A");
+        CodeBlock outer = new CodeBlock(1, 10, FILE_1, a, a);
+        outer.addNestedElement(new CodeBlock(2, 5, FILE_1, new Variable("B"), new Conjunction(a, new Variable("B"))));
+        file.addElement(outer);
+        Formula notC = new Negation(new Variable("C"));
+        file.addElement(new CodeBlock(12, 13, FILE_1, notC, notC));
+        return file;
+    }
+
+    /**
+     * Creates the second source file: a block over A from line 3 to 4.
+     *
+     * @return The source file.
+     */
+    private static SourceFile<CodeBlock> createFile2() {
+        SourceFile<CodeBlock> file = new SourceFile<>(FILE_2);
+        file.addElement(new CodeBlock(3, 4, FILE_2, new Variable("A"), new Variable("A")));
+        return file;
+    }
+
+    /**
+     * Creates an index of both source files; the second file has the presence condition FILE.
+     *
+     * @return The index.
+     */
+    private VariableIndex createIndex() {
+        VariableIndex index = new VariableIndex(folder.getRoot());
+        index.put(createFile1(), True.INSTANCE);
+        index.put(createFile2(), new Variable("FILE"));
+        return index;
+    }
+
+    /**
+     * Returns the given strings as a set.
+     *
+     * @param strings The strings.
+     * @return The set.
+     */
+    private static Set<String> set(String... strings) {
+        return new HashSet<>(Arrays.asList(strings));
+    }
+
+    /**
+     * Tests that the index finds the files and line ranges of each variable.
+     */
+    @Test
+    public void testRanges() {
+        VariableIndex index = createIndex();
+
+        assertEquals(set(FILE_1.getPath(), FILE_2.getPath()), index.getPaths());
+        assertEquals(set(FILE_1.getPath(), FILE_2.getPath()), index.getFiles(Arrays.asList("A")));
+        assertEquals(set(FILE_1.getPath()), index.getFiles(Arrays.asList("B", "C")));
+        assertEquals(set(FILE_2.getPath()), index.getFiles(Arrays.asList("FILE")));
+        assertEquals(set(), index.getFiles(Arrays.asList("UNKNOWN")));
+
+        // the nested block mentions B in its condition, A only in its presence condition
+        assertArrayEquals(new int[] {1, 10}, index.getRanges(FILE_1, Arrays.asList("A")));
+        assertArrayEquals(new int[] {2, 5}, index.getRanges(FILE_1, Arrays.asList("B")));
+        assertArrayEquals(new int[] {12, 13}, index.getRanges(FILE_1, Arrays.asList("C")));
+        assertArrayEquals(new int[0], index.getRanges(FILE_1, Arrays.asList("FILE")));
+        assertArrayEquals(new int[] {0, 0}, index.getRanges(FILE_2, Arrays.asList("FILE")));
+    }
+
+    /**
+     * Tests {@link VariableIndex#coversFile(int[])} and {@link VariableIndex#isCovered(int[], int, int)}.
+     */
+    @Test
+    public void testCoverage() {
+        VariableIndex index = createIndex();
+
+        int[] ranges = index.getRanges(FILE_1, Arrays.asList("B", "C"));
+        assertFalse(VariableIndex.coversFile(ranges));
+        assertTrue(VariableIndex.isCovered(ranges, 2, 5));
+        assertTrue(VariableIndex.isCovered(ranges, 3, 4));
+        assertFalse(VariableIndex.isCovered(ranges, 1, 10));
+        assertFalse(VariableIndex.isCovered(ranges, 6, 7));
+        assertTrue(VariableIndex.isCovered(ranges, -1, -1));
+
+        assertTrue(VariableIndex.coversFile(index.getRanges(FILE_2, Arrays.asList("A", "FILE"))));
+        assertFalse(VariableIndex.coversFile(new int[0]));
+    }
+
+    /**
+     * Tests that blocks without line numbers cover the whole file.
+     */
+    @Test
+    public void testUnknownLines() {
+        VariableIndex index = new VariableIndex(folder.getRoot());
+        SourceFile<CodeBlock> file = new SourceFile<>(FILE_1);
+        CodeBlock outer = new CodeBlock(-1, -1, FILE_1, new Variable("A"), new Variable("A"));
+        outer.addNestedElement(new CodeBlock(-1, -1, FILE_1, new Variable("B"), new Variable("B")));
+        file.addElement(outer);
+        index.put(file, True.INSTANCE);
+
+        assertTrue(VariableIndex.coversFile(index.getRanges(FILE_1, Arrays.asList("B"))));
+    }
+
+    /**
+     * Tests that replacing a file drops the variables that it no longer references.
+     */
+    @Test
+    public void testReplace() {
+        VariableIndex index = createIndex();
+        SourceFile<CodeBlock> replaced = new SourceFile<>(FILE_1);
+        replaced.addElement(new CodeBlock(5, 6, FILE_1, new Variable("D"), new Variable("D")));
+        index.put(replaced, True.INSTANCE);
+
+        assertEquals(set(FILE_2.getPath()), index.getFiles(Arrays.asList("A", "B", "C")));
+        assertEquals(set(FILE_1.getPath()), index.getFiles(Arrays.asList("D")));
+        assertArrayEquals(new int[0], index.getRanges(FILE_1, Arrays.asList("A")));
+        assertArrayEquals(new int[] {5, 6}, index.getRanges(FILE_1, Arrays.asList("D")));
+        assertArrayEquals(new int[] {3, 4}, index.getRanges(FILE_2, Arrays.asList("A")));
+    }
+
+    /**
+     * Tests that removing a file drops all of its postings.
+     */
+    @Test
+    public void testRemove() {
+        VariableIndex index = createIndex();
+        index.remove(FILE_2);
+
+        assertEquals(set(FILE_1.getPath()), index.getPaths());
+        assertEquals(set(FILE_1.getPath()), index.getFiles(Arrays.asList("A")));
+        assertEquals(set(), index.getFiles(Arrays.asList("FILE")));
+        assertArrayEquals(new int[0], index.getRanges(FILE_2, Arrays.asList("A")));
+    }
+
+    /**
+     * Tests that a stored index is loaded again, including the completeness flag, and that single variables can be
+     * looked up in the stored index.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        VariableIndex index = createIndex();
+        index.remove(FILE_2);
+        index.put(createFile2(), new Variable("FILE"));
+        index.markComplete();
+        index.save();
+
+        VariableIndex loaded = new VariableIndex(folder.getRoot());
+        loaded.load();
+        assertTrue(loaded.isComplete());
+        assertEquals(index.getPaths(), loaded.getPaths());
+        for (String name : Arrays.asList("A", "B", "C", "FILE")) {
+            assertEquals(index.getFiles(Arrays.asList(name)), loaded.getFiles(Arrays.asList(name)));
+            assertArrayEquals(index.getRanges(FILE_1, Arrays.asList(name)),
+                    loaded.getRanges(FILE_1, Arrays.asList(name)));
+            assertArrayEquals(index.getRanges(FILE_2, Arrays.asList(name)),
+                    loaded.getRanges(FILE_2, Arrays.asList(name)));
+        }
+
+        // replacing a file after loading still drops its old postings
+        loaded.put(new SourceFile<>(FILE_1), True.INSTANCE);
+        assertEquals(set(FILE_2.getPath()), loaded.getFiles(Arrays.asList("A", "B")));
+
+        Map<String, int[]> postings = VariableIndex.lookup(folder.getRoot(), "A");
+        assertNotNull(postings);
+        assertEquals(set(FILE_1.getPath(), FILE_2.getPath()), postings.keySet());
+        assertArrayEquals(new int[] {1, 10}, postings.get(FILE_1.getPath()));
+        assertArrayEquals(new int[] {3, 4}, postings.get(FILE_2.getPath()));
+        assertEquals(Collections.emptyMap(), VariableIndex.lookup(folder.getRoot(), "UNKNOWN"));
+        assertEquals(Collections.emptyMap(), VariableIndex.lookup(folder.getRoot(), "0"));
+    }
+
+    /**
+     * Tests that a new or missing index is incomplete and empty.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testMissing() throws IOException {
+        VariableIndex index = new VariableIndex(folder.getRoot());
+        index.load();
+        assertFalse(index.isComplete());
+        assertTrue(index.getPaths().isEmpty());
+        assertNull(VariableIndex.lookup(folder.getRoot(), "A"));
+
+        index.save();
+        index.load();
+        assertFalse(index.isComplete());
+    }
+
+    /**
+     * Tests that a truncated index is rejected and leaves the index empty and incomplete.
+     *
+     * @throws IOException unwanted.
+     */
+    @Test
+    public void testTruncated() throws IOException {
+        VariableIndex index = createIndex();
+        index.markComplete();
+        index.save();
+        File[] files = folder.getRoot().listFiles();
+        assertEquals(1, files.length);
+        try (RandomAccessFile raf = new RandomAccessFile(files[0], "rw")) {
+            raf.setLength(raf.length() - 2);
+        }
+
+        VariableIndex loaded = new VariableIndex(folder.getRoot());
+        try {
+            loaded.load();
+            fail("Expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+        assertFalse(loaded.isComplete());
+        assertTrue(loaded.getPaths().isEmpty());
+    }
+
+}